@@ -10,6 +10,7 @@ import io.github.zvasva.maxregel.util.Iters;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
 
@@ -30,6 +31,11 @@ public abstract class AbstractFactSet implements FactSet {
      */
     protected UnaryOperation<Fact> factOperation = new UnaryOperation.Identity<>();
 
+    /**
+     * Statistics per part, collected on demand.
+     */
+    private final Map<String, PartStatistics> statistics = new ConcurrentHashMap<>();
+
     /**
      * Get the fact operation that is applied to each Fact in this FactSet.
      * @return the fact operation
@@ -105,6 +111,27 @@ public abstract class AbstractFactSet implements FactSet {
         return new Concat(this, other);
     }
 
+    /**
+     * Get the statistics of a part, which are collected once per instance, see {@link #collectStatistics(String)}.
+     * @param part the name of the part
+     * @return the statistics
+     */
+    @Override
+    public PartStatistics statistics(String part) {
+        return statistics.computeIfAbsent(part, this::collectStatistics);
+    }
+
+    /**
+     * Collect the statistics of a part. By default, this is delegated to the part itself (so its cache is used),
+     * or the facts are iterated if this factset is the part.
+     * @param part the name of the part
+     * @return new statistics
+     */
+    protected PartStatistics collectStatistics(String part) {
+        FactSet facts = get(part);
+        return facts != this && facts instanceof AbstractFactSet ? facts.statistics(part) : PartStatistics.collect(part, facts);
+    }
+
     @Override
     public String toString() {
         return FactSets.toString(this);
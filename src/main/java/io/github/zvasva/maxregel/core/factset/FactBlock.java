@@ -0,0 +1,183 @@
+package io.github.zvasva.maxregel.core.factset;
+
+import io.github.zvasva.maxregel.core.process.predicate.Predicate;
+import io.github.zvasva.maxregel.core.term.Fact;
+import io.github.zvasva.maxregel.core.term.FieldAccessor;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
+
+/**
+ * A block of (at most {@link #SIZE}) facts, with their field values in columns.
+ * <p>
+ * Predicates can test all facts of a block at once with {@link Predicate#testBatch(FactBlock, BitSet)}, in loops
+ * over arrays instead of field lookups per fact. Columns are extracted on first use and then shared by all
+ * predicates that test the same field. Integral and decimal columns are also available as primitive arrays,
+ * if all values of the field have such a type.
+ *
+ * @author Arvid Halma
+ */
+public final class FactBlock {
+
+    /** The number of facts in a full block. */
+    public static final int SIZE = 1024;
+
+    private static final Object NONE = new Object();
+
+    private final Fact[] facts;
+    private final Map<String, Object[]> values = new HashMap<>();
+    private final Map<String, Object> longs = new HashMap<>();
+    private final Map<String, Object> doubles = new HashMap<>();
+
+    public FactBlock(List<Fact> facts) {
+        this.facts = requireNonNullArg(facts, "facts").toArray(Fact[]::new);
+    }
+
+    public int size() {
+        return facts.length;
+    }
+
+    public Fact fact(int i) {
+        return facts[i];
+    }
+
+    /**
+     * @param field a field name
+     * @return the value of the field per fact (null if missing)
+     */
+    public Object[] values(String field) {
+        return values.computeIfAbsent(field, f -> {
+            FieldAccessor accessor = FieldAccessor.of(f);
+            Object[] column = new Object[facts.length];
+            for (int i = 0; i < facts.length; i++) {
+                column[i] = facts[i].get(accessor);
+            }
+            return column;
+        });
+    }
+
+    /**
+     * @param field a field name
+     * @return the values of the field as longs, or null if not all of them are integral numbers (Long, Integer...)
+     */
+    public long[] longs(String field) {
+        Object column = longs.computeIfAbsent(field, f -> {
+            Object[] xs = values(f);
+            long[] result = new long[xs.length];
+            for (int i = 0; i < xs.length; i++) {
+                if (!(xs[i] instanceof Long || xs[i] instanceof Integer || xs[i] instanceof Short || xs[i] instanceof Byte)) {
+                    return NONE;
+                }
+                result[i] = ((Number) xs[i]).longValue();
+            }
+            return result;
+        });
+        return column == NONE ? null : (long[]) column;
+    }
+
+    /**
+     * @param field a field name
+     * @return the values of the field as doubles, or null if not all of them are numbers
+     * (other than {@link BigDecimal} and {@link BigInteger}, which may not fit)
+     */
+    public double[] doubles(String field) {
+        Object column = doubles.computeIfAbsent(field, f -> {
+            Object[] xs = values(f);
+            double[] result = new double[xs.length];
+            for (int i = 0; i < xs.length; i++) {
+                if (!(xs[i] instanceof Number n) || n instanceof BigDecimal || n instanceof BigInteger) {
+                    return NONE;
+                }
+                result[i] = n.doubleValue();
+            }
+            return result;
+        });
+        return column == NONE ? null : (double[]) column;
+    }
+
+    /**
+     * Helper for batch tests: make out contain exactly the bits of the given words.
+     * Tests can set bit i with {@code words[i >>> 6] |= (match ? 1L : 0L) << i}, which does not branch.
+     * @param words the bits, as created by {@link #words()}
+     * @param out the result
+     */
+    public static void store(long[] words, BitSet out) {
+        out.clear();
+        out.or(BitSet.valueOf(words));
+    }
+
+    /**
+     * @return an array of words with a bit for every fact, all 0
+     */
+    public long[] words() {
+        return new long[(facts.length + 63) >>> 6];
+    }
+
+    /**
+     * Select the facts that satisfy a (bound) predicate, testing a block at a time.
+     * @param facts the facts to test
+     * @param predicate the predicate
+     * @return the facts that satisfy the predicate, in order
+     */
+    public static List<Fact> filter(Collection<Fact> facts, Predicate<Fact, ?> predicate) {
+        List<Fact> all = facts instanceof List<Fact> list ? list : new ArrayList<>(facts);
+        BitSet selected = select(all, null, predicate);
+        List<Fact> result = new ArrayList<>(selected.cardinality());
+        for (int i = selected.nextSetBit(0); i >= 0; i = selected.nextSetBit(i + 1)) {
+            result.add(all.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Select the positions of the facts that satisfy a (bound) predicate, testing a block at a time.
+     * @param facts the facts to test
+     * @param selection the positions to test, or null to test all facts
+     * @param predicate the predicate
+     * @return the positions (in facts) of the selected facts that satisfy the predicate
+     */
+    public static BitSet select(List<Fact> facts, BitSet selection, Predicate<Fact, ?> predicate) {
+        BitSet result = new BitSet(facts.size());
+        BitSet out = new BitSet(SIZE);
+        if (selection == null) {
+            for (int from = 0; from < facts.size(); from += SIZE) {
+                predicate.testBatch(new FactBlock(facts.subList(from, Math.min(facts.size(), from + SIZE))), out);
+                for (int i = out.nextSetBit(0); i >= 0; i = out.nextSetBit(i + 1)) {
+                    result.set(from + i);
+                }
+            }
+            return result;
+        }
+        // gather the selected facts into full blocks
+        int[] positions = new int[SIZE];
+        List<Fact> rows = new ArrayList<>(SIZE);
+        for (int p = selection.nextSetBit(0); p >= 0; p = selection.nextSetBit(p + 1)) {
+            positions[rows.size()] = p;
+            rows.add(facts.get(p));
+            if (rows.size() == SIZE) {
+                select(rows, positions, predicate, out, result);
+            }
+        }
+        select(rows, positions, predicate, out, result);
+        return result;
+    }
+
+    private static void select(List<Fact> rows, int[] positions, Predicate<Fact, ?> predicate, BitSet out, BitSet result) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        predicate.testBatch(new FactBlock(rows), out);
+        for (int i = out.nextSetBit(0); i >= 0; i = out.nextSetBit(i + 1)) {
+            result.set(positions[i]);
+        }
+        rows.clear();
+    }
+}
@@ -193,4 +193,15 @@ public interface FactSet extends Iterable<Fact> {
      */
     boolean all(Predicate<Fact, FactSet> predicate);
 
+    /**
+     * Statistics of the facts in a part, like the number of facts and the distinct values per field.
+     * Implementations may cache them, since a {@link FactSet} does not change.
+     *
+     * @param part the name of the part
+     * @return the statistics, with a row count of 0 if the part does not exist
+     */
+    default PartStatistics statistics(String part) {
+        return PartStatistics.collect(part, get(part));
+    }
+
 }
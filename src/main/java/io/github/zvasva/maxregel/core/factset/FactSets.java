@@ -3,6 +3,7 @@ package io.github.zvasva.maxregel.core.factset;
 import io.github.zvasva.maxregel.core.process.UnaryOperation;
 import io.github.zvasva.maxregel.core.process.factoperation.AddFactInfo;
 import io.github.zvasva.maxregel.core.term.Fact;
+import io.github.zvasva.maxregel.core.term.FieldAccessor;
 import io.github.zvasva.maxregel.core.term.MapTerm;
 import io.github.zvasva.maxregel.core.term.Term;
 import io.github.zvasva.maxregel.core.term.Terms;
@@ -135,6 +136,22 @@ public class FactSets {
     }
 
 
+    /**
+     * Create a new factset from arbitrary objects. Facts are used as is, and other objects are wrapped
+     * using {@link Terms#asTerm(Object)}, so generated adapters (see {@link io.github.zvasva.maxregel.core.term.AsTerm})
+     * are used when available.
+     * @param name the part name
+     * @param objects the content
+     * @return a factset.
+     */
+    public static FactSet fromObjects(String name, Collection<?> objects) {
+        List<Fact> facts = new ArrayList<>(objects.size());
+        for (Object obj : objects) {
+            facts.add(obj instanceof Fact fact ? fact : new Fact(Terms.asTerm(obj)));
+        }
+        return new SinglePartFactSet(facts, name);
+    }
+
     public static FactSet create(FactSet ... facts) {
         return new MultiPartFactSet(Arrays.asList(facts), UnaryOperation.identity());
     }
@@ -312,7 +329,8 @@ public class FactSets {
      * @return a new FactSet where facts are grouped according to the specified field.
      */
     public static FactSet groupByField(FactSet facts, String field) {
-        return facts.group(f -> Objects.toString(f.get(field)));
+        final FieldAccessor accessor = FieldAccessor.of(field);
+        return facts.group(f -> Objects.toString(f.get(accessor)));
     }
 
     /**
@@ -337,8 +355,10 @@ public class FactSets {
      * @return a new FactSet representing the join of both sets.
      */
     public static FactSet joinOnField(FactSet a, FactSet b, String aField, String bField) {
-        Function<Fact, String> onA = f -> Objects.toString(f.get(aField));
-        Function<Fact, String> onB = f -> Objects.toString(f.get(bField));
+        final FieldAccessor accessorA = FieldAccessor.of(aField);
+        final FieldAccessor accessorB = FieldAccessor.of(bField);
+        Function<Fact, String> onA = f -> Objects.toString(f.get(accessorA));
+        Function<Fact, String> onB = f -> Objects.toString(f.get(accessorB));
         return a.join(b, onA, onB);
     }
 
@@ -371,6 +391,20 @@ public class FactSets {
         }).toList(), UnaryOperation.identity());
     }
 
+    /**
+     * Collect the statistics of all parts of a factset up front, e.g. right after loading it.
+     * They are cached by the factset, so later calls to {@link FactSet#statistics(String)} are cheap.
+     * @param facts the factset.
+     * @return the statistics per part name.
+     */
+    public static Map<String, PartStatistics> analyze(FactSet facts){
+        Map<String, PartStatistics> result = new LinkedHashMap<>();
+        for (String part : facts.parts()) {
+            result.put(part, facts.statistics(part));
+        }
+        return result;
+    }
+
     /**
      * A multiline string representation of a factset, showing the full {@link Fact} objects.
      * @param facts the factset
@@ -0,0 +1,138 @@
+package io.github.zvasva.maxregel.core.factset;
+
+import java.util.Arrays;
+
+import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
+
+/**
+ * Summary of the values of a single field within a part of a {@link FactSet}:
+ * how many facts there are, how many of them have a value, (an estimate of) the number of distinct values,
+ * the minimum and maximum value and, for numbers, a small equi-width histogram.
+ * <p>
+ * These statistics are meant for estimating the number of facts that a predicate selects, see {@link #equalFraction()}
+ * and {@link #lessFraction(double, boolean)}. Numbers are summarized as doubles.
+ *
+ * @author Arvid Halma
+ */
+public final class FieldStatistics {
+
+    /** The number of buckets of a histogram. */
+    public static final int BUCKETS = 8;
+
+    private final String field;
+    private final long count;
+    private final long nonNullCount;
+    private final long distinctCount;
+    private final Object min;
+    private final Object max;
+    private final long[] histogram;
+
+    /**
+     * @param field the field name
+     * @param count the number of facts in the part
+     * @param nonNullCount the number of facts with a (non-null) value for this field
+     * @param distinctCount the (estimated) number of distinct values
+     * @param min the minimum value, or null if unknown or not comparable
+     * @param max the maximum value, or null if unknown or not comparable
+     * @param histogram counts of numeric values in equally wide buckets from min to max, or an empty array
+     */
+    public FieldStatistics(String field, long count, long nonNullCount, long distinctCount, Object min, Object max, long[] histogram) {
+        this.field = requireNonNullArg(field, "field");
+        this.count = count;
+        this.nonNullCount = nonNullCount;
+        this.distinctCount = distinctCount;
+        this.min = min;
+        this.max = max;
+        this.histogram = requireNonNullArg(histogram, "histogram").clone();
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getNonNullCount() {
+        return nonNullCount;
+    }
+
+    public long getDistinctCount() {
+        return distinctCount;
+    }
+
+    public Object getMin() {
+        return min;
+    }
+
+    public Object getMax() {
+        return max;
+    }
+
+    public long[] getHistogram() {
+        return histogram.clone();
+    }
+
+    /**
+     * @return the fraction of facts without a value for this field
+     */
+    public double nullFraction() {
+        return count == 0 ? 0 : 1.0 - (double) nonNullCount / count;
+    }
+
+    /**
+     * Estimate of the fraction of facts that have a specific value, assuming all values are equally common.
+     * @return a fraction between 0 and 1
+     */
+    public double equalFraction() {
+        return count == 0 || distinctCount == 0 ? 0 : (double) nonNullCount / count / distinctCount;
+    }
+
+    /**
+     * Estimate of the fraction of facts with a numeric value below the given one, based on the histogram.
+     * @param value the value to compare with
+     * @param inclusive whether values equal to the given one count as well
+     * @return a fraction between 0 and 1, or {@link Double#NaN} if there is no histogram
+     */
+    public double lessFraction(double value, boolean inclusive) {
+        if (count == 0) {
+            return 0;
+        }
+        if (histogram.length == 0 || !(min instanceof Number minNumber) || !(max instanceof Number maxNumber)) {
+            return Double.NaN;
+        }
+        double lo = minNumber.doubleValue(), hi = maxNumber.doubleValue();
+        if (value < lo || (value == lo && !inclusive)) {
+            return 0;
+        }
+        if (value > hi || (value == hi && inclusive)) {
+            return (double) nonNullCount / count;
+        }
+        if (hi == lo) {
+            return 0; // value == lo == hi, not inclusive
+        }
+        double position = (value - lo) / (hi - lo) * histogram.length;
+        int bucket = Math.min((int) position, histogram.length - 1);
+        double below = 0;
+        for (int i = 0; i < bucket; i++) {
+            below += histogram[i];
+        }
+        // assume values are evenly spread within a bucket
+        below += histogram[bucket] * (position - bucket);
+        return Math.min(below / count, (double) nonNullCount / count);
+    }
+
+    @Override
+    public String toString() {
+        return "FieldStatistics{" +
+                "field='" + field + '\'' +
+                ", count=" + count +
+                ", nonNullCount=" + nonNullCount +
+                ", distinctCount=" + distinctCount +
+                ", min=" + min +
+                ", max=" + max +
+                ", histogram=" + Arrays.toString(histogram) +
+                '}';
+    }
+}
@@ -0,0 +1,112 @@
+package io.github.zvasva.maxregel.core.factset;
+
+import io.github.zvasva.maxregel.core.process.predicate.ValidAt;
+import io.github.zvasva.maxregel.core.term.Fact;
+import io.github.zvasva.maxregel.core.term.FieldAccessor;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * An interval tree over the validity periods of a list of facts, e.g. for {@link ValidAt} or {@link VersionedFactSet}.
+ * <p>
+ * The periods are sorted by start, and the sorted array is a balanced search tree where each node (the middle of a
+ * range) knows the largest end in its range. Finding all periods that contain a day takes O(log n + k) steps
+ * for k results, since a range is skipped when none of its periods end after the day.
+ *
+ * @author Arvid Halma
+ */
+final class IntervalIndex {
+    private final long[] starts;
+    private final long[] ends;
+    private final int[] positions;
+    private final long[] maxEnds;
+
+    /**
+     * @param starts the start of the period (inclusive) per position
+     * @param ends the end of the period (exclusive) per position; periods that do not end after their start are
+     *             never valid
+     */
+    IntervalIndex(long[] starts, long[] ends) {
+        List<long[]> periods = new ArrayList<>(starts.length);
+        for (int i = 0; i < starts.length; i++) {
+            if (starts[i] < ends[i]) {
+                periods.add(new long[]{starts[i], ends[i], i});
+            }
+        }
+        periods.sort((a, b) -> Long.compare(a[0], b[0]));
+        int n = periods.size();
+        this.starts = new long[n];
+        this.ends = new long[n];
+        positions = new int[n];
+        for (int i = 0; i < n; i++) {
+            long[] period = periods.get(i);
+            this.starts[i] = period[0];
+            this.ends[i] = period[1];
+            positions[i] = (int) period[2];
+        }
+        maxEnds = new long[n];
+        buildMaxEnds(0, n);
+    }
+
+    /**
+     * Index the validity periods of facts, as days (see {@link ValidAt}).
+     * @param facts the facts to index
+     * @param fromField the field with the start of the period (inclusive)
+     * @param toField the field with the end of the period (exclusive)
+     * @return a new index
+     */
+    static IntervalIndex of(List<Fact> facts, String fromField, String toField) {
+        FieldAccessor from = FieldAccessor.of(fromField);
+        FieldAccessor to = FieldAccessor.of(toField);
+        long[] starts = new long[facts.size()];
+        long[] ends = new long[facts.size()];
+        for (int i = 0; i < facts.size(); i++) {
+            Object x = facts.get(i).get(from);
+            Object y = facts.get(i).get(to);
+            Long start = x == null ? Long.valueOf(Long.MIN_VALUE) : ValidAt.epochDay(x);
+            Long end = y == null ? Long.valueOf(Long.MAX_VALUE) : ValidAt.epochDay(y);
+            boolean valid = start != null && end != null;
+            starts[i] = valid ? start : 0;
+            ends[i] = valid ? end : 0;
+        }
+        return new IntervalIndex(starts, ends);
+    }
+
+    private long buildMaxEnds(int lo, int hi) {
+        if (lo >= hi) {
+            return Long.MIN_VALUE;
+        }
+        int mid = (lo + hi) >>> 1;
+        maxEnds[mid] = Math.max(ends[mid], Math.max(buildMaxEnds(lo, mid), buildMaxEnds(mid + 1, hi)));
+        return maxEnds[mid];
+    }
+
+    /**
+     * @param day a point in time, e.g. a day number ({@link java.time.LocalDate#toEpochDay()})
+     * @return the positions of the periods that contain it
+     */
+    BitSet validAt(long day) {
+        BitSet result = new BitSet();
+        collect(0, starts.length, day, result);
+        return result;
+    }
+
+    private void collect(int lo, int hi, long day, BitSet result) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (maxEnds[mid] <= day) {
+                return; // all periods in this range end before (or at) the day
+            }
+            collect(lo, mid, day, result);
+            if (starts[mid] > day) {
+                return; // all periods to the right start later
+            }
+            if (ends[mid] > day) {
+                result.set(positions[mid]);
+            }
+            lo = mid + 1;
+        }
+    }
+}
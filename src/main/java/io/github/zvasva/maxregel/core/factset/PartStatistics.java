@@ -0,0 +1,189 @@
+package io.github.zvasva.maxregel.core.factset;
+
+import io.github.zvasva.maxregel.core.term.Fact;
+import io.github.zvasva.maxregel.core.term.Term;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
+
+/**
+ * Statistics of a single part of a {@link FactSet}: the number of facts, and {@link FieldStatistics} for
+ * every field that occurs in at least one of them.
+ * <p>
+ * Use {@link FactSet#statistics(String)} to get the (cached) statistics of a part.
+ *
+ * @author Arvid Halma
+ */
+public final class PartStatistics {
+
+    /** The number of smallest hash values that is kept to estimate the number of distinct values. */
+    static final int SKETCH_SIZE = 256;
+
+    private final String part;
+    private final long rowCount;
+    private final Map<String, FieldStatistics> fields;
+
+    public PartStatistics(String part, long rowCount, Map<String, FieldStatistics> fields) {
+        this.part = requireNonNullArg(part, "part");
+        this.rowCount = rowCount;
+        this.fields = Collections.unmodifiableMap(new LinkedHashMap<>(requireNonNullArg(fields, "fields")));
+    }
+
+    public String getPart() {
+        return part;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return the statistics per field name
+     */
+    public Map<String, FieldStatistics> getFields() {
+        return fields;
+    }
+
+    /**
+     * @param field a field name
+     * @return the statistics of the field, or null if no fact has this field
+     */
+    public FieldStatistics field(String field) {
+        return fields.get(field);
+    }
+
+    /**
+     * Collect statistics by iterating over the facts (twice, if there are numeric fields).
+     * @param part the part name
+     * @param facts the facts of the part
+     * @return new statistics
+     */
+    public static PartStatistics collect(String part, Iterable<Fact> facts) {
+        Map<String, FieldCollector> collectors = new LinkedHashMap<>();
+        long rowCount = 0;
+        for (Fact fact : facts) {
+            rowCount++;
+            Term term = fact.getTerm();
+            for (String key : term.keys()) {
+                collectors.computeIfAbsent(key, FieldCollector::new).add(term.get(key));
+            }
+        }
+        if (collectors.values().stream().anyMatch(FieldCollector::isNumeric)) {
+            for (Fact fact : facts) {
+                Term term = fact.getTerm();
+                for (FieldCollector collector : collectors.values()) {
+                    if (collector.isNumeric()) {
+                        collector.addToHistogram(term.get(collector.field));
+                    }
+                }
+            }
+        }
+        Map<String, FieldStatistics> fields = new LinkedHashMap<>();
+        for (FieldCollector collector : collectors.values()) {
+            fields.put(collector.field, collector.result(rowCount));
+        }
+        return new PartStatistics(part, rowCount, fields);
+    }
+
+    @Override
+    public String toString() {
+        return "PartStatistics{" +
+                "part='" + part + '\'' +
+                ", rowCount=" + rowCount +
+                ", fields=" + fields.values() +
+                '}';
+    }
+
+    /**
+     * Gathers the values of one field.
+     * The number of distinct values is estimated with the k minimum values of their hashes, which is exact
+     * when there are fewer than {@link #SKETCH_SIZE} distinct values.
+     */
+    private static final class FieldCollector {
+        private final String field;
+        private long nonNullCount = 0;
+        private Object min, max;
+        private boolean comparable = true;
+        private boolean numeric = true;
+        private final TreeSet<Long> sketch = new TreeSet<>();
+        private long[] histogram;
+
+        FieldCollector(String field) {
+            this.field = field;
+        }
+
+        boolean isNumeric() {
+            return numeric && nonNullCount > 0;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        void add(Object value) {
+            if (value == null) {
+                return;
+            }
+            nonNullCount++;
+            if (value instanceof Number n) {
+                value = n.doubleValue(); // int, long, double... all to double
+            } else {
+                numeric = false;
+            }
+            addHash(value.hashCode());
+
+            if (!comparable) {
+                return;
+            }
+            if (!(value instanceof Comparable c) || (min != null && min.getClass() != value.getClass())) {
+                comparable = false;
+                min = max = null;
+            } else if (min == null) {
+                min = max = value;
+            } else if (c.compareTo(min) < 0) {
+                min = value;
+            } else if (c.compareTo(max) > 0) {
+                max = value;
+            }
+        }
+
+        private void addHash(int hashCode) {
+            // spread the bits of the hash code over a non-negative long
+            long h = hashCode * 0x9E3779B97F4A7C15L;
+            h ^= h >>> 32;
+            h = (h * 0xBF58476D1CE4E5B9L) >>> 1;
+            if (sketch.size() < SKETCH_SIZE) {
+                sketch.add(h);
+            } else if (h < sketch.last() && sketch.add(h)) {
+                sketch.pollLast();
+            }
+        }
+
+        void addToHistogram(Object value) {
+            if (!(value instanceof Number n)) {
+                return;
+            }
+            if (histogram == null) {
+                histogram = new long[FieldStatistics.BUCKETS];
+            }
+            double lo = (Double) min, hi = (Double) max;
+            int bucket = hi == lo ? 0 : (int) ((n.doubleValue() - lo) / (hi - lo) * histogram.length);
+            histogram[Math.min(Math.max(bucket, 0), histogram.length - 1)]++;
+        }
+
+        long distinctCount() {
+            if (sketch.size() < SKETCH_SIZE) {
+                return sketch.size();
+            }
+            // the k-th smallest of n uniform hashes is about k / n of the range
+            double kth = (double) sketch.last() / Long.MAX_VALUE;
+            return Math.min(nonNullCount, Math.round((SKETCH_SIZE - 1) / kth));
+        }
+
+        FieldStatistics result(long rowCount) {
+            return new FieldStatistics(field, rowCount, nonNullCount, distinctCount(), min, max,
+                    histogram == null ? new long[0] : histogram);
+        }
+    }
+}
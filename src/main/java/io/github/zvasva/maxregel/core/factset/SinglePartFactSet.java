@@ -2,8 +2,12 @@ package io.github.zvasva.maxregel.core.factset;
 
 import io.github.zvasva.maxregel.core.process.UnaryOperation;
 import io.github.zvasva.maxregel.core.process.predicate.Comparator;
+import io.github.zvasva.maxregel.core.process.predicate.FieldContains;
+import io.github.zvasva.maxregel.core.process.predicate.FieldMatches;
 import io.github.zvasva.maxregel.core.process.predicate.Predicate;
+import io.github.zvasva.maxregel.core.process.predicate.ValidAt;
 import io.github.zvasva.maxregel.core.term.Fact;
+import io.github.zvasva.maxregel.core.term.FieldAccessor;
 import io.github.zvasva.maxregel.util.Collections;
 import io.github.zvasva.maxregel.util.Iters;
 
@@ -18,69 +22,229 @@ import static io.github.zvasva.maxregel.core.factset.Empty.EMPTY;
  * This {@link FactSet} is halfway there of being a fully general FactSet: it supports just a single section/part/label,
  * but otherwise satisfies all your needs. Take a look at {@link MultiPartFactSet} for a factset like a factset is meant
  * to be (but it'll use this class here and there).
+ * <p>
+ * Filtering does not copy facts: the result is a view on the same list of facts, with a bitmap of the selected
+ * positions. Filters on a view only test the selected facts, and the field indexes (positions per value) are shared
+ * by all views, so an indexed lookup on a view is a bitmap intersection. When few facts remain, they are copied after
+ * all, so a small result does not keep a large list alive.
+ * <p>
+ * For substring filters ({@link FieldContains}, {@link FieldMatches}), a trigram index per field is built on first
+ * use: the positions per sequence of three characters. Only the facts that have all trigrams of the searched
+ * literal(s) are tested.
+ * <p>
+ * Similarly, {@link ValidAt} filters use an {@link IntervalIndex} per pair of validity fields.
  *
  * @author Arvid Halma
  */
 public class SinglePartFactSet extends AbstractFactSet {
-    private final Collection<Fact> facts;
+    private final List<Fact> facts;
+    private final BitSet selection; // selected positions in facts, or null if all are selected
+    private final int size;
     private final String name;
     private final boolean distinct;
 
-    // Map from field name -> value -> factset
-    private final Map<String, Map<Object, FactSet>> fieldIndex;
+    // Map from field name -> value -> positions in facts
+    private final Map<String, Map<Object, BitSet>> fieldIndex;
 
+    // Map from field name -> trigrams -> positions in facts
+    private final Map<String, TrigramIndex> trigramIndex;
+
+    // Map from (from field, to field) -> interval tree
+    private final Map<List<String>, IntervalIndex> intervalIndex;
+
+    /**
+     * @param trigrams positions per trigram (three characters in a long) of the string values
+     * @param other positions of list values, which are not indexed
+     */
+    private record TrigramIndex(Map<Long, BitSet> trigrams, BitSet other) {
+    }
+
+    /**
+     * Get the facts per value of a field. Numbers are indexed by their double value.
+     * The index itself (positions per value) is cached, but every call creates a new fact set per value: a view, or
+     * a copy of the facts of a rare value. Use {@link #buildIndex(String)} to only prepare the index for filters.
+     * @param fieldName the field to index
+     * @return the facts (a factset) per field value
+     */
     public Map<Object, FactSet> getIndex(String fieldName)  {
+        return Collections.mapValues(getPositions(fieldName), this::view);
+    }
+
+    /**
+     * Build the index of a field (if it is not there yet), which is used by "field_eq" filters on the field.
+     * The index is shared by the views and renamed copies of this fact set.
+     * @param fieldName the field to index
+     */
+    public void buildIndex(String fieldName) {
+        getPositions(fieldName);
+    }
+
+    private Map<Object, BitSet> getPositions(String fieldName) {
         return fieldIndex.computeIfAbsent(fieldName, f -> {
-            Map<Object, List<Fact>> valueMap = new HashMap<>();
-            for (Fact fact : facts) {
-                Object value = fact.get(fieldName);
+            Map<Object, BitSet> valueMap = new HashMap<>();
+            final FieldAccessor accessor = FieldAccessor.of(fieldName);
+            for (int i = 0; i < facts.size(); i++) {
+                Object value = facts.get(i).get(accessor);
                 if(value == null) {
                     continue;
                 }
                 if(value instanceof Number n) {
                     value = n.doubleValue(); // int, long, double... all to double
                 }
-                if(!valueMap.containsKey(value)){
-                    valueMap.put(value, new ArrayList<>());
+                valueMap.computeIfAbsent(value, v -> new BitSet()).set(i);
+            }
+            return valueMap;
+        });
+    }
+
+    private TrigramIndex getTrigrams(String fieldName) {
+        return trigramIndex.computeIfAbsent(fieldName, f -> {
+            Map<Long, BitSet> trigrams = new HashMap<>();
+            BitSet other = new BitSet();
+            final FieldAccessor accessor = FieldAccessor.of(fieldName);
+            for (int i = 0; i < facts.size(); i++) {
+                Object value = facts.get(i).get(accessor);
+                if (value instanceof Collection<?>) {
+                    other.set(i);
+                } else if (value != null) {
+                    String s = value.toString();
+                    for (int j = 0; j + 3 <= s.length(); j++) {
+                        trigrams.computeIfAbsent(trigram(s, j), t -> new BitSet()).set(i);
+                    }
                 }
-                valueMap.get(value).add(fact);
             }
-            return Collections.mapValues(valueMap, facts -> new SinglePartFactSet(facts, name, distinct, factOperation()));
+            return new TrigramIndex(trigrams, other);
         });
     }
 
+    private static long trigram(String s, int i) {
+        return (long) s.charAt(i) << 32 | (long) s.charAt(i + 1) << 16 | s.charAt(i + 2);
+    }
+
+    /**
+     * The selected positions where the field may contain all literals, or null if no literal is long enough to
+     * narrow down the candidates.
+     */
+    private BitSet candidates(String fieldName, List<String> literals) {
+        if (literals.stream().allMatch(literal -> literal.length() < 3)) {
+            return null;
+        }
+        TrigramIndex index = getTrigrams(fieldName);
+        BitSet result = null;
+        for (String literal : literals) {
+            for (int j = 0; j + 3 <= literal.length(); j++) {
+                BitSet positions = index.trigrams().get(trigram(literal, j));
+                if (positions == null) {
+                    return masked(index.other());
+                }
+                if (result == null) {
+                    result = (BitSet) positions.clone();
+                } else {
+                    result.and(positions);
+                }
+            }
+        }
+        result.or(index.other());
+        return masked(result);
+    }
+
+    private BitSet masked(BitSet positions) {
+        BitSet result = (BitSet) positions.clone();
+        if (selection != null) {
+            result.and(selection);
+        }
+        return result;
+    }
+
+    private IntervalIndex getIntervals(String fromField, String toField) {
+        return intervalIndex.computeIfAbsent(List.of(fromField, toField), fields -> IntervalIndex.of(facts, fromField, toField));
+    }
+
     public SinglePartFactSet(Iterable<Fact> facts, String name, boolean distinct, UnaryOperation<Fact> factOperation) {
-        this(facts, name, distinct, factOperation, new ConcurrentHashMap<>());
+        this(toList(facts, distinct), null, name, distinct, factOperation, new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
     }
 
-    private SinglePartFactSet(Iterable<Fact> facts, String name, boolean distinct, UnaryOperation<Fact> factOperation, final Map<String, Map<Object, FactSet>> fieldIndex) {
+    private SinglePartFactSet(List<Fact> facts, BitSet selection, String name, boolean distinct, UnaryOperation<Fact> factOperation, final Map<String, Map<Object, BitSet>> fieldIndex, final Map<String, TrigramIndex> trigramIndex, final Map<List<String>, IntervalIndex> intervalIndex) {
         Objects.requireNonNull(facts);
         Objects.requireNonNull(name);
         Objects.requireNonNull(factOperation);
+        this.facts = facts;
+        this.selection = selection;
+        this.size = selection == null ? facts.size() : selection.cardinality();
         this.name = name;
         this.distinct = distinct;
         this.factOperation = factOperation;
         this.fieldIndex = fieldIndex;
+        this.trigramIndex = trigramIndex;
+        this.intervalIndex = intervalIndex;
+    }
 
+    private static List<Fact> toList(Iterable<Fact> facts, boolean distinct) {
+        Objects.requireNonNull(facts);
         if (distinct) {
-            if (facts instanceof Set<Fact> set){
-                // already a set
-               this.facts = set;
-            } else {
-                // convert to set, reuse
-                this.facts = new HashSet<>();
-                facts.forEach(this.facts::add);
+            // deduplicate, keeping the order
+            Collection<Fact> set = facts instanceof Set<Fact> s ? s : new LinkedHashSet<>();
+            if (set != facts) {
+                facts.forEach(set::add);
             }
-        } else {
-            if (facts instanceof List<Fact> list){
-                // already a list, reuse
-                this.facts = list;
-            } else {
-                // convert to list
-                this.facts = new ArrayList<>();
-                facts.forEach(this.facts::add);
+            return new ArrayList<>(set);
+        }
+        if (facts instanceof List<Fact> list){
+            // already a list, reuse
+            return list;
+        }
+        // convert to list
+        List<Fact> list = new ArrayList<>();
+        facts.forEach(list::add);
+        return list;
+    }
+
+    /**
+     * A factset with the selected facts of this one. Unless few facts are selected (and copied), it shares the indexes.
+     * @param positions positions in the (unfiltered) list of facts
+     */
+    SinglePartFactSet view(BitSet positions) {
+        if (selection != null) {
+            positions = (BitSet) positions.clone();
+            positions.and(selection);
+        }
+        int n = positions.cardinality();
+        if ((long) n * Long.SIZE < facts.size()) {
+            // a copy takes less memory than the bitmap
+            List<Fact> copy = new ArrayList<>(n);
+            for (int i = positions.nextSetBit(0); i >= 0; i = positions.nextSetBit(i + 1)) {
+                copy.add(facts.get(i));
             }
+            return new SinglePartFactSet(copy, null, name, distinct, factOperation(), new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
         }
+        return new SinglePartFactSet(facts, n == facts.size() ? null : positions, name, distinct, factOperation(), fieldIndex, trigramIndex, intervalIndex);
+    }
+
+    /**
+     * The selected facts, without the fact operation applied.
+     */
+    private Iterable<Fact> rows() {
+        if (selection == null) {
+            return facts;
+        }
+        return () -> new Iterator<>() {
+            private int i = selection.nextSetBit(0);
+
+            @Override
+            public boolean hasNext() {
+                return i >= 0;
+            }
+
+            @Override
+            public Fact next() {
+                if (i < 0) {
+                    throw new NoSuchElementException();
+                }
+                Fact fact = facts.get(i);
+                i = selection.nextSetBit(i + 1);
+                return fact;
+            }
+        };
     }
 
     public SinglePartFactSet(Iterable<Fact> facts, String name) {
@@ -93,12 +257,12 @@ public class SinglePartFactSet extends AbstractFactSet {
 
     @Override
     public Iterator<Fact> iterator() {
-        return new Iters.MappingIterator<>(facts.iterator(), factOperation().asJavaUnaryOperator());
+        return new Iters.MappingIterator<>(rows().iterator(), factOperation().asJavaUnaryOperator());
     }
 
     @Override
     public FactSet setFactOperation(UnaryOperation<Fact> operation) {
-        return new SinglePartFactSet(facts, name, distinct, operation, fieldIndex);
+        return new SinglePartFactSet(facts, selection, name, distinct, operation, fieldIndex, trigramIndex, intervalIndex);
     }
 
     @Override
@@ -116,7 +280,12 @@ public class SinglePartFactSet extends AbstractFactSet {
 
     @Override
     public long size() {
-        return facts.size();
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
     }
 
     @Override
@@ -126,9 +295,8 @@ public class SinglePartFactSet extends AbstractFactSet {
 
     @Override
     public FactSet setPart(String newName) {
-        // Note that this does not change the fieldIndex, so it will still return facts with the old name.
-        // Changes in the part name are mitigated when filtering. That is why this index exists in the first place.
-        return new SinglePartFactSet(facts, newName, distinct, factOperation, fieldIndex);
+        // The indexes only hold positions, so it can be shared regardless of the name.
+        return new SinglePartFactSet(facts, selection, newName, distinct, factOperation, fieldIndex, trigramIndex, intervalIndex);
     }
 
     @Override
@@ -138,14 +306,18 @@ public class SinglePartFactSet extends AbstractFactSet {
             if(y instanceof Number n) {
                 y = n.doubleValue(); // int, long, double... all to double
             }
-            FactSet filtered = getIndex(cmp.getField()).getOrDefault(y, EMPTY);
-            if(!filtered.isEmpty() && !filtered.has(name)) {
-                // the fieldIndex is shared and the name may have been changed among instances.
-                filtered = filtered.setPart(name);
-            }
-            return filtered;
+            BitSet positions = getPositions(cmp.getField()).get(y);
+            return positions == null ? EMPTY : view(positions);
+        }
+        if(predicate instanceof ValidAt validAt) {
+            return view(getIntervals(validAt.getFromField(), validAt.getToField()).validAt(validAt.getDate().toEpochDay()));
         }
-        return new SinglePartFactSet(facts.stream().filter(predicate.asJavaPredicate())::iterator, name, distinct, factOperation());
+        BitSet candidates = switch (predicate) {
+            case FieldContains contains -> candidates(contains.getField(), List.of(contains.getY()));
+            case FieldMatches matches -> candidates(matches.getField(), matches.getLiterals());
+            default -> null;
+        };
+        return view(FactBlock.select(facts, candidates == null ? selection : candidates, predicate));
     }
 
     @Override
@@ -156,7 +328,7 @@ public class SinglePartFactSet extends AbstractFactSet {
     @Override
     public FactSet group(Function<Fact, String> by) {
         Map<String, List<Fact>> groups = new LinkedHashMap<>();
-        for (Fact fact : facts) {
+        for (Fact fact : rows()) {
             String key = by.apply(fact);
             groups.computeIfAbsent(key, k -> new ArrayList<>());
             groups.get(key).add(fact);
@@ -0,0 +1,138 @@
+package io.github.zvasva.maxregel.core.factset;
+
+import io.github.zvasva.maxregel.core.process.UnaryOperation;
+import io.github.zvasva.maxregel.core.process.predicate.ValidAt;
+import io.github.zvasva.maxregel.core.term.Fact;
+import io.github.zvasva.maxregel.core.term.FieldAccessor;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
+
+/**
+ * A bitemporal store of facts: every fact version has a transaction time period (when it was known) and a
+ * valid time period (when it holds in reality). Both periods include their start and exclude their end,
+ * and a missing (null) start or end leaves the period open on that side.
+ * <p>
+ * {@link #asOf(Instant, LocalDate)} gives the facts as they were known at a transaction time, and valid at a date.
+ * The result is a normal {@link FactSet}, so it can be used as the input for rules and scripts. Per part, both
+ * periods have an {@link IntervalIndex}, and a snapshot is a view on all versions of the part: the intersection
+ * of two lookups of O(log n + k) steps. The versions of a part are a {@link SinglePartFactSet}, so the field
+ * indexes that one snapshot builds are reused by the other snapshots.
+ * <p>
+ * Transaction times can be {@link Instant}, {@link LocalDateTime} (in UTC), {@link LocalDate} (start of the day in
+ * UTC) or ISO strings for these. Valid times are dates, like for {@link ValidAt}. Versions with other values are
+ * not part of any snapshot.
+ *
+ * @author Arvid Halma
+ */
+public class VersionedFactSet {
+
+    private final Map<String, Versions> parts = new LinkedHashMap<>();
+
+    private record Versions(SinglePartFactSet facts, IntervalIndex transactionTime, IntervalIndex validTime) {
+    }
+
+    /**
+     * Index the fact versions, which have their periods as fields.
+     * @param facts all versions of all facts
+     * @param txFromField the field with the transaction time at which the version was recorded
+     * @param txToField the field with the transaction time at which the version was replaced (null if current)
+     * @param validFromField the field with the first date at which the version holds
+     * @param validToField the field with the date at which the version no longer holds
+     */
+    public VersionedFactSet(FactSet facts, String txFromField, String txToField, String validFromField, String validToField) {
+        requireNonNullArg(facts, "facts");
+        FieldAccessor txFrom = FieldAccessor.of(requireNonNullArg(txFromField, "txFromField"));
+        FieldAccessor txTo = FieldAccessor.of(requireNonNullArg(txToField, "txToField"));
+        FieldAccessor validFrom = FieldAccessor.of(requireNonNullArg(validFromField, "validFromField"));
+        FieldAccessor validTo = FieldAccessor.of(requireNonNullArg(validToField, "validToField"));
+        for (String part : facts.parts()) {
+            List<Fact> versions = new ArrayList<>();
+            facts.get(part).forEach(versions::add); // with the fact operation applied
+            int n = versions.size();
+            long[] txStarts = new long[n], txEnds = new long[n], validStarts = new long[n], validEnds = new long[n];
+            for (int i = 0; i < n; i++) {
+                Fact fact = versions.get(i);
+                Long txStart = time(fact.get(txFrom), Long.MIN_VALUE);
+                Long txEnd = time(fact.get(txTo), Long.MAX_VALUE);
+                Long validStart = day(fact.get(validFrom), Long.MIN_VALUE);
+                Long validEnd = day(fact.get(validTo), Long.MAX_VALUE);
+                if (txStart != null && txEnd != null && validStart != null && validEnd != null) {
+                    txStarts[i] = txStart;
+                    txEnds[i] = txEnd;
+                    validStarts[i] = validStart;
+                    validEnds[i] = validEnd;
+                } // else: an empty period, never part of a snapshot
+            }
+            parts.put(part, new Versions(new SinglePartFactSet(versions, part),
+                    new IntervalIndex(txStarts, txEnds), new IntervalIndex(validStarts, validEnds)));
+        }
+    }
+
+    public Set<String> parts() {
+        return parts.keySet();
+    }
+
+    /**
+     * The facts as they were known at a transaction time, that are valid at a date.
+     * @param txTime the transaction time
+     * @param validTime the valid time
+     * @return a snapshot, with the same parts as this store
+     */
+    public FactSet asOf(Instant txTime, LocalDate validTime) {
+        long tx = requireNonNullArg(txTime, "txTime").toEpochMilli();
+        long day = requireNonNullArg(validTime, "validTime").toEpochDay();
+        List<FactSet> snapshot = new ArrayList<>(parts.size());
+        for (Versions versions : parts.values()) {
+            BitSet positions = versions.transactionTime().validAt(tx);
+            positions.and(versions.validTime().validAt(day));
+            snapshot.add(versions.facts().view(positions));
+        }
+        return new MultiPartFactSet(snapshot, new UnaryOperation.Identity<>());
+    }
+
+    /**
+     * The facts as they are known now, that are valid at a date.
+     * @param validTime the valid time
+     * @return a snapshot, with the same parts as this store
+     */
+    public FactSet asOf(LocalDate validTime) {
+        return asOf(Instant.now(), validTime);
+    }
+
+    private static Long day(Object x, long open) {
+        return x == null ? Long.valueOf(open) : ValidAt.epochDay(x);
+    }
+
+    /**
+     * A transaction time in epoch milliseconds, or null if it is not a time.
+     */
+    private static Long time(Object x, long open) {
+        try {
+            return switch (x) {
+                case null -> open;
+                case Instant instant -> instant.toEpochMilli();
+                case java.util.Date date -> date.getTime(); // includes java.sql.Timestamp
+                case LocalDateTime dateTime -> dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+                case LocalDate date -> date.atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+                case CharSequence s when s.length() == 10 -> time(LocalDate.parse(s), open);
+                case CharSequence s when s.toString().endsWith("Z") -> time(Instant.parse(s), open);
+                case CharSequence s -> time(LocalDateTime.parse(s), open);
+                default -> null;
+            };
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -4,7 +4,12 @@ import io.github.zvasva.maxregel.core.factset.FactSet;
 import io.github.zvasva.maxregel.core.factset.FactSets;
 import io.github.zvasva.maxregel.core.process.rule.*;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static io.github.zvasva.maxregel.core.factset.Empty.EMPTY;
 
@@ -29,6 +34,11 @@ public class Inference {
      * @throws RuntimeException if the maximum number of iterations is reached without convergence.
      */
     public static FactSet infer2(FactSet givenFacts, Collection<Rule> rules, Tracer tracer, int maxIterations) {
+        // one evaluation for all iterations, so rules can reuse results of parts that did not change
+        return Evaluation.run(() -> iterate2(givenFacts, rules, tracer, maxIterations));
+    }
+
+    private static FactSet iterate2(FactSet givenFacts, Collection<Rule> rules, Tracer tracer, int maxIterations) {
         FactSet totalUpdate = EMPTY;
 
         FactSet totalFactSet = givenFacts;
@@ -57,6 +67,20 @@ public class Inference {
 
     }
 
+    /**
+     * Like {@link #infer2(FactSet, Collection, Tracer, int)}, optionally with rules that are rewritten by an
+     * {@link Optimizer} first.
+     *
+     * @param givenFacts the initial set of facts.
+     * @param rules a collection of rules to apply to the factset.
+     * @param maxIterations the maximum number of iterations to perform.
+     * @param optimize whether to optimize the rules
+     * @return a FactSet containing all inferred facts.
+     */
+    public static FactSet infer2(FactSet givenFacts, Collection<Rule> rules, Tracer tracer, int maxIterations, boolean optimize) {
+        return infer2(givenFacts, optimize ? optimize(givenFacts, rules) : rules, tracer, maxIterations);
+    }
+
     /**
      * Infers new facts by applying a set of rules iteratively until no more new facts can be inferred
      * or until the maximum number of iterations is reached.
@@ -68,6 +92,11 @@ public class Inference {
      * @throws RuntimeException if the maximum number of iterations is reached without convergence.
      */
     public static FactSet infer3(FactSet givenFacts, Collection<Rule> rules, Tracer tracer, int maxIterations) {
+        // one evaluation for all iterations, so rules can reuse results of parts that did not change
+        return Evaluation.run(() -> iterate3(givenFacts, rules, tracer, maxIterations));
+    }
+
+    private static FactSet iterate3(FactSet givenFacts, Collection<Rule> rules, Tracer tracer, int maxIterations) {
         FactSet newFacts = EMPTY;
 
         FactSet totalFactSet = givenFacts;
@@ -95,6 +124,42 @@ public class Inference {
 
     }
 
+    /**
+     * Like {@link #infer3(FactSet, Collection, Tracer, int)}, optionally with rules that are rewritten by an
+     * {@link Optimizer} first.
+     *
+     * @param givenFacts the initial set of facts.
+     * @param rules a collection of rules to apply to the factset.
+     * @param maxIterations the maximum number of iterations to perform.
+     * @param optimize whether to optimize the rules
+     * @return a FactSet containing all inferred facts.
+     */
+    public static FactSet infer3(FactSet givenFacts, Collection<Rule> rules, Tracer tracer, int maxIterations, boolean optimize) {
+        return infer3(givenFacts, optimize ? optimize(givenFacts, rules) : rules, tracer, maxIterations);
+    }
+
+    /**
+     * Optimize rules that are applied repeatedly. The schema of the given facts is used, except for the parts that
+     * are assigned by one of the rules, since they change between iterations.
+     */
+    private static List<Rule> optimize(FactSet givenFacts, Collection<Rule> rules) {
+        Set<String> assigned = new HashSet<>();
+        List<Rule> todo = new ArrayList<>(rules);
+        while (!todo.isEmpty()) {
+            Rule rule = todo.removeLast();
+            if (rule instanceof Assign assign) {
+                assigned.add(assign.variable());
+            }
+            todo.addAll(rule.children());
+        }
+        Map<String, Set<String>> schema = Optimizer.fields(givenFacts);
+        if (assigned.contains("*")) {
+            schema.clear();
+        }
+        schema.keySet().removeAll(assigned);
+        return new Optimizer(schema).optimize(new ArrayList<>(rules));
+    }
+
 
 
         /**
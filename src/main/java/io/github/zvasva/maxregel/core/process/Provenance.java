@@ -0,0 +1,127 @@
+package io.github.zvasva.maxregel.core.process;
+
+import io.github.zvasva.maxregel.core.factset.FactSet;
+import io.github.zvasva.maxregel.core.process.rule.RuleResult;
+import io.github.zvasva.maxregel.core.process.rule.Rules;
+import io.github.zvasva.maxregel.core.process.rule.Script;
+import io.github.zvasva.maxregel.core.term.Fact;
+import io.github.zvasva.maxregel.core.term.Terms;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
+
+/**
+ * On-demand provenance for a script.
+ * <p>
+ * Evaluations run without tracing, and only record a compact {@link Fingerprint}: the hash of the script and a hash
+ * per input part. When the derivation of a particular fact is needed, the same input is offered again to
+ * {@link #explain(FactSet, Fingerprint, String, Fact)}. After checking the input against the fingerprint, only the
+ * assignments that the fact's part depends on are re-evaluated, this time with (full) tracing.
+ * This way, bulk evaluations are as fast as untraced ones, while explanations stay available.
+ *
+ * @author Arvid Halma
+ */
+public class Provenance {
+
+    /**
+     * What identifies an evaluation.
+     *
+     * @param script the hash of the script
+     * @param parts  a content hash per input part
+     */
+    public record Fingerprint(int script, Map<String, Integer> parts) {
+    }
+
+    /**
+     * The result of an untraced evaluation, with the fingerprint needed to explain it later on.
+     *
+     * @param result      the result of the script
+     * @param fingerprint identifies the script and its input
+     */
+    public record Evaluation(RuleResult result, Fingerprint fingerprint) {
+    }
+
+    private final Script script;
+    private final Tracer tracer;
+
+    public Provenance(Script script) {
+        this(script, Tracer.FULL);
+    }
+
+    /**
+     * @param script the script to evaluate
+     * @param tracer the tracer that is used when explaining a fact
+     */
+    public Provenance(Script script, Tracer tracer) {
+        this.script = requireNonNullArg(script, "script");
+        this.tracer = requireNonNullArg(tracer, "tracer");
+    }
+
+    public Script getScript() {
+        return script;
+    }
+
+    /**
+     * Evaluate the script without tracing.
+     *
+     * @param facts the input
+     * @return the script result and the fingerprint of this evaluation
+     */
+    public Evaluation apply(FactSet facts) {
+        RuleResult result = script.apply(facts, Tracer.NONE);
+        return new Evaluation(result, fingerprint(facts));
+    }
+
+    /**
+     * Compute the fingerprint of evaluating the script on the given input.
+     * The part hashes only depend on the terms of the facts, not on their order or metadata.
+     *
+     * @param facts the input
+     * @return the fingerprint
+     */
+    public Fingerprint fingerprint(FactSet facts) {
+        Map<String, Integer> parts = new LinkedHashMap<>();
+        for (String part : facts.parts()) {
+            int hash = 0;
+            int size = 0;
+            for (Fact fact : facts.get(part)) {
+                hash += Terms.hashCode(fact.getTerm());
+                size++;
+            }
+            parts.put(part, 31 * hash + size);
+        }
+        return new Fingerprint(Rules.hashCode(script), parts);
+    }
+
+    /**
+     * Reconstruct how a fact was derived, by re-evaluating the assignments its part depends on with tracing
+     * (see {@link Script#slice(java.util.Collection)}).
+     *
+     * @param facts       the input of the original evaluation
+     * @param fingerprint the fingerprint of the original evaluation
+     * @param part        the part that contains the fact
+     * @param fact        the fact to explain
+     * @return the traced version of the fact, or null if the fact is not derived in the given part
+     * @throws MaxRegelException when the input or script do not match the fingerprint
+     */
+    public Fact explain(FactSet facts, Fingerprint fingerprint, String part, Fact fact) {
+        requireNonNullArg(facts, "facts");
+        requireNonNullArg(fingerprint, "fingerprint");
+        requireNonNullArg(part, "part");
+        requireNonNullArg(fact, "fact");
+        if (!fingerprint(facts).equals(fingerprint)) {
+            throw new MaxRegelException("The given facts or script do not match the fingerprint of the evaluation to explain.");
+        }
+
+        FactSet traced = script.slice(List.of(part)).apply(facts, tracer).output().get(part);
+        for (Fact candidate : traced) {
+            if (candidate.equals(fact)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+}
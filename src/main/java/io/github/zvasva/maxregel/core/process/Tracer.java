@@ -61,13 +61,12 @@ public interface Tracer {
     class Assignments implements Tracer {
         @Override
         public void apply(Rule rule, FactSet newFacts) {
-            boolean assignment = Rules.isAssignment(rule);
+            // Add simplified (non-nested) version of this rule, created once for all facts.
+            final BasicRule r = Rules.isAssignment(rule)
+                    ? new BasicRule(rule.op(), rule.info(), (List<Object>) rule.ast().args().stream().filter(a -> !(a instanceof AstNode)).toList())
+                    : null;
             newFacts.forEach(fact -> {
-                if(assignment) {
-                    //fact.getRules().add(rule);
-                    // Add simplified (non-nested) version of this rule.
-                    BasicRule r = new BasicRule(rule.op(), rule.info(), (List<Object>) rule.ast().args().stream().filter(a -> !(a instanceof AstNode)).toList());
-//                    fact.getRules().add(r);
+                if(r != null) {
                     fact.setRules(Collections.union(fact.getRules(), List.of(r)).stream().toList());
                 }
                 fact.setEpoch(fact.getEpoch() + 1);
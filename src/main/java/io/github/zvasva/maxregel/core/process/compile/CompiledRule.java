@@ -0,0 +1,73 @@
+package io.github.zvasva.maxregel.core.process.compile;
+
+import io.github.zvasva.maxregel.core.factset.FactSet;
+import io.github.zvasva.maxregel.core.process.AstNode;
+import io.github.zvasva.maxregel.core.process.Tracer;
+import io.github.zvasva.maxregel.core.process.rule.AbstractRule;
+import io.github.zvasva.maxregel.core.process.rule.Rule;
+import io.github.zvasva.maxregel.core.process.rule.RuleResult;
+
+import java.util.Map;
+
+import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
+
+/**
+ * A rule together with its execution plan, as created by {@link Compiler#compile(Rule)}.
+ * <p>
+ * It has the same op, info and AST as the source rule, so it is equal to it. Untraced evaluations use the plan.
+ * When a tracer is given, the source rule is interpreted instead, so that every rule is traced as usual.
+ *
+ * @author Arvid Halma
+ */
+public class CompiledRule extends AbstractRule {
+
+    private final Rule source;
+    private final Rule plan;
+
+    CompiledRule(Rule source, Rule plan) {
+        this.source = requireNonNullArg(source, "source");
+        this.plan = requireNonNullArg(plan, "plan");
+    }
+
+    /**
+     * @return the rule that was compiled
+     */
+    public Rule getSource() {
+        return source;
+    }
+
+    /**
+     * @return the rule that is executed
+     */
+    public Rule getPlan() {
+        return plan;
+    }
+
+    @Override
+    public String op() {
+        return source.op();
+    }
+
+    @Override
+    public Map<String, Object> info() {
+        return source.info();
+    }
+
+    @Override
+    public AstNode ast() {
+        return source.ast();
+    }
+
+    @Override
+    public RuleResult apply(FactSet facts, Tracer tracer) {
+        if (tracer instanceof Tracer.None) {
+            return plan.apply(facts, tracer);
+        }
+        return source.apply(facts, tracer);
+    }
+
+    @Override
+    public FactSet apply(FactSet facts) {
+        return plan.apply(facts);
+    }
+}
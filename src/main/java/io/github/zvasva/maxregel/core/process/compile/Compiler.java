@@ -0,0 +1,190 @@
+package io.github.zvasva.maxregel.core.process.compile;
+
+import io.github.zvasva.maxregel.core.factset.FactSet;
+import io.github.zvasva.maxregel.core.process.AstNode;
+import io.github.zvasva.maxregel.core.process.Tracer;
+import io.github.zvasva.maxregel.core.process.predicate.Predicate;
+import io.github.zvasva.maxregel.core.process.rule.AbstractRule;
+import io.github.zvasva.maxregel.core.process.rule.Filter;
+import io.github.zvasva.maxregel.core.process.rule.InvariantBinding;
+import io.github.zvasva.maxregel.core.process.rule.Pipeline;
+import io.github.zvasva.maxregel.core.process.rule.ReturnIf;
+import io.github.zvasva.maxregel.core.process.rule.Rule;
+import io.github.zvasva.maxregel.core.process.rule.RuleResult;
+import io.github.zvasva.maxregel.core.process.rule.Rules;
+import io.github.zvasva.maxregel.core.process.rule.Script;
+import io.github.zvasva.maxregel.core.process.rule.Then;
+import io.github.zvasva.maxregel.core.term.Fact;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
+
+/**
+ * Compiles a rule tree (e.g. a {@link Script}, or the result of {@link Rules#parse(AstNode)}) into an execution plan.
+ * The plan gives the same results as interpreting the rules, but does the work that only depends on the rules once,
+ * at compile time, instead of on every call:
+ * <ul>
+ *     <li>scripts and chains of {@link Then} rules become a {@link Pipeline} of compiled steps;</li>
+ *     <li>nested {@link Filter}s become a single pass with one combined predicate, and predicates that do not need
+ *     binding (see {@link Predicate#needsBinding()}) are combined only once;</li>
+ *     <li>other rules are rebuilt with compiled children (see {@link Rule#withChildren(List)}), and rules without
+ *     (known) children are interpreted as is.</li>
+ * </ul>
+ *
+ * @author Arvid Halma
+ */
+public final class Compiler {
+
+    private Compiler() {
+    }
+
+    /**
+     * Compile a rule.
+     * @param rule the rule to compile
+     * @return a rule that is equal to the given one, but executes the compiled plan
+     */
+    public static CompiledRule compile(Rule rule) {
+        requireNonNullArg(rule, "rule");
+        if (rule instanceof CompiledRule compiled) {
+            return compiled;
+        }
+        return new CompiledRule(rule, plan(rule));
+    }
+
+    static Rule plan(Rule rule) {
+        return switch (rule) {
+            case CompiledRule compiled -> compiled.getPlan();
+            case Script script -> sequence(script);
+            case Then then -> sequence(then);
+            case Filter filter -> filter(filter);
+            default -> rebuild(rule);
+        };
+    }
+
+    /**
+     * Rebuild a rule with compiled children, or keep it if nothing changes.
+     */
+    private static Rule rebuild(Rule rule) {
+        List<Rule> children = rule.children();
+        if (children.isEmpty()) {
+            return rule;
+        }
+        List<Rule> compiled = new ArrayList<>(children.size());
+        boolean changed = false;
+        for (Rule child : children) {
+            Rule plan = plan(child);
+            changed |= plan != child;
+            compiled.add(plan);
+        }
+        return changed ? rule.withChildren(compiled) : rule;
+    }
+
+    /**
+     * Flatten a script or a right associative chain of {@link Then} rules into a {@link Pipeline} of compiled steps,
+     * see {@link Pipeline#of(Rule)}.
+     */
+    private static Rule sequence(Rule source) {
+        List<Rule> steps = Pipeline.of(source).getSteps();
+        if (steps.isEmpty()) {
+            return Rule.identity();
+        }
+        if (steps.size() == 1) {
+            return plan(steps.getFirst());
+        }
+        List<Rule> compiled = new ArrayList<>(steps.size());
+        for (Rule step : steps) {
+            // keep return_if steps recognizable for the pipeline
+            compiled.add(step instanceof ReturnIf returnIf ? rebuild(returnIf) : plan(step));
+        }
+        return new Planned(source, new Pipeline(compiled));
+    }
+
+    /**
+     * Fuse nested filters: filter(filter(select, p), q) tests p and q in a single pass over select.
+     * Both predicates are bound on the same input, just like when they are interpreted.
+     */
+    private static Rule filter(Filter filter) {
+        List<Predicate<Fact, FactSet>> predicates = new ArrayList<>();
+        Rule select = filter;
+        while (select instanceof Filter f) {
+            predicates.addFirst(f.getPredicate());
+            select = f.getSelect();
+        }
+        // bound as a whole, so the conditions of all filters are tested in one adaptive order (see Junction)
+        Predicate<Fact, FactSet> predicate = predicates.stream().reduce(Predicate::and).orElseThrow();
+        return new FusedFilter(filter, plan(select), predicate);
+    }
+
+    /**
+     * A part of the plan, which is equal to the rule it was compiled from.
+     */
+    private abstract static class PlanRule extends AbstractRule {
+        private final Rule source;
+
+        PlanRule(Rule source) {
+            this.source = source;
+        }
+
+        @Override
+        public String op() {
+            return source.op();
+        }
+
+        @Override
+        public Map<String, Object> info() {
+            return source.info();
+        }
+
+        @Override
+        public AstNode ast() {
+            return source.ast();
+        }
+    }
+
+    /**
+     * A plan that is applied in place of its source.
+     */
+    private static final class Planned extends PlanRule {
+        private final Rule plan;
+
+        Planned(Rule source, Rule plan) {
+            super(source);
+            this.plan = plan;
+        }
+
+        @Override
+        public RuleResult apply(FactSet facts, Tracer tracer) {
+            return plan.apply(facts, tracer);
+        }
+
+        @Override
+        public FactSet apply(FactSet facts) {
+            return plan.apply(facts);
+        }
+    }
+
+    /**
+     * One or more fused filters.
+     */
+    private static final class FusedFilter extends PlanRule {
+        private final Rule select;
+        private final Predicate<Fact, FactSet> bound;
+        private final InvariantBinding<Fact> binding;
+
+        FusedFilter(Rule source, Rule select, Predicate<Fact, FactSet> predicate) {
+            super(source);
+            this.select = select;
+            this.bound = predicate.needsBinding() ? null : predicate.bind(null);
+            this.binding = bound != null ? null : new InvariantBinding<>(predicate);
+        }
+
+        @Override
+        public FactSet apply(FactSet facts) {
+            Predicate<Fact, FactSet> predicate = bound != null ? bound : binding.bind(facts);
+            return select.apply(facts).filter(predicate);
+        }
+    }
+}
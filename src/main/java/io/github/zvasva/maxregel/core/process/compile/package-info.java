@@ -0,0 +1,5 @@
+/**
+ * Turning rule trees into execution plans, that avoid interpretation overhead.
+ * @author Arvid Halma
+ */
+package io.github.zvasva.maxregel.core.process.compile;
\ No newline at end of file
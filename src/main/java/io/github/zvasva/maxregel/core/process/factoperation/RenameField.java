@@ -5,12 +5,9 @@ import io.github.zvasva.maxregel.core.process.AstNode;
 import io.github.zvasva.maxregel.core.process.UnaryOperation;
 import io.github.zvasva.maxregel.core.process.rule.AbstractRule;
 import io.github.zvasva.maxregel.core.term.Fact;
-import io.github.zvasva.maxregel.core.term.MapTerm;
-import io.github.zvasva.maxregel.core.term.Terms;
+import io.github.zvasva.maxregel.core.term.RenamedTerm;
 import io.github.zvasva.maxregel.core.term.Term;
 
-import java.util.Map;
-
 /**
  * Given a date field within a {@link Term}, add an age field.
  */
@@ -29,14 +26,7 @@ public class RenameField extends AbstractRule {
     }
 
     public UnaryOperation<Fact> factOperation() {
-        return UnaryOperation.of( arg -> {
-            Map<String, Object> map = Terms.asMap(arg.getTerm());
-
-            map.put(newName, map.get(oldName));
-            map.remove(oldName);
-
-            return new Fact(new MapTerm(map), arg.getInfo());
-        });
+        return UnaryOperation.of(arg -> new Fact(new RenamedTerm(arg.getTerm(), oldName, newName), arg.getInfo()));
     }
 
     @Override
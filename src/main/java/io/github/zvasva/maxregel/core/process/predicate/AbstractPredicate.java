@@ -12,9 +12,19 @@ import java.util.Objects;
 public abstract class AbstractPredicate<T, B> implements Predicate<T, B>{
 
 
+    /**
+     * Predicates without parameters are bound already.
+     * @param parameterData ignored
+     * @return this predicate
+     */
     @Override
     public Predicate<T, B> bind(B parameterData) {
-        throw new UnsupportedOperationException("This predicate cannot be bound.");
+        return this;
+    }
+
+    @Override
+    public boolean needsBinding() {
+        return false;
     }
 
     @Override
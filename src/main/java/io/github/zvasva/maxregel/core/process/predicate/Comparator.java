@@ -1,15 +1,21 @@
 package io.github.zvasva.maxregel.core.process.predicate;
 
+import io.github.zvasva.maxregel.core.factset.FactBlock;
 import io.github.zvasva.maxregel.core.factset.FactSet;
 import io.github.zvasva.maxregel.core.factset.FactSets;
 import io.github.zvasva.maxregel.core.process.AstNode;
 import io.github.zvasva.maxregel.core.process.MaxRegelException;
 import io.github.zvasva.maxregel.core.process.rule.Rule;
 import io.github.zvasva.maxregel.core.term.Fact;
+import io.github.zvasva.maxregel.core.term.FieldAccessor;
 import io.github.zvasva.maxregel.core.term.Term;
 import io.github.zvasva.maxregel.core.term.Terms;
 import io.github.zvasva.maxregel.util.NumberComparator;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 
@@ -18,6 +24,10 @@ import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNo
 /**
  * A comparison function, which imposes a total ordering on some collection of objects.
  * It takes special care of comparing Numbers (e.g. Long &gt; Double).
+ * <p>
+ * When bound, a comparator is specialized for the type of the value it compares to: integral numbers, decimal
+ * numbers, strings, dates or booleans. These versions compare field values of the same type directly (integers
+ * exactly), and only fall back to the generic {@link #apply(Object, Object)} for values of another type.
  * @author Arvid Halma
  */
 public class Comparator extends AbstractPredicate<Fact, FactSet> {
@@ -27,6 +37,9 @@ public class Comparator extends AbstractPredicate<Fact, FactSet> {
 
     private final int signForTrue;
     private final boolean includeEquals;
+    private final FieldAccessor accessor;
+    private final boolean ifLess, ifEqual, ifGreater;
+    private volatile Comparator specialized;
 
     protected Comparator(String op, int signForTrue, boolean includeEquals) {
         this.op = requireNonNullArg(op, "op");
@@ -34,6 +47,10 @@ public class Comparator extends AbstractPredicate<Fact, FactSet> {
         this.y = null;
         this.signForTrue = signForTrue;
         this.includeEquals = includeEquals;
+        this.accessor = null;
+        this.ifLess = signForTrue == 0 ? !includeEquals : signForTrue < 0;
+        this.ifEqual = includeEquals;
+        this.ifGreater = signForTrue == 0 ? !includeEquals : signForTrue > 0;
     }
 
     public Comparator(String op, String field, Object y, int signForTrue, boolean includeEquals) {
@@ -42,6 +59,10 @@ public class Comparator extends AbstractPredicate<Fact, FactSet> {
         this.y = requireNonNullArg(y, "y");
         this.signForTrue = signForTrue;
         this.includeEquals = includeEquals;
+        this.accessor = FieldAccessor.of(field);
+        this.ifLess = signForTrue == 0 ? !includeEquals : signForTrue < 0;
+        this.ifEqual = includeEquals;
+        this.ifGreater = signForTrue == 0 ? !includeEquals : signForTrue > 0;
     }
 
     public String getField() {
@@ -61,6 +82,11 @@ public class Comparator extends AbstractPredicate<Fact, FactSet> {
         return new AstNode(op,  Map.of(), List.of(field, y));
     }
 
+    @Override
+    public boolean needsBinding() {
+        return field == null || y instanceof Rule;
+    }
+
     @Override
     public Comparator bind(FactSet parameterData) {
         if(field == null || y == null) {
@@ -68,19 +94,76 @@ public class Comparator extends AbstractPredicate<Fact, FactSet> {
             Term term = FactSets.firstTerm(parameterData);
             String fieldConcrete = Terms.firstKey(term);
             Object yConcrete = Terms.first(term);
-            return new Comparator(op, fieldConcrete, yConcrete, signForTrue, includeEquals);
+            return new Comparator(op, fieldConcrete, yConcrete, signForTrue, includeEquals).specialize();
         }
         if(y instanceof Rule r){
             // Use the rule to get a value to compare to
             Object yConcrete = FactSets.value(r.apply(parameterData));
-            return new Comparator(op, field, yConcrete, signForTrue, includeEquals);
+            return new Comparator(op, field, yConcrete, signForTrue, includeEquals).specialize();
+        }
+        return specialize();
+    }
+
+    /**
+     * Get a version of this (bound) comparator that is specialized for the type of y.
+     * @return an equal comparator, created once
+     */
+    protected Comparator specialize() {
+        Comparator c = specialized;
+        if (c == null) {
+            c = switch (y) {
+                case Long l -> new LongComparator(this, l);
+                case Integer i -> new LongComparator(this, i);
+                case Short i -> new LongComparator(this, i);
+                case Byte i -> new LongComparator(this, i);
+                case Double d -> new DoubleComparator(this, d);
+                case Float f -> new DoubleComparator(this, f);
+                case String str -> new StringComparator(this, str);
+                case LocalDate date -> new DateComparator(this, date);
+                case Boolean b -> new BooleanComparator(this, b);
+                case null, default -> this;
+            };
+            specialized = c;
+        }
+        return c;
+    }
+
+    /**
+     * Whether the outcome of a comparison satisfies this comparator.
+     * @param sign -1, 0 or 1 for x &lt; y, x = y or x &gt; y.
+     */
+    private boolean holds(int sign) {
+        return sign < 0 ? ifLess : sign == 0 ? ifEqual : ifGreater;
+    }
+
+    /**
+     * Tests the values of the field in the block with {@link #apply(Object, Object)}.
+     */
+    @Override
+    public void testBatch(FactBlock block, BitSet out) {
+        Object[] xs = block.values(field);
+        long[] words = block.words();
+        for (int i = 0; i < xs.length; i++) {
+            words[i >>> 6] |= (apply(xs[i], y) ? 1L : 0L) << i;
+        }
+        FactBlock.store(words, out);
+    }
+
+    /**
+     * Tests the facts of the block one at a time, for columns that do not have the expected type.
+     */
+    void testEach(FactBlock block, BitSet out) {
+        out.clear();
+        for (int i = 0; i < block.size(); i++) {
+            if (test(block.fact(i))) {
+                out.set(i);
+            }
         }
-        return this;
     }
 
     @Override
     public boolean test(Fact fact) {
-        Object x = fact.get(field);
+        Object x = fact.get(accessor);
         return apply(x, y);
     }
 
@@ -106,28 +189,207 @@ public class Comparator extends AbstractPredicate<Fact, FactSet> {
         } else {
             if (x instanceof Number xn) {
                 int sign = NumberComparator.cmp(xn, y);
-                if (signForTrue == 0 && !includeEquals) {
-                    return sign != 0; // not-equals case
-                }
-                return signForTrue == sign || (includeEquals && sign == 0);
+                return holds(sign);
             }
             try {
                 if(signForTrue == 0 && includeEquals) {
                     // just equals, faster for strings
                     return comp.equals(y);
                 }
-                int sign = comp.compareTo(y);
-
-                if (signForTrue == 0 && !includeEquals) {
-                    return sign != 0; // not equals case
-                }
-                return signForTrue == sign || (includeEquals && sign == 0);
+                // compareTo only guarantees the sign, e.g. "c".compareTo("a") == 2
+                return holds(Integer.signum(comp.compareTo(y)));
             } catch (Exception e) {
                 return false;
             }
         }
     }
 
+    /**
+     * Compares to an integral number. Integral field values are compared exactly, as longs.
+     */
+    private static final class LongComparator extends Comparator {
+        private final FieldAccessor accessor;
+        private final long y;
+
+        LongComparator(Comparator source, long y) {
+            super(source.op, source.field, source.y, source.signForTrue, source.includeEquals);
+            this.accessor = source.accessor;
+            this.y = y;
+        }
+
+        @Override
+        public boolean test(Fact fact) {
+            Object x = fact.get(accessor);
+            if (x instanceof Long || x instanceof Integer || x instanceof Short || x instanceof Byte) {
+                return super.holds(Long.compare(((Number) x).longValue(), y));
+            }
+            if (x instanceof Double d) {
+                return super.holds(Double.compare(d, y));
+            }
+            return apply(x, getY());
+        }
+
+        @Override
+        public void testBatch(FactBlock block, BitSet out) {
+            long[] xs = block.longs(getField());
+            if (xs == null) {
+                testEach(block, out);
+                return;
+            }
+            long[] words = block.words();
+            for (int i = 0; i < xs.length; i++) {
+                words[i >>> 6] |= (super.holds(Long.compare(xs[i], y)) ? 1L : 0L) << i;
+            }
+            FactBlock.store(words, out);
+        }
+
+        @Override
+        protected Comparator specialize() {
+            return this;
+        }
+    }
+
+    /**
+     * Compares to a decimal number, like {@link NumberComparator}.
+     */
+    private static final class DoubleComparator extends Comparator {
+        private final FieldAccessor accessor;
+        private final double y;
+
+        DoubleComparator(Comparator source, double y) {
+            super(source.op, source.field, source.y, source.signForTrue, source.includeEquals);
+            this.accessor = source.accessor;
+            this.y = y;
+        }
+
+        @Override
+        public boolean test(Fact fact) {
+            Object x = fact.get(accessor);
+            if (x instanceof Number n && !(x instanceof BigDecimal) && !(x instanceof BigInteger)) {
+                return super.holds(Double.compare(n.doubleValue(), y));
+            }
+            return apply(x, getY());
+        }
+
+        @Override
+        public void testBatch(FactBlock block, BitSet out) {
+            double[] xs = block.doubles(getField());
+            if (xs == null) {
+                testEach(block, out);
+                return;
+            }
+            long[] words = block.words();
+            for (int i = 0; i < xs.length; i++) {
+                words[i >>> 6] |= (super.holds(Double.compare(xs[i], y)) ? 1L : 0L) << i;
+            }
+            FactBlock.store(words, out);
+        }
+
+        @Override
+        protected Comparator specialize() {
+            return this;
+        }
+    }
+
+    /**
+     * Compares to a string.
+     */
+    private static final class StringComparator extends Comparator {
+        private final FieldAccessor accessor;
+        private final String y;
+        private final boolean equality;
+
+        StringComparator(Comparator source, String y) {
+            super(source.op, source.field, source.y, source.signForTrue, source.includeEquals);
+            this.accessor = source.accessor;
+            this.y = y;
+            this.equality = source.signForTrue == 0;
+        }
+
+        @Override
+        public boolean test(Fact fact) {
+            return matches(fact.get(accessor));
+        }
+
+        private boolean matches(Object x) {
+            if (x instanceof String str) {
+                return super.holds(equality ? (str.equals(y) ? 0 : 1) : Integer.signum(str.compareTo(y)));
+            }
+            return apply(x, getY());
+        }
+
+        @Override
+        public void testBatch(FactBlock block, BitSet out) {
+            Object[] xs = block.values(getField());
+            long[] words = block.words();
+            for (int i = 0; i < xs.length; i++) {
+                words[i >>> 6] |= (matches(xs[i]) ? 1L : 0L) << i;
+            }
+            FactBlock.store(words, out);
+        }
+
+        @Override
+        protected Comparator specialize() {
+            return this;
+        }
+    }
+
+    /**
+     * Compares to a date.
+     */
+    private static final class DateComparator extends Comparator {
+        private final FieldAccessor accessor;
+        private final LocalDate y;
+
+        DateComparator(Comparator source, LocalDate y) {
+            super(source.op, source.field, source.y, source.signForTrue, source.includeEquals);
+            this.accessor = source.accessor;
+            this.y = y;
+        }
+
+        @Override
+        public boolean test(Fact fact) {
+            Object x = fact.get(accessor);
+            if (x instanceof LocalDate date) {
+                return super.holds(Integer.signum(date.compareTo(y)));
+            }
+            return apply(x, getY());
+        }
+
+        @Override
+        protected Comparator specialize() {
+            return this;
+        }
+    }
+
+    /**
+     * Compares to a boolean.
+     */
+    private static final class BooleanComparator extends Comparator {
+        private final FieldAccessor accessor;
+        private final boolean y;
+
+        BooleanComparator(Comparator source, boolean y) {
+            super(source.op, source.field, source.y, source.signForTrue, source.includeEquals);
+            this.accessor = source.accessor;
+            this.y = y;
+        }
+
+        @Override
+        public boolean test(Fact fact) {
+            Object x = fact.get(accessor);
+            if (x instanceof Boolean b) {
+                return super.holds(Boolean.compare(b, y));
+            }
+            return apply(x, getY());
+        }
+
+        @Override
+        protected Comparator specialize() {
+            return this;
+        }
+    }
+
     /**
      * Field equals. The FieldEq class is a Predicate implementation that evaluates whether a specified field of
      * a Fact object is equal to a given value.
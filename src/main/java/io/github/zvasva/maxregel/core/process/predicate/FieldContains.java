@@ -27,6 +27,14 @@ public class FieldContains extends AbstractPredicate<Fact, FactSet> {
         this.y = requireNonNullArg(y, "y");
     }
 
+    public String getField() {
+        return field;
+    }
+
+    public String getY() {
+        return y;
+    }
+
     @Override
     public AstNode ast() {
         return new AstNode("field_contains", Map.of(), List.of(field, y));
@@ -1,10 +1,12 @@
 package io.github.zvasva.maxregel.core.process.predicate;
 
+import io.github.zvasva.maxregel.core.factset.FactBlock;
 import io.github.zvasva.maxregel.core.factset.FactSet;
 import io.github.zvasva.maxregel.core.process.AstNode;
 import io.github.zvasva.maxregel.core.term.Fact;
 import io.github.zvasva.maxregel.util.Coerce;
 
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -34,4 +36,14 @@ public class FieldEmpty extends AbstractPredicate<Fact, FactSet> {
     public boolean test(Fact fact) {
         return Coerce.asBoolean(fact.get(field));
     }
+
+    @Override
+    public void testBatch(FactBlock block, BitSet out) {
+        Object[] xs = block.values(field);
+        long[] words = block.words();
+        for (int i = 0; i < xs.length; i++) {
+            words[i >>> 6] |= (Coerce.asBoolean(xs[i]) ? 1L : 0L) << i;
+        }
+        FactBlock.store(words, out);
+    }
 }
@@ -1,13 +1,17 @@
 package io.github.zvasva.maxregel.core.process.predicate;
 
+import io.github.zvasva.maxregel.core.factset.FactBlock;
 import io.github.zvasva.maxregel.core.factset.FactSet;
 import io.github.zvasva.maxregel.core.process.AstNode;
 import io.github.zvasva.maxregel.core.term.Fact;
 
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
 
@@ -20,6 +24,7 @@ import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNo
 public class FieldIn extends AbstractPredicate<Fact, FactSet> {
     private final String field;
     private final Object ys;
+    private volatile Set<?> set; // the ys as a hash set, created on first use
 
     public FieldIn(String field, Collection<?> ys) {
         this.field = requireNonNullArg(field, "field");
@@ -49,4 +54,29 @@ public class FieldIn extends AbstractPredicate<Fact, FactSet> {
         }
 
     }
+
+    /**
+     * Looks up the values of a block in a hash set of ys, instead of comparing them to all ys.
+     */
+    @Override
+    public void testBatch(FactBlock block, BitSet out) {
+        Object[] xs = block.values(field);
+        long[] words = block.words();
+        if (ys instanceof Collection<?> collection) {
+            Set<?> s = set;
+            if (s == null) {
+                s = new HashSet<>(collection);
+                set = s;
+            }
+            for (int i = 0; i < xs.length; i++) {
+                words[i >>> 6] |= (xs[i] != null && s.contains(xs[i]) ? 1L : 0L) << i;
+            }
+        } else {
+            String str = ys.toString();
+            for (int i = 0; i < xs.length; i++) {
+                words[i >>> 6] |= (xs[i] != null && str.contains(xs[i].toString()) ? 1L : 0L) << i;
+            }
+        }
+        FactBlock.store(words, out);
+    }
 }
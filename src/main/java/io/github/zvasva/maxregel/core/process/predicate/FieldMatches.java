@@ -0,0 +1,189 @@
+package io.github.zvasva.maxregel.core.process.predicate;
+
+import io.github.zvasva.maxregel.core.factset.FactSet;
+import io.github.zvasva.maxregel.core.process.AstNode;
+import io.github.zvasva.maxregel.core.process.MaxRegelException;
+import io.github.zvasva.maxregel.core.term.Fact;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
+
+/**
+ * FieldMatches checks whether a specified field of a Fact object contains a match of a regular expression.
+ * If the field is a list, some element should contain a match.
+ * <p>
+ * Compiled patterns are cached, so parsing the same rules again does not compile them again.
+ * The literal fragments that every match must contain ({@link #getLiterals()}) let a fact set narrow down the
+ * candidates with an index, before the pattern itself is tested.
+ *
+ * @author Arvid Halma
+ */
+public class FieldMatches extends AbstractPredicate<Fact, FactSet> {
+    private static final int MAX_CACHED_PATTERNS = 1024;
+    private static final Map<String, Pattern> PATTERNS = new ConcurrentHashMap<>();
+
+    private final String field;
+    private final String regex;
+    private final Pattern pattern;
+    private volatile List<String> literals;
+
+    public FieldMatches(String field, String regex) {
+        this.field = requireNonNullArg(field, "field");
+        this.regex = requireNonNullArg(regex, "regex");
+        this.pattern = compile(regex);
+    }
+
+    private static Pattern compile(String regex) {
+        Pattern pattern = PATTERNS.get(regex);
+        if (pattern == null) {
+            try {
+                pattern = Pattern.compile(regex);
+            } catch (PatternSyntaxException e) {
+                throw new MaxRegelException("Invalid regular expression: " + regex, e);
+            }
+            if (PATTERNS.size() >= MAX_CACHED_PATTERNS) {
+                PATTERNS.clear();
+            }
+            PATTERNS.put(regex, pattern);
+        }
+        return pattern;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public String getRegex() {
+        return regex;
+    }
+
+    @Override
+    public AstNode ast() {
+        return new AstNode("field_matches", Map.of(), List.of(field, regex));
+    }
+
+    @Override
+    public boolean test(Fact fact) {
+        Object x = fact.get(field);
+        if (x == null) {
+            return false;
+        } else if (x instanceof Collection<?> collection) {
+            return collection.stream().anyMatch(y -> y != null && pattern.matcher(y.toString()).find());
+        } else {
+            return pattern.matcher(x.toString()).find();
+        }
+    }
+
+    /**
+     * The literal strings (of at least 3 characters) that occur in every match of the pattern.
+     * This is a conservative analysis: alternatives, groups, character classes, flags and escapes of more than one
+     * character (e.g. code points and properties) are skipped,
+     * so the result may be empty even if the pattern does have literals.
+     * @return the literal fragments
+     */
+    public List<String> getLiterals() {
+        List<String> l = literals;
+        if (l == null) {
+            l = List.copyOf(literals(regex));
+            literals = l;
+        }
+        return l;
+    }
+
+    static List<String> literals(String regex) {
+        List<String> result = new ArrayList<>();
+        if (regex.contains("(?") || regex.contains("\\Q")) {
+            return result; // flags or quoting, e.g. case insensitive matching
+        }
+        StringBuilder run = new StringBuilder();
+        int i = 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            switch (c) {
+                case '\\' -> {
+                    char next = i + 1 < regex.length() ? regex.charAt(i + 1) : '\\';
+                    if (Character.isDigit(next) || "uxcpPNk".indexOf(next) >= 0) {
+                        return List.of(); // an escape of more than one character: a code point, property, control character or back reference
+                    }
+                    if (i + 1 < regex.length() && !Character.isLetterOrDigit(next)) {
+                        run.append(regex.charAt(i + 1)); // escaped punctuation
+                    } else {
+                        flush(run, result); // a class like \d, a boundary or a back reference
+                    }
+                    i += 2;
+                }
+                case '[', '(' -> {
+                    flush(run, result);
+                    i = skip(regex, i);
+                }
+                case '|' -> {
+                    return List.of(); // alternatives at the top level
+                }
+                case '?', '*', '{' -> {
+                    // the previous character is optional
+                    if (!run.isEmpty()) {
+                        run.setLength(run.length() - 1);
+                    }
+                    flush(run, result);
+                    i = c == '{' ? Math.max(regex.indexOf('}', i), i) + 1 : i + 1;
+                }
+                case '+', '.', '^', '$' -> {
+                    flush(run, result);
+                    i++;
+                }
+                default -> {
+                    run.append(c);
+                    i++;
+                }
+            }
+        }
+        flush(run, result);
+        return result;
+    }
+
+    private static void flush(StringBuilder run, List<String> result) {
+        if (run.length() >= 3) {
+            result.add(run.toString());
+        }
+        run.setLength(0);
+    }
+
+    /**
+     * Skip a group or character class (with nested ones).
+     * @return the index after the closing bracket
+     */
+    private static int skip(String regex, int start) {
+        int depth = 0;
+        boolean inClass = false;
+        for (int i = start; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (inClass) {
+                if (c == ']') {
+                    inClass = false;
+                    if (depth == 0) {
+                        return i + 1;
+                    }
+                }
+            } else if (c == '[') {
+                inClass = true;
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == ']') {
+                    i++; // a leading ] is part of the class
+                }
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i + 1;
+            }
+        }
+        return regex.length();
+    }
+}
@@ -0,0 +1,202 @@
+package io.github.zvasva.maxregel.core.process.predicate;
+
+import io.github.zvasva.maxregel.core.factset.FactBlock;
+import io.github.zvasva.maxregel.core.process.AstNode;
+import io.github.zvasva.maxregel.core.process.rule.CostModel;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
+
+/**
+ * A bound {@link And} or {@link Or} of any number of operands, that tests them in the order that is expected to
+ * decide fastest, instead of the order they were written in.
+ * <p>
+ * Testing can stop at the first operand that is false (for "and") or true (for "or"). The best order tests operands
+ * with the lowest cost per chance of stopping first. The costs are estimated by {@link CostModel#cost(Predicate)},
+ * the chances start with {@link CostModel#selectivity(Predicate)} and are updated with the results of the tests:
+ * every {@link #RERANK_INTERVAL} tests, the operands are ranked again and the counters are halved, so the order
+ * follows the data. Since predicates have no side effects, the order does not change the outcome.
+ * <p>
+ * The counters are not synchronized: concurrent tests give the same results, but may lose some counts.
+ * The AST is the one of the combined predicates, so a junction equals the predicate it was created from.
+ *
+ * @param <T> The type of objects that this predicate tests.
+ * @param <B> The type of the predicate's parameter data.
+ * @author Arvid Halma
+ */
+public class Junction<T, B> extends AbstractPredicate<T, B> {
+
+    /** The number of tests after which the operands are ranked again. */
+    public static final int RERANK_INTERVAL = 1024;
+
+    /** The weight (in number of tests) of the estimated chance of stopping, before tests are counted. */
+    static final double PRIOR_WEIGHT = 16;
+
+    private final AstNode ast;
+    private final boolean conjunction;
+    private final Predicate<T, B>[] operands;
+    private final double[] costs;
+    private final double[] priors;
+    private final double[] tests;
+    private final double[] stops;
+    private volatile int[] order;
+    private int count = 0;
+
+    @SuppressWarnings("unchecked")
+    private Junction(AstNode ast, boolean conjunction, List<Predicate<T, B>> operands) {
+        this.ast = ast;
+        this.conjunction = conjunction;
+        this.operands = operands.toArray(Predicate[]::new);
+        int n = this.operands.length;
+        this.costs = new double[n];
+        this.priors = new double[n];
+        for (int i = 0; i < n; i++) {
+            costs[i] = CostModel.cost(this.operands[i]);
+            double selectivity = CostModel.selectivity(this.operands[i]);
+            priors[i] = conjunction ? 1 - selectivity : selectivity;
+        }
+        this.tests = new double[n];
+        this.stops = new double[n];
+        this.order = rank();
+    }
+
+    /**
+     * Create a junction of a bound {@link And}, with all directly nested "and" operands as separate operands.
+     * @param and the conjunction
+     * @return a new junction
+     */
+    public static <T, B> Junction<T, B> of(And<T, B> and) {
+        requireNonNullArg(and, "and");
+        List<Predicate<T, B>> operands = new ArrayList<>();
+        flatten(and, true, operands);
+        return new Junction<>(and.ast(), true, operands);
+    }
+
+    /**
+     * Create a junction of a bound {@link Or}, with all directly nested "or" operands as separate operands.
+     * @param or the disjunction
+     * @return a new junction
+     */
+    public static <T, B> Junction<T, B> of(Or<T, B> or) {
+        requireNonNullArg(or, "or");
+        List<Predicate<T, B>> operands = new ArrayList<>();
+        flatten(or, false, operands);
+        return new Junction<>(or.ast(), false, operands);
+    }
+
+    private static <T, B> void flatten(Predicate<T, B> p, boolean conjunction, List<Predicate<T, B>> operands) {
+        if (conjunction && p instanceof And<T, B> and) {
+            flatten(and.getA(), true, operands);
+            flatten(and.getB(), true, operands);
+        } else if (!conjunction && p instanceof Or<T, B> or) {
+            flatten(or.getA(), false, operands);
+            flatten(or.getB(), false, operands);
+        } else if (p instanceof Junction<T, B> j && j.conjunction == conjunction) {
+            operands.addAll(Arrays.asList(j.operands));
+        } else {
+            operands.add(p);
+        }
+    }
+
+    /**
+     * @return the operands, in the order they are currently tested
+     */
+    public List<Predicate<T, B>> getOrderedOperands() {
+        return Arrays.stream(order).mapToObj(i -> operands[i]).toList();
+    }
+
+    public boolean isConjunction() {
+        return conjunction;
+    }
+
+    @Override
+    public AstNode ast() {
+        return ast;
+    }
+
+    @Override
+    public boolean needsBinding() {
+        return false;
+    }
+
+    @Override
+    public boolean test(T x) {
+        if (++count >= RERANK_INTERVAL) {
+            rerank();
+        }
+        for (int i : order) {
+            tests[i]++;
+            if (operands[i].test(x) != conjunction) {
+                stops[i]++;
+                return !conjunction;
+            }
+        }
+        return conjunction;
+    }
+
+    /**
+     * Tests the operands in order on the facts that are still undecided, and counts per operand how many facts it
+     * decided, just like {@link #test(Object)} does.
+     */
+    @Override
+    public void testBatch(FactBlock block, BitSet out) {
+        int n = block.size();
+        // the undecided facts: for "and" the ones that passed so far, for "or" the ones that failed so far
+        BitSet undecided = new BitSet(n);
+        undecided.set(0, n);
+        BitSet result = new BitSet(n);
+        int[] o = order;
+        for (int k = 0; k < o.length && !undecided.isEmpty(); k++) {
+            int i = o[k];
+            operands[i].testBatch(block, result);
+            if (!conjunction) {
+                result.flip(0, n);
+            }
+            int before = undecided.cardinality();
+            undecided.and(result);
+            tests[i] += before;
+            stops[i] += before - undecided.cardinality();
+        }
+        if (conjunction) {
+            out.clear();
+            out.or(undecided);
+        } else {
+            out.clear();
+            out.set(0, n);
+            out.andNot(undecided);
+        }
+        count += n;
+        if (count >= RERANK_INTERVAL) {
+            rerank();
+        }
+    }
+
+    private void rerank() {
+        count = 0;
+        order = rank();
+        for (int i = 0; i < operands.length; i++) {
+            // halve the counts, so recent tests weigh more
+            tests[i] /= 2;
+            stops[i] /= 2;
+        }
+    }
+
+    /**
+     * Order the operands by their cost per chance of deciding the outcome.
+     */
+    private int[] rank() {
+        double[] scores = new double[operands.length];
+        for (int i = 0; i < operands.length; i++) {
+            double chance = (stops[i] + PRIOR_WEIGHT * priors[i]) / (tests[i] + PRIOR_WEIGHT);
+            scores[i] = costs[i] / Math.max(chance, 1e-6);
+        }
+        return IntStream.range(0, operands.length).boxed()
+                .sorted(java.util.Comparator.comparingDouble(i -> scores[i]))
+                .mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -1,7 +1,9 @@
 package io.github.zvasva.maxregel.core.process.predicate;
 
+import io.github.zvasva.maxregel.core.factset.FactBlock;
 import io.github.zvasva.maxregel.core.process.AstNode;
 
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 
@@ -21,6 +23,10 @@ public class Not<T, B> extends AbstractPredicate<T, B> {
         this.p = requireNonNullArg(p, "p");
     }
 
+    public Predicate<T, B> getP() {
+        return p;
+    }
+
     @Override
     public AstNode ast() {
         return new AstNode("not", Map.of(), List.of(p.ast()));
@@ -31,8 +37,20 @@ public class Not<T, B> extends AbstractPredicate<T, B> {
         return !p.test(x);
     }
 
+    @Override
+    public void testBatch(FactBlock block, BitSet out) {
+        p.testBatch(block, out);
+        out.flip(0, block.size());
+    }
+
+    @Override
+    public boolean needsBinding() {
+        return p.needsBinding();
+    }
+
     @Override
     public Predicate<T, B> bind(B parameterData) {
-        return new Not<>(p.bind(parameterData));
+        Predicate<T, B> bound = p.bind(parameterData); // e.g. an And becomes a Junction
+        return bound == p ? this : new Not<>(bound);
     }
 }
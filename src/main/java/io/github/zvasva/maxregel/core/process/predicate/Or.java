@@ -1,7 +1,9 @@
 package io.github.zvasva.maxregel.core.process.predicate;
 
+import io.github.zvasva.maxregel.core.factset.FactBlock;
 import io.github.zvasva.maxregel.core.process.AstNode;
 
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 
@@ -16,12 +18,21 @@ import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNo
  */
 public class Or<T, B> extends AbstractPredicate<T, B> {
     private final Predicate<T, B> a, b;
+    private volatile Junction<T, B> junction;
 
     public Or(Predicate<T, B> a, Predicate<T, B> b) {
         this.a = requireNonNullArg(a, "a");
         this.b = requireNonNullArg(b, "b");
     }
 
+    public Predicate<T, B> getA() {
+        return a;
+    }
+
+    public Predicate<T, B> getB() {
+        return b;
+    }
+
     @Override
     public AstNode ast() {
         return new AstNode("or", Map.of(), List.of(a.ast(), b.ast()));
@@ -33,8 +44,35 @@ public class Or<T, B> extends AbstractPredicate<T, B> {
     }
 
 
+    @Override
+    public void testBatch(FactBlock block, BitSet out) {
+        a.testBatch(block, out);
+        if (out.cardinality() < block.size()) {
+            BitSet other = new BitSet(block.size());
+            b.testBatch(block, other);
+            out.or(other);
+        }
+    }
+
+    @Override
+    public boolean needsBinding() {
+        return a.needsBinding() || b.needsBinding();
+    }
+
+    /**
+     * Bind the operands, and combine them in a {@link Junction} that tests them in an adaptive order.
+     * If no operand needs binding, the same junction is returned every time, so it keeps learning.
+     */
     @Override
     public Predicate<T, B> bind(B parameterData) {
-        return new Or<>(a.bind(parameterData), b.bind(parameterData));
+        if (!needsBinding()) {
+            Junction<T, B> j = junction;
+            if (j == null) {
+                j = Junction.of(this);
+                junction = j;
+            }
+            return j;
+        }
+        return Junction.of(new Or<>(a.bind(parameterData), b.bind(parameterData)));
     }
 }
@@ -1,6 +1,10 @@
 package io.github.zvasva.maxregel.core.process.predicate;
 
+import io.github.zvasva.maxregel.core.factset.FactBlock;
 import io.github.zvasva.maxregel.core.process.AstNode;
+import io.github.zvasva.maxregel.core.term.Fact;
+
+import java.util.BitSet;
 
 /**
  * A function that applies a boolean test on an argument.
@@ -26,6 +30,15 @@ public interface Predicate<T, B> {
      */
     Predicate<T, B> bind(B parameterData);
 
+    /**
+     * Whether {@link #bind(Object)} can result in a different predicate, i.e. whether the test depends on
+     * parameter data. A predicate that does not need binding can be used as is, for any input.
+     * @return true if the predicate should be bound before use
+     */
+    default boolean needsBinding() {
+        return true;
+    }
+
     /**
      * Evaluates this predicate on the given argument.
      * @param arg the input argument
@@ -33,6 +46,24 @@ public interface Predicate<T, B> {
      */
     boolean test(T arg);
 
+    /**
+     * Evaluates this (fact) predicate on all facts of a block.
+     * The default tests the facts one at a time. Field conditions and their combinations override this with loops
+     * over the columns of the block.
+     * @param block the facts to test
+     * @param out receives the positions in the block of the facts that satisfy the predicate (and only those)
+     */
+    @SuppressWarnings("unchecked")
+    default void testBatch(FactBlock block, BitSet out) {
+        Predicate<Fact, B> p = (Predicate<Fact, B>) this;
+        out.clear();
+        for (int i = 0; i < block.size(); i++) {
+            if (p.test(block.fact(i))) {
+                out.set(i);
+            }
+        }
+    }
+
     /**
      * Predicate as abstract syntax tree.
      * @return s-expression
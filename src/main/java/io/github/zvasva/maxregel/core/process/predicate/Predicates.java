@@ -4,9 +4,12 @@ import io.github.zvasva.maxregel.core.factset.FactSet;
 import io.github.zvasva.maxregel.core.process.AstNode;
 import io.github.zvasva.maxregel.core.term.Fact;
 
+import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * {@link Predicate} utilities.
@@ -37,6 +40,52 @@ public class Predicates {
         return Arrays.stream(predicates).reduce(new False<>(), Predicate::or);
     }
 
+    /**
+     * The names of the fields that a (fact) predicate tests, based on its AST.
+     * @param predicate the predicate to inspect
+     * @return the field names, or null when they cannot be determined (e.g. for unbound or unknown predicates)
+     */
+    public static Set<String> fields(Predicate<?, ?> predicate) {
+        Set<String> result = new LinkedHashSet<>();
+        return collectFields(predicate.ast(), result) ? result : null;
+    }
+
+    private static boolean collectFields(AstNode node, Set<String> result) {
+        List<?> args = node.args();
+        switch (node.op()) {
+            case "field_eq", "field_neq", "field_gt", "field_geq", "field_lt", "field_leq",
+                 "field_contains", "field_matches", "field_in", "field_empty" -> {
+                if (args.isEmpty() || !(args.getFirst() instanceof String field)) {
+                    return false;
+                }
+                result.add(field);
+                return true;
+            }
+            case "valid_at" -> {
+                if (args.size() < 2 || !(args.get(0) instanceof String from) || !(args.get(1) instanceof String to)) {
+                    return false;
+                }
+                result.add(from);
+                result.add(to);
+                return true;
+            }
+            case "and", "or", "not" -> {
+                for (Object arg : args) {
+                    if (!(arg instanceof AstNode sub) || !collectFields(sub, result)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            case "true", "false" -> {
+                return true;
+            }
+            default -> {
+                return false;
+            }
+        }
+    }
+
     public static Predicate<Fact, ?> parse(AstNode node) {
         if (node == null) {
             return null;
@@ -50,6 +99,8 @@ public class Predicates {
             case "field_lt",  "<" -> new Comparator.FieldLt(args.get(0).toString(), args.get(1));
             case "field_leq", "<=" -> new Comparator.FieldLeq(args.get(0).toString(), args.get(1));
             case "field_contains" -> new FieldContains(args.get(0).toString(), args.get(1).toString());
+            case "field_matches" -> new FieldMatches(args.get(0).toString(), args.get(1).toString());
+            case "valid_at" -> new ValidAt(args.get(0).toString(), args.get(1).toString(), LocalDate.parse(args.get(2).toString()));
             case "field_in", "in" -> new FieldIn(args.get(0).toString(), args.get(1).toString()); // todo: list case
             case "not" -> new Not<>(parse((AstNode) args.get(0)));
             case "and", "&" -> new And<>((Predicate<Fact, FactSet>) parse((AstNode) args.get(0)), (Predicate<Fact, FactSet>) parse((AstNode) args.get(1)));
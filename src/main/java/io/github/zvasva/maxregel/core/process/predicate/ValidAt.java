@@ -0,0 +1,82 @@
+package io.github.zvasva.maxregel.core.process.predicate;
+
+import io.github.zvasva.maxregel.core.factset.FactSet;
+import io.github.zvasva.maxregel.core.process.AstNode;
+import io.github.zvasva.maxregel.core.term.Fact;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+
+import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
+
+/**
+ * ValidAt checks whether a Fact object is valid at a given date: {@code from <= date < to}.
+ * <p>
+ * The validity period is given by two fields, with dates ({@link LocalDate}, or ISO strings like "2024-01-01").
+ * A missing (null) start or end means that the period is open on that side.
+ * Facts with other values in these fields are not valid at any date.
+ *
+ * @author Arvid Halma
+ */
+public class ValidAt extends AbstractPredicate<Fact, FactSet> {
+    private final String fromField;
+    private final String toField;
+    private final LocalDate date;
+    private final long day;
+
+    public ValidAt(String fromField, String toField, LocalDate date) {
+        this.fromField = requireNonNullArg(fromField, "fromField");
+        this.toField = requireNonNullArg(toField, "toField");
+        this.date = requireNonNullArg(date, "date");
+        this.day = date.toEpochDay();
+    }
+
+    public String getFromField() {
+        return fromField;
+    }
+
+    public String getToField() {
+        return toField;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    @Override
+    public AstNode ast() {
+        return new AstNode("valid_at", Map.of(), List.of(fromField, toField, date));
+    }
+
+    @Override
+    public boolean test(Fact fact) {
+        Object from = fact.get(fromField);
+        Object to = fact.get(toField);
+        Long start = from == null ? Long.valueOf(Long.MIN_VALUE) : epochDay(from);
+        Long end = to == null ? Long.valueOf(Long.MAX_VALUE) : epochDay(to);
+        return start != null && end != null && start <= day && day < end;
+    }
+
+    /**
+     * @param x a date value
+     * @return the day number of the date ({@link LocalDate#toEpochDay()}), or null if it is not a date
+     */
+    public static Long epochDay(Object x) {
+        return switch (x) {
+            case LocalDate d -> d.toEpochDay();
+            case LocalDateTime dt -> dt.toLocalDate().toEpochDay();
+            case java.sql.Date d -> d.toLocalDate().toEpochDay(); // e.g. read by a JdbcFactSet
+            case CharSequence s -> {
+                try {
+                    yield LocalDate.parse(s).toEpochDay();
+                } catch (DateTimeParseException e) {
+                    yield null;
+                }
+            }
+            case null, default -> null;
+        };
+    }
+}
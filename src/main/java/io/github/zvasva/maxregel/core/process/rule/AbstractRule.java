@@ -1,19 +1,53 @@
 package io.github.zvasva.maxregel.core.process.rule;
 
 
+import io.github.zvasva.maxregel.core.process.AstNode;
+
 /**
  * The AbstractRule class provides a skeletal implementation of the {@link Rule} interface.
  * This abstract class implements the hashCode, equals, and toString methods based on its {@link #ast()}.
  * Subclasses of AbstractTerm must implement the abstract methods defined in the {@link Rule} interface.
+ * <p>
+ * Rules are immutable, so the AST and its structural hash (see {@link Rules#structuralHash(Object)}) are only
+ * created once, when they are first needed for hashing or comparing.
  */
 public abstract class AbstractRule implements Rule {
+
+    private AstNode cachedAst;
+    private int hash;
+
+    /**
+     * @return the AST of this rule, created on first use
+     */
+    final AstNode cachedAst() {
+        AstNode node = cachedAst;
+        if (node == null) {
+            node = ast();
+            cachedAst = node;
+        }
+        return node;
+    }
+
+    /**
+     * @return the structural hash of the AST, computed on first use
+     */
+    final int cachedHash() {
+        int h = hash;
+        if (h == 0) {
+            h = Rules.structuralHash(cachedAst());
+            h = h == 0 ? 1 : h;
+            hash = h;
+        }
+        return h;
+    }
+
     /**
      * Determines the hashCode based on abstract syntax tree: {@link #ast()}
      * @return the hash code
      */
     @Override
     public int hashCode() {
-        return Rules.hashCode(this);
+        return cachedHash();
     }
 
     /**
@@ -22,6 +56,12 @@ public abstract class AbstractRule implements Rule {
      */
     @Override
     public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj instanceof AbstractRule other && other.cachedHash() != cachedHash()) {
+            return false;
+        }
         return Rules.equals(this, obj);
     }
 
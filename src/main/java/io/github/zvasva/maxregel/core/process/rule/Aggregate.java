@@ -8,6 +8,7 @@ import io.github.zvasva.maxregel.core.term.MapTerm;
 import io.github.zvasva.maxregel.core.term.Terms;
 import io.github.zvasva.maxregel.util.NumberComparator;
 
+import java.util.List;
 import java.util.function.BiFunction;
 
 import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
@@ -36,6 +37,16 @@ public class Aggregate extends AbstractRule {
         this.defaultValue = defaultValue;
     }
 
+    @Override
+    public List<Rule> children() {
+        return List.of(select);
+    }
+
+    @Override
+    public Rule withChildren(List<Rule> children) {
+        return new Aggregate(children.get(0), op, reduce, defaultValue);
+    }
+
     @Override
     public String op() {
         return op;
@@ -68,6 +79,11 @@ public class Aggregate extends AbstractRule {
             super(select, "aggregate_count");
         }
 
+        @Override
+        public Rule withChildren(List<Rule> children) {
+            return new Count(children.get(0));
+        }
+
         @Override
         public FactSet apply(FactSet factset) {
             return FactSets.create(MapTerm.of(op(), factset.size()));
@@ -97,6 +113,11 @@ public class Aggregate extends AbstractRule {
                 }
             }, null);
         }
+
+        @Override
+        public Rule withChildren(List<Rule> children) {
+            return new Sum(children.get(0));
+        }
     }
 
     /**
@@ -132,6 +153,11 @@ public class Aggregate extends AbstractRule {
                 }
             }, null);
         }
+
+        @Override
+        public Rule withChildren(List<Rule> children) {
+            return new Min(children.get(0));
+        }
     }
 
     /**
@@ -167,5 +193,10 @@ public class Aggregate extends AbstractRule {
                 }
             }, null);
         }
+
+        @Override
+        public Rule withChildren(List<Rule> children) {
+            return new Max(children.get(0));
+        }
     }
 }
@@ -5,6 +5,7 @@ import io.github.zvasva.maxregel.core.factset.FactSets;
 import io.github.zvasva.maxregel.core.factset.SinglePartFactSet;
 import io.github.zvasva.maxregel.core.process.AstNode;
 import io.github.zvasva.maxregel.core.term.Fact;
+import io.github.zvasva.maxregel.core.term.FieldAccessor;
 import io.github.zvasva.maxregel.core.term.MapTerm;
 import io.github.zvasva.maxregel.core.term.Terms;
 
@@ -42,6 +43,16 @@ public class AggregateBy extends AbstractRule {
     }
 
 
+    @Override
+    public List<Rule> children() {
+        return List.of(select);
+    }
+
+    @Override
+    public Rule withChildren(List<Rule> children) {
+        return new AggregateBy(children.get(0), groupFields, valueField, aggregate);
+    }
+
     @Override
     public String op() {
         return "aggregate_by";
@@ -54,13 +65,14 @@ public class AggregateBy extends AbstractRule {
 
     @Override
     public FactSet apply(FactSet factset) {
+        final FieldAccessor valueAccessor = FieldAccessor.of(valueField);
         Map<Fact, List<Fact>> groups = new LinkedHashMap<>();
-        factset.stream().forEach(fact -> {
+        select.apply(factset).stream().forEach(fact -> {
             final Fact key = new Fact(Terms.pick(fact.getTerm(), groupFields));
             if(!groups.containsKey(key)){
                 groups.put(key, new ArrayList<>());
             }
-            groups.get(key).add(new Fact(MapTerm.of(valueField, fact.get(valueField))));
+            groups.get(key).add(new Fact(MapTerm.of(valueField, fact.get(valueAccessor))));
         });
         String valueFieldName = aggregate.op() + "_" + valueField; // e.g. aggregate_max_age
         return new SinglePartFactSet(groups.entrySet().stream().map(entry -> {
@@ -6,6 +6,7 @@ import io.github.zvasva.maxregel.core.process.AstNode;
 import io.github.zvasva.maxregel.core.term.Fact;
 import io.github.zvasva.maxregel.core.term.MapTerm;
 
+import java.util.List;
 import java.util.Objects;
 
 import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
@@ -28,6 +29,16 @@ public class AllEqual extends AbstractRule {
         this.fieldName = requireNonNullArg(fieldName, "fieldName");
     }
 
+    @Override
+    public List<Rule> children() {
+        return List.of(select);
+    }
+
+    @Override
+    public Rule withChildren(List<Rule> children) {
+        return new AllEqual(children.get(0), fieldName);
+    }
+
     @Override
     public String op() {
         return "allEqual";
@@ -6,6 +6,7 @@ import io.github.zvasva.maxregel.core.term.Fact;
 import io.github.zvasva.maxregel.core.term.MapTerm;
 import io.github.zvasva.maxregel.core.term.Terms;
 
+import java.util.List;
 import java.util.function.BinaryOperator;
 
 /**
@@ -14,6 +15,7 @@ import java.util.function.BinaryOperator;
 public class Arithmetic extends Zip {
     private final String op;
     private final String resultField;
+    private final BinaryOperator<Double> operator;
 
     public Arithmetic(String resultField, String op, BinaryOperator<Double> operator, Rule selectA, Rule selectB) {
         super(
@@ -23,6 +25,7 @@ public class Arithmetic extends Zip {
         );
         this.op = op;
         this.resultField = resultField;
+        this.operator = operator;
     }
 
     private static double getDouble(Fact fact){
@@ -33,6 +36,11 @@ public class Arithmetic extends Zip {
         return Double.NaN;
     }
 
+    @Override
+    public Rule withChildren(List<Rule> children) {
+        return new Arithmetic(resultField, op, operator, children.get(0), children.get(1));
+    }
+
     @Override
     public String op() {
         return op;
@@ -7,9 +7,12 @@ import io.github.zvasva.maxregel.core.process.MaxRegelException;
 import io.github.zvasva.maxregel.core.process.predicate.Predicate;
 import io.github.zvasva.maxregel.util.PrettyPrint;
 
+import java.util.List;
+
 import static io.github.zvasva.maxregel.core.factset.Empty.EMPTY;
 import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
 
+
 /**
  * Make sure some condition holds, or throw an exception
  */
@@ -27,6 +30,16 @@ public class Assert extends AbstractRule {
         this.predicate = requireNonNullArg(predicate, "predicate");
     }
 
+    @Override
+    public List<Rule> children() {
+        return List.of(select);
+    }
+
+    @Override
+    public Rule withChildren(List<Rule> children) {
+        return new Assert(children.get(0), predicate);
+    }
+
     @Override
     public String op() {
         return "assert";
@@ -36,6 +36,10 @@ public abstract class Assign extends AbstractRule {
         return variable;
     }
 
+    public Rule body() {
+        return body;
+    }
+
     @Override
     public Map<String, Object> info() {
         return info;
@@ -4,6 +4,7 @@ package io.github.zvasva.maxregel.core.process.rule;
 import io.github.zvasva.maxregel.core.process.AstNode;
 
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -21,6 +22,16 @@ public class AssignUpdate extends Assign {
         super(variable, rule, info, false);
     }
 
+    @Override
+    public List<Rule> children() {
+        return List.of(body);
+    }
+
+    @Override
+    public Rule withChildren(List<Rule> children) {
+        return new AssignUpdate(variable, children.get(0), info);
+    }
+
     @Override
     public String op() {
         return "assign_update";
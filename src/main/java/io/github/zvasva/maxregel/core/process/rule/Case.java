@@ -2,11 +2,17 @@ package io.github.zvasva.maxregel.core.process.rule;
 
 import io.github.zvasva.maxregel.core.factset.FactSet;
 import io.github.zvasva.maxregel.core.factset.FactSets;
+import io.github.zvasva.maxregel.core.factset.MultiPartFactSet;
+import io.github.zvasva.maxregel.core.factset.SinglePartFactSet;
 import io.github.zvasva.maxregel.core.process.AstNode;
+import io.github.zvasva.maxregel.core.process.UnaryOperation;
 import io.github.zvasva.maxregel.core.process.predicate.Predicate;
 import io.github.zvasva.maxregel.core.term.Fact;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static io.github.zvasva.maxregel.core.factset.Empty.EMPTY;
 import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
@@ -16,6 +22,10 @@ import static io.github.zvasva.maxregel.core.process.rule.Rules.cnst;
  * The Case Rule goes through conditions and returns a value when the first condition is met (like an if-then-else statement).
  * Once a condition is true, it will stop reading and applies the corresponding rule. If no conditions are true, it returns the defaultValue.
  * The case is applied to all facts in the argument. Corresponding results are added to overall resulting factset.
+ * <p>
+ * When the conditions compare the same field to constants, they are compiled to a {@link DecisionTable}.
+ * A consequence that works per fact (see {@link DecisionTable#factwise(Rule)}) is applied once to each run of
+ * consecutive facts with the same first matching condition. So the results keep the order of the facts.
  */
 public class Case extends AbstractRule {
 
@@ -23,6 +33,8 @@ public class Case extends AbstractRule {
     private final List<LookupEntry> lookup;
     private final Rule defaultValue;
     private final String varName; // for term
+    private volatile DecisionTable table;
+    private volatile boolean compiled; // written after the table
 
     public Case(List<LookupEntry> lookup, Rule defaultValue, String varName) {
         this(Rule.identity(), lookup, defaultValue, varName);
@@ -72,24 +84,71 @@ public class Case extends AbstractRule {
     @Override
     public FactSet apply(FactSet facts) {
         facts = select.apply(facts);
-        FactSet result = EMPTY;
+        DecisionTable table = table();
+        // split the facts in runs with the same first condition that holds, the default is last
+        List<FactSet> subResults = new ArrayList<>();
+        List<Fact> run = new ArrayList<>();
+        int runEntry = DecisionTable.NONE;
         for (Fact fact : facts) {
-            FactSet subResult = null;
-            for (LookupEntry entry : lookup) {
-                if(entry.condition().test(fact)){
-                    subResult = entry.consequence().apply(FactSets.create(fact));
-                    break;
-                }
+            int i = table != null ? table.lookup(fact) : firstMatch(fact);
+            int entry = i == DecisionTable.NONE ? lookup.size() : i;
+            if (entry != runEntry && !run.isEmpty()) {
+                apply(runEntry, run, subResults);
+                run.clear();
             }
-            if(subResult == null) {
-                subResult = defaultValue.apply(FactSets.create(fact));
+            runEntry = entry;
+            run.add(fact);
+        }
+        if (!run.isEmpty()) {
+            apply(runEntry, run, subResults);
+        }
+        return concat(subResults);
+    }
+
+    private void apply(int entry, List<Fact> run, List<FactSet> results) {
+        Rule consequence = entry < lookup.size() ? lookup.get(entry).consequence() : defaultValue;
+        if (DecisionTable.factwise(consequence)) {
+            results.add(consequence.apply(FactSets.create(run.toArray(Fact[]::new))));
+        } else {
+            for (Fact fact : run) {
+                results.add(consequence.apply(FactSets.create(fact)));
             }
-            result = result.union(subResult);
         }
+    }
+
+    private DecisionTable table() {
+        if (!compiled) {
+            table = DecisionTable.compile(lookup.stream().map(LookupEntry::condition).toList());
+            compiled = true;
+        }
+        return table;
+    }
 
-        return result;
+    private int firstMatch(Fact fact) {
+        for (int i = 0; i < lookup.size(); i++) {
+            if (lookup.get(i).condition().test(fact)) {
+                return i;
+            }
+        }
+        return DecisionTable.NONE;
     }
 
+    /**
+     * Collect the facts of all results per part, instead of a (deep) chain of unions.
+     */
+    private static FactSet concat(List<FactSet> factsets) {
+        Map<String, List<Fact>> parts = new LinkedHashMap<>();
+        for (FactSet factset : factsets) {
+            for (String part : factset.parts()) {
+                factset.get(part).forEach(parts.computeIfAbsent(part, p -> new ArrayList<>())::add);
+            }
+        }
+        if (parts.isEmpty()) {
+            return EMPTY;
+        }
+        return new MultiPartFactSet(parts.entrySet().stream()
+                .map(e -> new SinglePartFactSet(e.getValue(), e.getKey())).toList(), new UnaryOperation.Identity<>());
+    }
 
     /**
      * A single line in a case statement that reads like:
@@ -0,0 +1,169 @@
+package io.github.zvasva.maxregel.core.process.rule;
+
+import io.github.zvasva.maxregel.core.process.AstNode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
+
+/**
+ * Common subexpression elimination for a sequence of rules (e.g. a {@link Script}).
+ * <p>
+ * Rules are equal when their ASTs are equal. When the same sub rule occurs more than once, reads the same versions
+ * of the same parts (i.e. none of them is assigned in between), and has no side effects, all occurrences are replaced
+ * by a single {@link Shared} rule. It is then computed once per evaluation, and the resulting fact set is shared.
+ * <p>
+ * Only sub rules that get their facts from {@link From} or {@link Const} rules qualify, through rules that pass on
+ * the facts of their children: filters (with predicates that need no binding), joins, selections, sorting, counting
+ * and so on. A rule that reads the whole input, or a rule with side effects ({@link Once}, {@link Print},
+ * {@link Archiver}) is never shared.
+ *
+ * @author Arvid Halma
+ */
+public final class CommonSubexpressions {
+
+    private static final Set<String> SIDE_EFFECTS = Set.of("once", "print", "archive");
+
+    private CommonSubexpressions() {
+    }
+
+    /**
+     * Share the common sub rules of a sequence of rules.
+     * @param rules the rules, in order of application
+     * @return the rules with shared sub rules, or the given list if nothing is shared
+     */
+    public static List<Rule> share(List<Rule> rules) {
+        requireNonNullArg(rules, "rules");
+        // find all candidate occurrences, keyed by rule and the versions of the parts it reads
+        Map<Rule, Object> keys = new IdentityHashMap<>();
+        Map<Object, Integer> counts = new HashMap<>();
+        Map<String, Integer> versions = new HashMap<>();
+        int epoch = 0;
+        for (Rule rule : rules) {
+            for (Rule candidate : candidates(rule, new ArrayList<>())) {
+                Map<String, Integer> read = new LinkedHashMap<>();
+                for (String part : Rules.dependencies(candidate)) {
+                    read.put(part, versions.getOrDefault(part, 0));
+                }
+                Object key = List.of(candidate, read, epoch);
+                keys.put(candidate, key);
+                counts.merge(key, 1, Integer::sum);
+            }
+            switch (rule) {
+                case Assign assign when "*".equals(assign.variable()) -> epoch++;
+                case Assign assign -> versions.merge(assign.variable(), 1, Integer::sum);
+                case ReturnIf returnIf -> {
+                }
+                case Identity identity -> {
+                }
+                default -> epoch++;
+            }
+        }
+        if (counts.values().stream().noneMatch(n -> n > 1)) {
+            return rules;
+        }
+        // replace the largest common sub rules, with one instance per key
+        Map<Object, Shared> shared = new HashMap<>();
+        List<Rule> result = new ArrayList<>(rules.size());
+        for (Rule rule : rules) {
+            result.add(replace(rule, keys, counts, shared));
+        }
+        return result;
+    }
+
+    private static Rule replace(Rule rule, Map<Rule, Object> keys, Map<Object, Integer> counts, Map<Object, Shared> shared) {
+        Object key = keys.get(rule);
+        if (key != null && counts.get(key) > 1) {
+            return shared.computeIfAbsent(key, k -> new Shared(rule, Rules.dependencies(rule)));
+        }
+        List<Rule> inputs = inputs(rule);
+        if (inputs.isEmpty()) {
+            return rule;
+        }
+        List<Rule> children = new ArrayList<>(rule.children());
+        boolean changed = false;
+        for (int i = 0; i < children.size(); i++) {
+            Rule child = children.get(i);
+            if (inputs.stream().anyMatch(input -> input == child)) {
+                Rule replaced = replace(child, keys, counts, shared);
+                changed |= replaced != child;
+                children.set(i, replaced);
+            }
+        }
+        return changed ? rule.withChildren(children) : rule;
+    }
+
+    /**
+     * Collect the sub rules that can be shared, top down.
+     */
+    private static List<Rule> candidates(Rule rule, List<Rule> result) {
+        if (!inputs(rule).isEmpty() && closed(rule) && pure(rule.ast())) {
+            result.add(rule);
+        }
+        for (Rule input : inputs(rule)) {
+            candidates(input, result);
+        }
+        return result;
+    }
+
+    /**
+     * The children of a rule that are applied to the same facts as the rule itself.
+     */
+    static List<Rule> inputs(Rule rule) {
+        return switch (rule) {
+            case Then then -> List.of(then.getA());
+            case Assign assign -> List.of(assign.body());
+            case ReturnIf returnIf -> returnIf.children();
+            case Aggregate.Count count -> List.of(); // counts its input, not its selection
+            case Filter filter -> filter.children();
+            case Join join -> join.children();
+            case Concat concat -> concat.children();
+            case Zip zip -> zip.children();
+            case SelectFields select -> select.children();
+            case Count count -> count.children();
+            case Aggregate aggregate -> aggregate.children();
+            case AggregateBy aggregateBy -> aggregateBy.children();
+            case Sort sort -> sort.children();
+            case Limit limit -> limit.children();
+            case NamePrefix namePrefix -> namePrefix.children();
+            default -> List.of();
+        };
+    }
+
+    /**
+     * Whether a rule only reads facts through {@link From} and {@link Const} rules.
+     */
+    static boolean closed(Rule rule) {
+        return switch (rule) {
+            case From from -> true;
+            case Const c -> true;
+            case Shared shared -> true; // only reads its parts
+            case Assign assign -> false;
+            case ReturnIf returnIf -> false;
+            case Filter filter -> !filter.getPredicate().needsBinding() && closed(filter.getSelect());
+            default -> {
+                List<Rule> inputs = inputs(rule);
+                yield !inputs.isEmpty() && inputs.stream().allMatch(CommonSubexpressions::closed);
+            }
+        };
+    }
+
+    static boolean pure(Object node) {
+        if (node instanceof AstNode ast) {
+            return !SIDE_EFFECTS.contains(ast.op()) && ast.args().stream().allMatch(CommonSubexpressions::pure);
+        }
+        if (node instanceof Rule rule) {
+            return pure(rule.ast());
+        }
+        if (node instanceof List<?> list) {
+            return list.stream().allMatch(CommonSubexpressions::pure);
+        }
+        return true;
+    }
+}
@@ -6,6 +6,7 @@ import io.github.zvasva.maxregel.core.process.predicate.Comparator;
 import io.github.zvasva.maxregel.core.term.Fact;
 import io.github.zvasva.maxregel.core.term.MapTerm;
 
+import java.util.List;
 import java.util.function.BiFunction;
 
 /**
@@ -14,6 +15,7 @@ import java.util.function.BiFunction;
 public class Compare extends Zip {
     private final String op;
     private final String resultField;
+    private final BiFunction<Fact, Fact, Boolean> cmp;
 
     public Compare(String resultField, Comparator comparator, Rule selectA, Rule selectB) {
         this(resultField, comparator.op(), comparator::apply, selectA, selectB);
@@ -27,6 +29,12 @@ public class Compare extends Zip {
         );
         this.op = op;
         this.resultField = resultField;
+        this.cmp = cmp;
+    }
+
+    @Override
+    public Rule withChildren(List<Rule> children) {
+        return new Compare(resultField, op, cmp, children.get(0), children.get(1));
     }
 
     @Override
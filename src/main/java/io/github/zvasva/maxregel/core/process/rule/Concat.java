@@ -3,6 +3,8 @@ package io.github.zvasva.maxregel.core.process.rule;
 import io.github.zvasva.maxregel.core.factset.FactSet;
 import io.github.zvasva.maxregel.core.process.AstNode;
 
+import java.util.List;
+
 import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
 
 /**
@@ -10,10 +12,22 @@ import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNo
  */
 public class Concat extends AbstractRule {
     private final Rule selectA, selectB;
+    private final ForkJoinOperands operands;
 
     public Concat(Rule selectA, Rule selectB) {
         this.selectA = requireNonNullArg(selectA, "selectA");
         this.selectB = requireNonNullArg(selectB, "selectB");
+        this.operands = new ForkJoinOperands(selectA, selectB);
+    }
+
+    @Override
+    public List<Rule> children() {
+        return List.of(selectA, selectB);
+    }
+
+    @Override
+    public Rule withChildren(List<Rule> children) {
+        return new Concat(children.get(0), children.get(1));
     }
 
     @Override
@@ -28,13 +42,13 @@ public class Concat extends AbstractRule {
 
     @Override
     public FactSet apply(FactSet factset) {
-        FactSet fsA = selectA.apply(factset);
+        ForkJoinOperands.Results results = operands.apply(factset);
+        FactSet fsA = results.a();
+        FactSet fsB = results.b();
 
         if(fsA.isEmpty()) {
-            return selectB.apply(factset);
+            return fsB;
         }
-
-        FactSet fsB = selectB.apply(factset);
         if(fsB.isEmpty()) {
             return fsA;
         }
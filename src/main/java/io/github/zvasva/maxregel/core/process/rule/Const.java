@@ -17,6 +17,10 @@ public class Const extends AbstractRule {
         this.facts = requireNonNullArg(facts, "facts");
     }
 
+    public FactSet getFacts() {
+        return facts;
+    }
+
     @Override
     public String op() {
         return "const";
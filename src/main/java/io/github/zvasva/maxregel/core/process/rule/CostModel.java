@@ -0,0 +1,210 @@
+package io.github.zvasva.maxregel.core.process.rule;
+
+import io.github.zvasva.maxregel.core.factset.FactSet;
+import io.github.zvasva.maxregel.core.factset.FieldStatistics;
+import io.github.zvasva.maxregel.core.factset.PartStatistics;
+import io.github.zvasva.maxregel.core.process.AstNode;
+import io.github.zvasva.maxregel.core.process.predicate.Predicate;
+
+import java.util.Collection;
+import java.util.List;
+
+import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
+
+/**
+ * Estimates, based on {@link PartStatistics}, how many facts predicates and rules select.
+ * These estimates allow choices between equivalent plans (e.g. the order in which conditions are tested,
+ * or which side of a join to filter first) to be made on the data instead of being fixed.
+ * <p>
+ * Predicates are estimated by their AST, assuming independent conditions and uniformly distributed values.
+ * When nothing is known, fixed default fractions are used. The relative cost of testing a predicate is estimated
+ * from its AST as well, see {@link #cost(Predicate)}.
+ *
+ * @author Arvid Halma
+ */
+public final class CostModel {
+
+    /** Fraction of facts that an equality condition selects, if nothing is known. */
+    public static final double DEFAULT_EQUAL = 0.1;
+    /** Fraction of facts that a range condition selects, if nothing is known. */
+    public static final double DEFAULT_RANGE = 1.0 / 3;
+    /** Fraction of facts that any other condition selects, if nothing is known. */
+    public static final double DEFAULT = 0.5;
+    /** Cost of testing a predicate that is not a (combination of) field condition(s). */
+    public static final double DEFAULT_COST = 8;
+
+    private CostModel() {
+    }
+
+    /**
+     * Estimate the fraction of the facts in a part that satisfy a predicate.
+     * @param predicate a fact predicate
+     * @param statistics the statistics of the part that is tested
+     * @return a fraction between 0 and 1
+     */
+    public static double selectivity(Predicate<?, ?> predicate, PartStatistics statistics) {
+        requireNonNullArg(predicate, "predicate");
+        requireNonNullArg(statistics, "statistics");
+        return clamp(selectivity(predicate.ast(), statistics));
+    }
+
+    private static double selectivity(AstNode node, PartStatistics statistics) {
+        List<?> args = node.args();
+        return switch (node.op()) {
+            case "true" -> 1;
+            case "false" -> 0;
+            case "not" -> 1 - selectivity(args.getFirst(), statistics);
+            case "and" -> selectivity(args.get(0), statistics) * selectivity(args.get(1), statistics);
+            case "or" -> {
+                double a = selectivity(args.get(0), statistics), b = selectivity(args.get(1), statistics);
+                yield a + b - a * b;
+            }
+            case "field_eq", "field_neq", "field_gt", "field_geq", "field_lt", "field_leq", "field_in", "field_empty" ->
+                    fieldSelectivity(node.op(), args, statistics);
+            default -> DEFAULT;
+        };
+    }
+
+    private static double selectivity(Object node, PartStatistics statistics) {
+        return node instanceof AstNode ast ? clamp(selectivity(ast, statistics)) : DEFAULT;
+    }
+
+    /**
+     * Estimate the fraction of facts that satisfy a predicate, without statistics.
+     * @param predicate a predicate
+     * @return a fraction between 0 and 1, based on default fractions
+     */
+    public static double selectivity(Predicate<?, ?> predicate) {
+        requireNonNullArg(predicate, "predicate");
+        return clamp(selectivity(predicate.ast(), null));
+    }
+
+    /**
+     * Estimate the relative cost of a single test of a predicate, where a comparison of a field costs 1.
+     * @param predicate a predicate
+     * @return a positive number
+     */
+    public static double cost(Predicate<?, ?> predicate) {
+        requireNonNullArg(predicate, "predicate");
+        return cost(predicate.ast());
+    }
+
+    private static double cost(Object node) {
+        if (!(node instanceof AstNode ast)) {
+            return DEFAULT_COST;
+        }
+        return switch (ast.op()) {
+            case "true", "false" -> 0.1;
+            case "field_eq", "field_neq", "field_gt", "field_geq", "field_lt", "field_leq", "field_empty" -> 1;
+            case "field_in" -> 2;
+            case "field_contains" -> 4;
+            case "field_matches" -> 8;
+            case "valid_at" -> 2;
+            case "and", "or", "not" -> ast.args().stream().mapToDouble(CostModel::cost).sum();
+            default -> DEFAULT_COST;
+        };
+    }
+
+    private static double fieldSelectivity(String op, List<?> args, PartStatistics statistics) {
+        if (statistics == null) {
+            return switch (op) {
+                case "field_eq", "field_empty" -> DEFAULT_EQUAL;
+                case "field_neq" -> 1 - DEFAULT_EQUAL;
+                case "field_in" -> args.size() > 1 && args.get(1) instanceof Collection<?> ys ? Math.min(1, ys.size() * DEFAULT_EQUAL) : DEFAULT;
+                default -> DEFAULT_RANGE;
+            };
+        }
+        if (statistics.getRowCount() == 0) {
+            return 0;
+        }
+        FieldStatistics field = args.getFirst() instanceof String name ? statistics.field(name) : null;
+        if (field == null) {
+            // the field is unknown (or it is a whole-term comparison)
+            return args.getFirst() instanceof String ? (op.equals("field_empty") || op.equals("field_neq") ? 1 : 0) : DEFAULT;
+        }
+        Object y = args.size() > 1 ? args.get(1) : null;
+        return switch (op) {
+            case "field_eq" -> field.equalFraction();
+            case "field_neq" -> 1 - field.nullFraction() - field.equalFraction();
+            case "field_in" -> y instanceof Collection<?> ys ? ys.size() * field.equalFraction() : DEFAULT;
+            case "field_empty" -> field.nullFraction();
+            default -> {
+                if (!(y instanceof Number n)) {
+                    yield DEFAULT_RANGE;
+                }
+                // x < y and x <= y directly, x > y and x >= y as the rest of the non-null values
+                boolean less = op.equals("field_lt") || op.equals("field_leq");
+                boolean inclusive = op.equals("field_leq") || op.equals("field_gt");
+                double fraction = field.lessFraction(n.doubleValue(), inclusive);
+                if (Double.isNaN(fraction)) {
+                    yield DEFAULT_RANGE;
+                }
+                yield less ? fraction : 1 - field.nullFraction() - fraction;
+            }
+        };
+    }
+
+    private static double clamp(double x) {
+        return Math.max(0, Math.min(1, x));
+    }
+
+    /**
+     * A rough, static estimate of the cost of applying a rule: every rule in the tree costs 1, a join 4,
+     * and a filter also the cost of its predicate ({@link #cost(Predicate)}).
+     * @param rule the rule
+     * @return a positive number
+     */
+    public static double cost(Rule rule) {
+        requireNonNullArg(rule, "rule");
+        double result = switch (rule) {
+            case Filter filter -> 1 + cost(filter.getPredicate());
+            case Join join -> 4;
+            default -> 1;
+        };
+        for (Rule child : rule.children()) {
+            result += cost(child);
+        }
+        return result;
+    }
+
+    /**
+     * Estimate the number of facts a rule results in, for rules that select facts from parts:
+     * {@link From}, {@link Filter}, {@link Join} and {@link SelectFields}.
+     * @param rule the rule
+     * @param facts the facts the rule is applied to, which provide the statistics
+     * @return the estimated number of facts, or {@link Double#NaN} if it cannot be estimated
+     */
+    public static double rows(Rule rule, FactSet facts) {
+        requireNonNullArg(rule, "rule");
+        requireNonNullArg(facts, "facts");
+        return switch (rule) {
+            case From from -> facts.statistics(from.getPart()).getRowCount();
+            case SelectFields select -> rows(select.getSelect(), facts);
+            case Filter filter -> {
+                PartStatistics statistics = statistics(filter.getSelect(), facts);
+                yield statistics == null ? Double.NaN : rows(filter.getSelect(), facts) * selectivity(filter.getPredicate(), statistics);
+            }
+            case Join join -> {
+                // rows(A) * rows(B) / max(distinct(A.field), distinct(B.field))
+                PartStatistics a = statistics(join.getSelectA(), facts), b = statistics(join.getSelectB(), facts);
+                if (a == null || b == null || a.field(join.getFieldA()) == null || b.field(join.getFieldB()) == null) {
+                    yield Double.NaN;
+                }
+                long distinct = Math.max(a.field(join.getFieldA()).getDistinctCount(), b.field(join.getFieldB()).getDistinctCount());
+                yield distinct == 0 ? 0 : rows(join.getSelectA(), facts) * rows(join.getSelectB(), facts) / distinct;
+            }
+            default -> Double.NaN;
+        };
+    }
+
+    /**
+     * The statistics of the part that a rule (a {@link From}, possibly filtered) selects from.
+     */
+    private static PartStatistics statistics(Rule rule, FactSet facts) {
+        return switch (rule) {
+            case From from -> facts.statistics(from.getPart());
+            case Filter filter -> statistics(filter.getSelect(), facts);
+            default -> null;
+        };
+    }
+}
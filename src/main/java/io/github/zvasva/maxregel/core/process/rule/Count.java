@@ -5,8 +5,11 @@ import io.github.zvasva.maxregel.core.factset.FactSets;
 import io.github.zvasva.maxregel.core.process.AstNode;
 import io.github.zvasva.maxregel.core.term.MapTerm;
 
+import java.util.List;
+
 import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
 
+
 /**
  * Stores the size of a FactSet in a fact with a chosen variable/field name.
  */
@@ -28,6 +31,16 @@ public class Count extends AbstractRule {
         this.variable = requireNonNullArg(variable, "variable");
     }
 
+    @Override
+    public List<Rule> children() {
+        return List.of(select);
+    }
+
+    @Override
+    public Rule withChildren(List<Rule> children) {
+        return new Count(children.get(0), variable);
+    }
+
     @Override
     public String op() {
         return "count";
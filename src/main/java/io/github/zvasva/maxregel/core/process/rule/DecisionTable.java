@@ -0,0 +1,212 @@
+package io.github.zvasva.maxregel.core.process.rule;
+
+import io.github.zvasva.maxregel.core.factset.FactSet;
+import io.github.zvasva.maxregel.core.process.predicate.And;
+import io.github.zvasva.maxregel.core.process.predicate.Comparator;
+import io.github.zvasva.maxregel.core.process.predicate.Or;
+import io.github.zvasva.maxregel.core.process.predicate.Predicate;
+import io.github.zvasva.maxregel.core.term.Fact;
+import io.github.zvasva.maxregel.core.term.FieldAccessor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
+
+/**
+ * A compiled list of conditions (e.g. of a {@link Case}) that finds the first condition that holds for a fact,
+ * without testing them one by one.
+ * <p>
+ * Two kinds of condition lists are compiled, when all conditions test the same field against constants:
+ * <ul>
+ *     <li>Equality comparisons: a hash table from value to the first matching condition.</li>
+ *     <li>Comparisons (possibly combined with "and" and "or") to numbers: the boundary values split the numbers into
+ *     intervals, and each interval knows the first matching condition. A value is looked up with a binary search.</li>
+ * </ul>
+ * Both give the same results as testing the conditions in order, including the edge cases of {@link Comparator}.
+ * Values that need the generic comparison (e.g. a fact or NaN) are tested in order after all.
+ *
+ * @author Arvid Halma
+ */
+public final class DecisionTable {
+
+    /** The result when no condition holds. */
+    public static final int NONE = -1;
+
+    private final List<Predicate<Fact, FactSet>> conditions;
+    private final FieldAccessor accessor;
+
+    // equality table
+    private final Map<Double, Integer> numbers;
+    private final Map<Object, Integer> others;
+    private final int firstOther; // a number is "equal" to a non-numeric constant, see NumberComparator
+
+    // interval table
+    private final double[] bounds;
+    private final int[] regions; // 2i: the numbers between bound i - 1 and i, 2i + 1: bound i itself
+
+    private DecisionTable(List<Predicate<Fact, FactSet>> conditions, String field, Map<Double, Integer> numbers,
+                          Map<Object, Integer> others, int firstOther, double[] bounds, int[] regions) {
+        this.conditions = conditions;
+        this.accessor = FieldAccessor.of(field);
+        this.numbers = numbers;
+        this.others = others;
+        this.firstOther = firstOther;
+        this.bounds = bounds;
+        this.regions = regions;
+    }
+
+    /**
+     * Compile a list of conditions.
+     * @param conditions the conditions, in order
+     * @return the table, or null if the conditions are not all comparisons of the same field to constants
+     */
+    public static DecisionTable compile(List<Predicate<Fact, FactSet>> conditions) {
+        requireNonNullArg(conditions, "conditions");
+        List<Comparator> all = new ArrayList<>();
+        for (Predicate<Fact, FactSet> condition : conditions) {
+            if (leaves(condition, all) == null) {
+                return null;
+            }
+        }
+        String field = all.isEmpty() ? null : all.getFirst().getField();
+        if (field == null || all.stream().anyMatch(c -> !field.equals(c.getField()) || !constant(c.getY()))) {
+            return null;
+        }
+        boolean equalities = conditions.stream().allMatch(c -> c instanceof Comparator cmp && "field_eq".equals(cmp.op()));
+        if (equalities) {
+            Map<Double, Integer> numbers = new HashMap<>();
+            Map<Object, Integer> others = new HashMap<>();
+            int firstOther = NONE;
+            for (int i = 0; i < conditions.size(); i++) {
+                Object y = ((Comparator) conditions.get(i)).getY();
+                if (y instanceof Number n) {
+                    numbers.putIfAbsent(n.doubleValue(), i);
+                } else {
+                    others.putIfAbsent(y, i);
+                    firstOther = firstOther == NONE ? i : firstOther;
+                }
+            }
+            return new DecisionTable(conditions, field, numbers, others, firstOther, null, null);
+        }
+        if (all.stream().anyMatch(c -> !(c.getY() instanceof Number n) || Double.isNaN(n.doubleValue()))) {
+            return null;
+        }
+        TreeSet<Double> boundaries = new TreeSet<>(Double::compare);
+        all.forEach(c -> boundaries.add(((Number) c.getY()).doubleValue()));
+        double[] bounds = boundaries.stream().mapToDouble(Double::doubleValue).toArray();
+        int n = bounds.length;
+        int[] regions = new int[2 * n + 1];
+        for (int r = 0; r < regions.length; r++) {
+            double x;
+            if (r % 2 == 1) {
+                x = bounds[r / 2];
+            } else if (r == 0) {
+                x = Math.nextDown(bounds[0]);
+            } else if (r == 2 * n) {
+                x = Math.nextUp(bounds[n - 1]);
+            } else {
+                double lo = bounds[r / 2 - 1], hi = bounds[r / 2];
+                x = lo / 2 + hi / 2;
+                if (!(lo < x && x < hi)) {
+                    regions[r] = NONE; // no numbers in between
+                    continue;
+                }
+            }
+            regions[r] = NONE;
+            for (int i = 0; i < conditions.size(); i++) {
+                if (holds(conditions.get(i), x)) {
+                    regions[r] = i;
+                    break;
+                }
+            }
+        }
+        return new DecisionTable(conditions, field, null, null, NONE, bounds, regions);
+    }
+
+    /**
+     * Collect the comparisons that a condition combines with "and" and "or".
+     * @return the result, or null if the condition is something else
+     */
+    private static List<Comparator> leaves(Predicate<?, ?> condition, List<Comparator> result) {
+        return switch (condition) {
+            case Comparator c -> {
+                result.add(c);
+                yield result;
+            }
+            case And<?, ?> and -> leaves(and.getA(), result) != null ? leaves(and.getB(), result) : null;
+            case Or<?, ?> or -> leaves(or.getA(), result) != null ? leaves(or.getB(), result) : null;
+            default -> null;
+        };
+    }
+
+    private static boolean constant(Object y) {
+        return y != null && !(y instanceof Rule) && !(y instanceof Fact) && !(y instanceof FactSet);
+    }
+
+    private static boolean holds(Predicate<?, ?> condition, double x) {
+        return switch (condition) {
+            case Comparator c -> c.apply(x, c.getY());
+            case And<?, ?> and -> holds(and.getA(), x) && holds(and.getB(), x);
+            case Or<?, ?> or -> holds(or.getA(), x) || holds(or.getB(), x);
+            default -> throw new IllegalStateException("Not compiled: " + condition);
+        };
+    }
+
+    /**
+     * Find the first condition that holds.
+     * @param fact the fact to test
+     * @return the index of the condition, or {@link #NONE}
+     */
+    public int lookup(Fact fact) {
+        Object x = fact.get(accessor);
+        if (x instanceof Fact || x instanceof FactSet || x instanceof Double d && d.isNaN() || x instanceof Float f && f.isNaN()) {
+            return sequential(fact);
+        }
+        if (!(x instanceof Comparable<?>)) {
+            return NONE; // e.g. null: comparisons do not hold
+        }
+        if (numbers != null) {
+            if (x instanceof Number n) {
+                int i = numbers.getOrDefault(n.doubleValue(), NONE);
+                return i == NONE ? firstOther : firstOther == NONE ? i : Math.min(i, firstOther);
+            }
+            return others.getOrDefault(x, NONE);
+        }
+        if (!(x instanceof Number n)) {
+            return NONE; // comparisons of other values to numbers do not hold
+        }
+        int i = Arrays.binarySearch(bounds, n.doubleValue());
+        return regions[i >= 0 ? 2 * i + 1 : 2 * (-i - 1)];
+    }
+
+    private int sequential(Fact fact) {
+        for (int i = 0; i < conditions.size(); i++) {
+            if (conditions.get(i).test(fact)) {
+                return i;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Whether a rule can be applied to a group of facts at once, instead of one fact at a time: it transforms or
+     * selects each fact on its own, so its result for a group is the union of the results per fact.
+     * @param rule a rule
+     * @return true if it is known that the rule is applied per fact
+     */
+    public static boolean factwise(Rule rule) {
+        return switch (rule) {
+            case Identity identity -> true;
+            case Filter filter -> !filter.getPredicate().needsBinding() && factwise(filter.getSelect());
+            case SelectFields select -> select.children().stream().allMatch(DecisionTable::factwise);
+            case NamePrefix prefix -> prefix.children().stream().allMatch(DecisionTable::factwise);
+            case Then then -> !(then.getA() instanceof ReturnIf) && factwise(then.getA()) && factwise(then.getB());
+            default -> false;
+        };
+    }
+}
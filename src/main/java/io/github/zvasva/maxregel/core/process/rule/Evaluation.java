@@ -0,0 +1,76 @@
+package io.github.zvasva.maxregel.core.process.rule;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * The scope of one evaluation of a sequence of rules (see {@link Pipeline}), with the results that rules may reuse
+ * within it, e.g. by {@link Shared} and {@link InvariantBinding}.
+ * <p>
+ * The results are kept per owner (by identity), and they are dropped when the evaluation ends. So they do not keep
+ * fact sets alive between evaluations, and a new evaluation never sees results of data that may have changed in the
+ * meantime (e.g. of a {@link io.github.zvasva.maxregel.db.JdbcFactSet}).
+ * Nested pipelines take part in the evaluation that is already running on the current thread.
+ * {@link io.github.zvasva.maxregel.core.process.Inference} runs all its iterations in one evaluation.
+ *
+ * @author Arvid Halma
+ */
+public final class Evaluation {
+
+    private static final ThreadLocal<Evaluation> CURRENT = new ThreadLocal<>();
+
+    private final Map<Object, Object> memos = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    private Evaluation() {
+    }
+
+    /**
+     * @return the evaluation that is running on the current thread, or null
+     */
+    static Evaluation current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Run in the current evaluation, or else in a new one that ends when the body returns.
+     * @param body the work
+     * @return the result of the body
+     */
+    public static <R> R run(Supplier<R> body) {
+        return CURRENT.get() != null ? body.get() : in(new Evaluation(), body);
+    }
+
+    /**
+     * Run in a given evaluation, e.g. on another thread than the one that started it.
+     * @param evaluation the evaluation, or null to run outside of any evaluation
+     * @param body the work
+     * @return the result of the body
+     */
+    static <R> R in(Evaluation evaluation, Supplier<R> body) {
+        Evaluation outer = CURRENT.get();
+        if (evaluation == outer) {
+            return body.get();
+        }
+        CURRENT.set(evaluation);
+        try {
+            return body.get();
+        } finally {
+            if (outer == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(outer);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    <M> M get(Object owner) {
+        return (M) memos.get(owner);
+    }
+
+    void put(Object owner, Object memo) {
+        memos.put(owner, memo);
+    }
+}
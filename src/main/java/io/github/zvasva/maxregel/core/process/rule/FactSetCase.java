@@ -2,9 +2,18 @@ package io.github.zvasva.maxregel.core.process.rule;
 
 import io.github.zvasva.maxregel.core.factset.FactSet;
 import io.github.zvasva.maxregel.core.process.AstNode;
+import io.github.zvasva.maxregel.core.process.MaxRegelException;
 import io.github.zvasva.maxregel.core.process.predicate.Predicate;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
 import static io.github.zvasva.maxregel.core.process.rule.Rules.cnst;
@@ -12,20 +21,36 @@ import static io.github.zvasva.maxregel.core.process.rule.Rules.cnst;
 /**
  * The Case Rule goes through conditions and returns a value when the first condition is met (like an if-then-else statement).
  * Once a condition is true, it will stop reading and applies the corresponding rule. If no conditions are true, it returns the defaultValue.
+ * Entries with equal (side effect free) condition selections share the selected facts.
+ * <p>
+ * In parallel mode, all conditions are evaluated speculatively, each on its own virtual thread. The results are
+ * still used in order: the first entry that holds wins, and the evaluation of all later entries is cancelled.
+ * The latency is then that of the slowest condition up to the first match, instead of the sum of all of them.
+ * Conditions with side effects (e.g. printing) are always evaluated in order.
  */
 public class FactSetCase extends AbstractRule {
 
     private final List<LookupEntry> lookup;
     private final Rule defaultValue;
+    private final boolean parallel;
 
     public FactSetCase(List<LookupEntry> lookup, Rule defaultValue) {
+        this(lookup, defaultValue, false);
+    }
+
+    /**
+     * @param lookup the entries, in order of priority
+     * @param defaultValue the result if no condition holds
+     * @param parallel whether to evaluate the conditions concurrently
+     */
+    public FactSetCase(List<LookupEntry> lookup, Rule defaultValue, boolean parallel) {
         this.lookup = requireNonNullArg(lookup, "lookup");
         this.defaultValue = requireNonNullArg(defaultValue, "defaultValue");
+        this.parallel = parallel;
     }
 
     public FactSetCase(LookupEntry lookup, Rule defaultValue) {
-        this.lookup = requireNonNullArg(List.of(lookup), "lookup");
-        this.defaultValue = requireNonNullArg(defaultValue, "defaultValue");
+        this(List.of(requireNonNullArg(lookup, "lookup")), defaultValue, false);
     }
 
     public FactSetCase(Predicate<FactSet, FactSet> condition) {
@@ -41,6 +66,20 @@ public class FactSetCase extends AbstractRule {
         return defaultValue;
     }
 
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    @Override
+    public Map<String, Object> info() {
+        if (!parallel) {
+            return super.info();
+        }
+        Map<String, Object> info = new LinkedHashMap<>(super.info());
+        info.put("parallel", true);
+        return info;
+    }
+
     @Override
     public String op() {
         return "factsetcase";
@@ -56,14 +95,76 @@ public class FactSetCase extends AbstractRule {
 
     @Override
     public FactSet apply(FactSet facts) {
+        if (parallel && lookup.size() > 1 && lookup.stream().allMatch(entry ->
+                CommonSubexpressions.pure(entry.conditionSelect) && CommonSubexpressions.pure(entry.condition.ast()))) {
+            return applyParallel(facts);
+        }
+        // entries often test the same selection, e.g. from("x"), so a (pure) selection is applied once
+        Map<Rule, FactSet> selections = new HashMap<>();
         for (LookupEntry entry : lookup) {
-            if(entry.condition.test(entry.conditionSelect.apply(facts))){
+            FactSet selection = CommonSubexpressions.pure(entry.conditionSelect)
+                    ? selections.computeIfAbsent(entry.conditionSelect, select -> select.apply(facts))
+                    : entry.conditionSelect.apply(facts);
+            if(entry.condition.test(selection)){
                 return entry.consequence.apply(facts);
             }
         }
         return defaultValue.apply(facts);
     }
 
+    private FactSet applyParallel(FactSet facts) {
+        // the tasks take part in the current evaluation, so they can reuse its results
+        Evaluation evaluation = Evaluation.current();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        List<Future<?>> tasks = new ArrayList<>();
+        try {
+            Map<Rule, Future<FactSet>> selections = new HashMap<>();
+            List<Future<Boolean>> conditions = new ArrayList<>(lookup.size());
+            for (LookupEntry entry : lookup) {
+                Future<FactSet> selection = selections.computeIfAbsent(entry.conditionSelect,
+                        select -> executor.submit(() -> Evaluation.in(evaluation, () -> select.apply(facts))));
+                conditions.add(executor.submit(() -> {
+                    FactSet selected = selection.get();
+                    return Evaluation.in(evaluation, () -> entry.condition.test(selected));
+                }));
+            }
+            tasks.addAll(selections.values());
+            tasks.addAll(conditions);
+            // wait in order of priority, so the first entry that holds wins
+            for (int i = 0; i < lookup.size(); i++) {
+                if (result(conditions.get(i))) {
+                    return lookup.get(i).consequence.apply(facts);
+                }
+            }
+            return defaultValue.apply(facts);
+        } finally {
+            tasks.forEach(task -> task.cancel(true));
+            executor.shutdownNow();
+        }
+    }
+
+    private static boolean result(Future<Boolean> condition) {
+        try {
+            return condition.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MaxRegelException("Interrupted while evaluating a case condition", e);
+        } catch (ExecutionException e) {
+            // as if the condition was evaluated in order: unwrap the cause (also of a failed selection)
+            Throwable cause = e.getCause();
+            while (cause instanceof ExecutionException) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new MaxRegelException(cause);
+        }
+    }
+
     /**
      * A single line in a case statement that reads like:
      * if condition on selection holds, return the consequence.
@@ -5,6 +5,8 @@ import io.github.zvasva.maxregel.core.process.AstNode;
 import io.github.zvasva.maxregel.core.process.predicate.Predicate;
 import io.github.zvasva.maxregel.core.term.Fact;
 
+import java.util.List;
+
 import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
 
 /**
@@ -13,6 +15,7 @@ import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNo
 public class Filter extends AbstractRule {
     private final Rule select;
     private final Predicate<Fact, FactSet> predicate;
+    private final InvariantBinding<Fact> binding;
 
     public Filter(Predicate<Fact, FactSet> predicate) {
         this(Rule.identity(), predicate);
@@ -21,6 +24,32 @@ public class Filter extends AbstractRule {
     public Filter(Rule select, Predicate<Fact, FactSet> predicate) {
         this.select = requireNonNullArg(select, "select");
         this.predicate = requireNonNullArg(predicate, "predicate");
+        this.binding = new InvariantBinding<>(predicate);
+    }
+
+    public Rule getSelect() {
+        return select;
+    }
+
+    public Predicate<Fact, FactSet> getPredicate() {
+        return predicate;
+    }
+
+    /**
+     * @return the binding of the predicate, with counters of how often a bound predicate was reused
+     */
+    public InvariantBinding<Fact> getBinding() {
+        return binding;
+    }
+
+    @Override
+    public List<Rule> children() {
+        return List.of(select);
+    }
+
+    @Override
+    public Rule withChildren(List<Rule> children) {
+        return new Filter(children.get(0), predicate);
     }
 
     @Override
@@ -35,7 +64,7 @@ public class Filter extends AbstractRule {
 
     @Override
     public FactSet apply(FactSet factset) {
-        Predicate<Fact, FactSet> concretePred = predicate.bind(factset);
+        Predicate<Fact, FactSet> concretePred = binding.bind(factset);
         return select.apply(factset).filter(concretePred);
     }
 }
@@ -31,6 +31,16 @@ public class FlatMap extends AbstractRule {
         this.transform = requireNonNullArg(transform, "transform");
     }
 
+    @Override
+    public List<Rule> children() {
+        return List.of(select, transform);
+    }
+
+    @Override
+    public Rule withChildren(List<Rule> children) {
+        return new FlatMap(children.get(0), children.get(1));
+    }
+
     @Override
     public String op() {
         return "flatmap";
@@ -0,0 +1,102 @@
+package io.github.zvasva.maxregel.core.process.rule;
+
+import io.github.zvasva.maxregel.core.factset.FactSet;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
+
+/**
+ * The two independent operands of a binary rule (e.g. {@link Zip}, {@link Join}, {@link Concat}), that may be
+ * evaluated in parallel.
+ * <p>
+ * When both operands are expensive (their {@link CostModel#cost(Rule)} is at least the threshold), the first one is
+ * forked into a {@link ForkJoinPool} while the current thread evaluates the second. Nested binary rules (e.g. a tree
+ * of {@link Arithmetic}) fork again from within the pool, so work stealing spreads the tree over all cores.
+ * Operands with side effects ({@link Once}, {@link Print}, ...) are always evaluated in order.
+ * <p>
+ * The pool is a dedicated one, not the common pool, since operands may block (e.g. on the queries of a
+ * {@link io.github.zvasva.maxregel.db.JdbcFactSet}). The forked operands take part in the current {@link Evaluation}.
+ * <p>
+ * Parallel evaluation is off by default, see {@link #setThreshold(double)}.
+ *
+ * @author Arvid Halma
+ */
+public final class ForkJoinOperands {
+
+    private static volatile double threshold = Double.POSITIVE_INFINITY;
+
+    private static final class Pool { // created on first use
+        static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    private final Rule a, b;
+    private volatile double cost = Double.NaN;
+
+    /**
+     * The results of both operands.
+     * @param a the result of the first operand
+     * @param b the result of the second operand
+     */
+    public record Results(FactSet a, FactSet b) {
+    }
+
+    public ForkJoinOperands(Rule a, Rule b) {
+        this.a = requireNonNullArg(a, "a");
+        this.b = requireNonNullArg(b, "b");
+    }
+
+    /**
+     * Set the minimum cost (see {@link CostModel#cost(Rule)}) of both operands to evaluate them in parallel.
+     * @param threshold the minimum cost, or {@link Double#POSITIVE_INFINITY} to never evaluate in parallel
+     */
+    public static void setThreshold(double threshold) {
+        ForkJoinOperands.threshold = threshold;
+    }
+
+    public static double getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Apply both operands to the same facts.
+     * @param facts the input
+     * @return the results
+     */
+    public Results apply(FactSet facts) {
+        if (cost() < threshold) {
+            return new Results(a.apply(facts), b.apply(facts));
+        }
+        Evaluation evaluation = Evaluation.current();
+        if (ForkJoinTask.getPool() == Pool.POOL) {
+            return fork(facts, evaluation);
+        }
+        return Pool.POOL.invoke(ForkJoinTask.adapt(() -> Evaluation.in(evaluation, () -> fork(facts, evaluation))));
+    }
+
+    private Results fork(FactSet facts, Evaluation evaluation) {
+        ForkJoinTask<FactSet> first = ForkJoinTask.adapt(() -> Evaluation.in(evaluation, () -> a.apply(facts))).fork();
+        FactSet second;
+        try {
+            second = b.apply(facts);
+        } catch (RuntimeException | Error e) {
+            first.cancel(true);
+            throw e;
+        }
+        return new Results(first.join(), second);
+    }
+
+    /**
+     * The cost of the cheapest operand, or -1 if an operand has side effects.
+     */
+    double cost() {
+        double c = cost;
+        if (Double.isNaN(c)) {
+            boolean pure = CommonSubexpressions.pure(a) && CommonSubexpressions.pure(b);
+            c = pure ? Math.min(CostModel.cost(a), CostModel.cost(b)) : -1;
+            cost = c;
+        }
+        return c;
+    }
+}
@@ -18,6 +18,10 @@ public class From extends AbstractRule {
         this.part = requireNonNullArg(part, "part");
     }
 
+    public String getPart() {
+        return part;
+    }
+
     @Override
     public String op() {
         return "from";
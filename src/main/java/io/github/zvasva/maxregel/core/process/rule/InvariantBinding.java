@@ -0,0 +1,167 @@
+package io.github.zvasva.maxregel.core.process.rule;
+
+import io.github.zvasva.maxregel.core.factset.FactSet;
+import io.github.zvasva.maxregel.core.process.predicate.AbstractPredicate;
+import io.github.zvasva.maxregel.core.process.predicate.And;
+import io.github.zvasva.maxregel.core.process.predicate.Comparator;
+import io.github.zvasva.maxregel.core.process.predicate.Not;
+import io.github.zvasva.maxregel.core.process.predicate.Or;
+import io.github.zvasva.maxregel.core.process.predicate.Predicate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
+
+/**
+ * Binds a predicate to its parameter data, and reuses the bound predicate while the parameters do not change.
+ * <p>
+ * The parameters of a predicate are rules (e.g. the value a {@link io.github.zvasva.maxregel.core.process.predicate.Comparator}
+ * compares to) that are applied to the input when the predicate is bound. When these rules only read facts through
+ * {@link From} and {@link Const} rules (see {@link CommonSubexpressions}), binding again gives the same result as
+ * long as the parts they read are the same (identical) instances. Since fact sets do not change, this is the case
+ * when these parts were not assigned in the meantime, e.g. when a filter is applied repeatedly within one
+ * {@link Evaluation} (of a {@link Script}, or of {@link FlatMap} or {@link Case} inside it). The bound predicate
+ * is kept in the evaluation, so it is not reused in a later evaluation, when the data may have changed.
+ * Predicates that bind to the data itself (e.g. a {@link Comparator} without a field) are bound every time.
+ * <p>
+ * The number of binds that were reused (hits) and that were done again (misses) are counted per instance,
+ * and in total. Predicates that do not need binding are not counted. Note that interned filters
+ * (see {@link Rules#intern(Rule)}) share their counters.
+ *
+ * @param <T> The type of objects that the predicate tests.
+ * @author Arvid Halma
+ */
+public final class InvariantBinding<T> {
+
+    private static final LongAdder TOTAL_HITS = new LongAdder();
+    private static final LongAdder TOTAL_MISSES = new LongAdder();
+    private static final String[] VARIANT = new String[0];
+
+    private final Predicate<T, FactSet> predicate;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile String[] parts;
+
+    private record Memo<T>(FactSet[] input, Predicate<T, FactSet> bound) {
+    }
+
+    /**
+     * @param predicate the predicate to bind
+     */
+    public InvariantBinding(Predicate<T, FactSet> predicate) {
+        this.predicate = requireNonNullArg(predicate, "predicate");
+    }
+
+    public Predicate<T, FactSet> getPredicate() {
+        return predicate;
+    }
+
+    /**
+     * Bind the predicate, or reuse the last bound predicate of the current evaluation if its parameters read the
+     * same parts.
+     * @param facts the parameter data
+     * @return the bound predicate
+     */
+    public Predicate<T, FactSet> bind(FactSet facts) {
+        if (!predicate.needsBinding()) {
+            return predicate.bind(facts);
+        }
+        String[] ps = parts();
+        Evaluation evaluation = Evaluation.current();
+        if (ps == VARIANT || evaluation == null) {
+            misses.increment();
+            TOTAL_MISSES.increment();
+            return predicate.bind(facts);
+        }
+        FactSet[] input = new FactSet[ps.length];
+        for (int i = 0; i < ps.length; i++) {
+            input[i] = facts.get(ps[i]);
+        }
+        Memo<T> m = evaluation.get(this);
+        if (m != null && same(m.input(), input)) {
+            hits.increment();
+            TOTAL_HITS.increment();
+            return m.bound();
+        }
+        misses.increment();
+        TOTAL_MISSES.increment();
+        Predicate<T, FactSet> bound = predicate.bind(facts);
+        evaluation.put(this, new Memo<>(input, bound));
+        return bound;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of reused binds of all instances
+     */
+    public static long totalHits() {
+        return TOTAL_HITS.sum();
+    }
+
+    /**
+     * @return the number of binds of all instances that could not be reused
+     */
+    public static long totalMisses() {
+        return TOTAL_MISSES.sum();
+    }
+
+    /**
+     * The parts that the parameters read, or {@link #VARIANT} if they may read anything.
+     */
+    private String[] parts() {
+        String[] ps = parts;
+        if (ps == null) {
+            List<Rule> parameters = new ArrayList<>();
+            if (collect(predicate, parameters) && !parameters.isEmpty()) {
+                Set<String> result = new LinkedHashSet<>();
+                parameters.forEach(rule -> result.addAll(Rules.dependencies(rule)));
+                ps = result.toArray(String[]::new);
+            } else {
+                ps = VARIANT;
+            }
+            parts = ps;
+        }
+        return ps;
+    }
+
+    /**
+     * Collect the parameter rules of a predicate and its operands.
+     * @return false if a parameter rule may read any part, or if an operand binds to the data itself
+     */
+    private static boolean collect(Predicate<?, ?> predicate, List<Rule> result) {
+        return switch (predicate) {
+            case And<?, ?> and -> collect(and.getA(), result) && collect(and.getB(), result);
+            case Or<?, ?> or -> collect(or.getA(), result) && collect(or.getB(), result);
+            case Not<?, ?> not -> collect(not.getP(), result);
+            case Comparator c when c.getField() == null || c.getY() == null -> false; // binds to the first value of the data
+            case Comparator c when c.getY() instanceof Rule rule -> parameter(rule, result);
+            case Comparator c -> true;
+            case AbstractPredicate<?, ?> p when !p.needsBinding() -> true;
+            default -> false;
+        };
+    }
+
+    private static boolean parameter(Rule rule, List<Rule> result) {
+        return CommonSubexpressions.closed(rule) && CommonSubexpressions.pure(rule.ast()) && result.add(rule);
+    }
+
+    private static boolean same(FactSet[] a, FactSet[] b) {
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
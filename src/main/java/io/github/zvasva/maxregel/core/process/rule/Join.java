@@ -4,6 +4,7 @@ import io.github.zvasva.maxregel.core.factset.FactSet;
 import io.github.zvasva.maxregel.core.factset.FactSets;
 import io.github.zvasva.maxregel.core.process.AstNode;
 
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -12,6 +13,7 @@ import java.util.Objects;
 public class Join extends AbstractRule {
     private final Rule selectA, selectB;
     private final String fieldA, fieldB;
+    private final ForkJoinOperands operands;
 
     public Join(Rule selectA, Rule partB, String fieldA, String fieldB) {
         Objects.requireNonNull(selectA);
@@ -22,11 +24,38 @@ public class Join extends AbstractRule {
         this.selectB = partB;
         this.fieldA = fieldA;
         this.fieldB = fieldB;
+        this.operands = new ForkJoinOperands(selectA, partB);
     }
     public Join(Rule selectA, Rule partB, String field) {
         this(selectA, partB, field, field);
     }
 
+    public Rule getSelectA() {
+        return selectA;
+    }
+
+    public Rule getSelectB() {
+        return selectB;
+    }
+
+    public String getFieldA() {
+        return fieldA;
+    }
+
+    public String getFieldB() {
+        return fieldB;
+    }
+
+    @Override
+    public List<Rule> children() {
+        return List.of(selectA, selectB);
+    }
+
+    @Override
+    public Rule withChildren(List<Rule> children) {
+        return new Join(children.get(0), children.get(1), fieldA, fieldB);
+    }
+
     @Override
     public String op() {
         return "join";
@@ -39,6 +68,7 @@ public class Join extends AbstractRule {
 
     @Override
     public FactSet apply(FactSet facts) {
-        return FactSets.joinOnField(selectA.apply(facts), selectB.apply(facts), fieldA, fieldB);
+        ForkJoinOperands.Results results = operands.apply(facts);
+        return FactSets.joinOnField(results.a(), results.b(), fieldA, fieldB);
     }
 }
@@ -5,8 +5,11 @@ import io.github.zvasva.maxregel.core.factset.SinglePartFactSet;
 import io.github.zvasva.maxregel.core.process.AstNode;
 import io.github.zvasva.maxregel.util.Iters;
 
+import java.util.List;
+
 import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
 
+
 /**
  * Retrieve at most n facts from a FactSet.
  */
@@ -24,6 +27,16 @@ public class Limit extends AbstractRule {
         this.n = n;
     }
 
+    @Override
+    public List<Rule> children() {
+        return List.of(select);
+    }
+
+    @Override
+    public Rule withChildren(List<Rule> children) {
+        return new Limit(children.get(0), n);
+    }
+
     @Override
     public String op() {
         return "limit";
@@ -0,0 +1,104 @@
+package io.github.zvasva.maxregel.core.process.rule;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
+
+/**
+ * Liveness analysis for a sequence of rules (e.g. a {@link Script}).
+ * <p>
+ * A part that is assigned in the sequence is live from its assignment up to the last rule that reads it.
+ * When the caller only needs some output parts, all other assigned parts can be removed right after their last
+ * use, so the facts they hold can be garbage collected while the rest of the sequence is applied.
+ * <p>
+ * The parts that a rule reads are known when the rule only gets its facts from {@link From} and {@link Const} rules
+ * (see {@link CommonSubexpressions}), possibly through {@link Shared} rules of an optimized script. Any other rule (e.g. a final {@code from("x")} outside an assignment, or a
+ * {@link ReturnIf}) is assumed to read every part, which keeps all parts that were assigned before it alive.
+ *
+ * @author Arvid Halma
+ */
+public final class Liveness {
+
+    private Liveness() {
+    }
+
+    /**
+     * Mark the last reader of each intermediate part: a part that is assigned in the sequence, but is not an output.
+     * A part that is never read is "last read" by its own assignment.
+     *
+     * @param rules the rules, in order of application
+     * @param outputs the parts that should remain in the result
+     * @return per rule, the intermediate parts that are no longer needed after it
+     */
+    public static List<Set<String>> lastUses(List<Rule> rules, Collection<String> outputs) {
+        requireNonNullArg(rules, "rules");
+        requireNonNullArg(outputs, "outputs");
+        List<Set<String>> result = new ArrayList<>(rules.size());
+        Map<String, Integer> live = new LinkedHashMap<>(); // part -> index of its last use so far
+        for (int i = 0; i < rules.size(); i++) {
+            result.add(new LinkedHashSet<>());
+            Rule rule = rules.get(i);
+            Set<String> reads = reads(rule);
+            for (String part : live.keySet()) {
+                if (reads == null || reads.contains(part)) {
+                    live.put(part, i);
+                }
+            }
+            if (rule instanceof Assign assign && !"*".equals(assign.variable()) && !outputs.contains(assign.variable())) {
+                Integer last = live.get(assign.variable());
+                if (last != null && last < i) {
+                    // the old value is not read by the new assignment, so it can go before it
+                    result.get(last).add(assign.variable());
+                }
+                live.put(assign.variable(), i);
+            }
+        }
+        live.forEach((part, last) -> result.get(last).add(part));
+        return result;
+    }
+
+    /**
+     * Insert {@link Remove} rules after the last use of each intermediate part, see {@link #lastUses(List, Collection)}.
+     * Applying the result gives the same output parts as applying the given rules.
+     *
+     * @param rules the rules, in order of application
+     * @param outputs the parts that should remain in the result
+     * @return the rules with remove steps, or the given list if nothing can be released
+     */
+    public static List<Rule> release(List<Rule> rules, Collection<String> outputs) {
+        List<Set<String>> lastUses = lastUses(rules, outputs);
+        if (lastUses.stream().allMatch(Set::isEmpty)) {
+            return rules;
+        }
+        List<Rule> result = new ArrayList<>();
+        for (int i = 0; i < rules.size(); i++) {
+            result.add(rules.get(i));
+            lastUses.get(i).forEach(part -> result.add(new Remove(part)));
+        }
+        return result;
+    }
+
+    /**
+     * The parts that a rule reads, or null if it may read any part.
+     */
+    private static Set<String> reads(Rule rule) {
+        return switch (rule) {
+            case Identity identity -> Set.of();
+            case Remove remove -> Set.of();
+            case Assign assign when CommonSubexpressions.closed(assign.body()) -> {
+                Set<String> reads = new LinkedHashSet<>(Rules.dependencies(assign.body()));
+                if (!assign.overwrite && !"*".equals(assign.variable())) {
+                    reads.add(assign.variable()); // the new facts are added to the old ones
+                }
+                yield reads;
+            }
+            default -> null;
+        };
+    }
+}
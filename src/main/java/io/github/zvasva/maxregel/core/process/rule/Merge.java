@@ -4,9 +4,11 @@ import io.github.zvasva.maxregel.core.factset.FactSet;
 import io.github.zvasva.maxregel.core.process.AstNode;
 import io.github.zvasva.maxregel.core.process.BinaryOperation;
 import io.github.zvasva.maxregel.core.term.Fact;
-import io.github.zvasva.maxregel.core.term.Terms;
+import io.github.zvasva.maxregel.core.term.JoinedTerm;
 import io.github.zvasva.maxregel.core.term.Term;
 
+import java.util.List;
+
 /**
  * Merge terms of two {@link FactSet}s pairwise, by taking the union of the corresponding {@link Term}s.
  */
@@ -14,12 +16,17 @@ public class Merge extends Zip {
 
     public Merge(Rule selectA, Rule selectB) {
         super(
-                BinaryOperation.fromJavaBinaryOperator((a, b) -> new Fact(Terms.union(a.getTerm(), b.getTerm()))),
+                BinaryOperation.fromJavaBinaryOperator((a, b) -> new Fact(new JoinedTerm(a.getTerm(), b.getTerm()))),
                 selectA,
                 selectB
         );
     }
 
+    @Override
+    public Rule withChildren(List<Rule> children) {
+        return new Merge(children.get(0), children.get(1));
+    }
+
     @Override
     public String op() {
         return "merge";
@@ -5,8 +5,11 @@ import io.github.zvasva.maxregel.core.factset.MultiPartFactSet;
 import io.github.zvasva.maxregel.core.process.AstNode;
 import io.github.zvasva.maxregel.core.process.UnaryOperation;
 
+import java.util.List;
+
 import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
 
+
 /**
  * Update the part names by giving them all a prefix.
  */
@@ -24,6 +27,16 @@ public class NamePrefix extends AbstractRule {
         this.prefix = requireNonNullArg(prefix, "prefix");
     }
 
+    @Override
+    public List<Rule> children() {
+        return List.of(select);
+    }
+
+    @Override
+    public Rule withChildren(List<Rule> children) {
+        return new NamePrefix(children.get(0), prefix);
+    }
+
     @Override
     public String op() {
         return "name_prefix";
@@ -0,0 +1,283 @@
+package io.github.zvasva.maxregel.core.process.rule;
+
+import io.github.zvasva.maxregel.core.factset.FactSet;
+import io.github.zvasva.maxregel.core.process.predicate.And;
+import io.github.zvasva.maxregel.core.process.predicate.Predicate;
+import io.github.zvasva.maxregel.core.process.predicate.Predicates;
+import io.github.zvasva.maxregel.core.term.Fact;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
+
+/**
+ * Rewrites rule trees into equivalent ones that do less work:
+ * <ul>
+ *     <li>{@link Identity} rules are dropped from scripts and "then" chains;</li>
+ *     <li>adjacent {@link Filter}s are merged into a single filter with an {@link And} predicate;</li>
+ *     <li>consecutive {@link SelectFields} are fused, when the outer selection is a subset of the inner one;</li>
+ *     <li>conditions of a filter on a {@link Join} that only test fields of one side are pushed below the join,
+ *     so fewer facts are joined;</li>
+ *     <li>sub rules that occur more than once in a sequence are computed once, see {@link CommonSubexpressions}.</li>
+ * </ul>
+ * Filter pushdown needs to know which fields the parts have. Without that schema (see {@link #fields(FactSet)}),
+ * the other rewrites are still done. Within a sequence of rules, the schema follows the assignments: a part that is
+ * assigned by a plain selection of known parts keeps its fields, any other assignment makes them unknown.
+ *
+ * @author Arvid Halma
+ */
+public final class Optimizer {
+
+    private final Map<String, Set<String>> fieldsPerPart;
+
+    /**
+     * An optimizer without schema, i.e. without filter pushdown.
+     */
+    public Optimizer() {
+        this(Map.of());
+    }
+
+    /**
+     * @param fieldsPerPart the field names per part, of the facts the rules are applied to
+     */
+    public Optimizer(Map<String, Set<String>> fieldsPerPart) {
+        this.fieldsPerPart = requireNonNullArg(fieldsPerPart, "fieldsPerPart");
+    }
+
+    /**
+     * The schema of a fact set: all field names that occur per part.
+     * @param facts the facts to inspect
+     * @return a map from part name to field names
+     */
+    public static Map<String, Set<String>> fields(FactSet facts) {
+        Map<String, Set<String>> result = new LinkedHashMap<>();
+        for (String part : facts.parts()) {
+            Set<String> fields = new LinkedHashSet<>();
+            for (Fact fact : facts.get(part)) {
+                fields.addAll(fact.getTerm().keys());
+            }
+            result.put(part, fields);
+        }
+        return result;
+    }
+
+    /**
+     * @param rule the rule to optimize
+     * @return an equivalent rule, or the same rule if nothing could be rewritten
+     */
+    public Rule optimize(Rule rule) {
+        requireNonNullArg(rule, "rule");
+        return optimize(rule, new LinkedHashMap<>(fieldsPerPart));
+    }
+
+    /**
+     * @param rules a sequence of rules, as in a {@link Script}
+     * @return an equivalent sequence of rules
+     */
+    public List<Rule> optimize(List<Rule> rules) {
+        requireNonNullArg(rules, "rules");
+        return sequence(rules, new LinkedHashMap<>(fieldsPerPart));
+    }
+
+    private Rule optimize(Rule rule, Map<String, Set<String>> schema) {
+        return switch (rule) {
+            case Script script -> {
+                List<Rule> rules = sequence(script.getRules(), new LinkedHashMap<>(schema));
+                yield rules == script.getRules() ? script : script.withChildren(rules);
+            }
+            case Then then -> {
+                Rule a = optimize(then.getA(), schema);
+                Map<String, Set<String>> after = new LinkedHashMap<>(schema);
+                update(after, a);
+                Rule b = optimize(then.getB(), after);
+                if (a instanceof Identity) {
+                    yield b;
+                }
+                if (b instanceof Identity) {
+                    yield a;
+                }
+                yield a == then.getA() && b == then.getB() ? then : new Then(a, b);
+            }
+            case Filter filter -> filter(filter, schema);
+            case SelectFields select -> select(select, schema);
+            // these rules apply their children to the same input
+            case Assign assign -> children(assign, schema);
+            case Join join -> children(join, schema);
+            default -> children(rule, Map.of());
+        };
+    }
+
+    private List<Rule> sequence(List<Rule> rules, Map<String, Set<String>> schema) {
+        List<Rule> result = new ArrayList<>(rules.size());
+        for (Rule rule : rules) {
+            Rule optimized = optimize(rule, schema);
+            update(schema, optimized);
+            if (!(optimized instanceof Identity)) {
+                result.add(optimized);
+            }
+        }
+        result = CommonSubexpressions.share(result);
+        return same(result, rules) ? rules : result;
+    }
+
+    private static boolean same(List<Rule> a, List<Rule> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (a.get(i) != b.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Optimize the children of a rule, and rebuild it if one of them changed.
+     */
+    private Rule children(Rule rule, Map<String, Set<String>> schema) {
+        List<Rule> children = rule.children();
+        if (children.isEmpty()) {
+            return rule;
+        }
+        List<Rule> optimized = new ArrayList<>(children.size());
+        boolean changed = false;
+        for (Rule child : children) {
+            Rule o = optimize(child, schema);
+            changed |= o != child;
+            optimized.add(o);
+        }
+        return changed ? rule.withChildren(optimized) : rule;
+    }
+
+    private Rule filter(Filter filter, Map<String, Set<String>> schema) {
+        Rule select = optimize(filter.getSelect(), schema);
+        Predicate<Fact, FactSet> predicate = filter.getPredicate();
+        // filter(filter(x, p), q) = filter(x, p and q): both predicates are bound on the same input
+        while (select instanceof Filter inner) {
+            predicate = new And<>(inner.getPredicate(), predicate);
+            select = inner.getSelect();
+        }
+        if (select instanceof Join join) {
+            Rule pushed = pushDown(join, predicate, schema);
+            if (pushed != null) {
+                return pushed;
+            }
+        }
+        return select == filter.getSelect() && predicate == filter.getPredicate() ? filter : new Filter(select, predicate);
+    }
+
+    /**
+     * Move the conditions that only test the fields of one side of the join to that side.
+     * The joined facts are unions of the facts of both sides, so such a condition gives the same result
+     * before the join as after it.
+     * @return the rewritten rule, or null if no condition can be moved
+     */
+    private Rule pushDown(Join join, Predicate<Fact, FactSet> predicate, Map<String, Set<String>> schema) {
+        Set<String> fieldsA = fields(join.getSelectA(), schema);
+        Set<String> fieldsB = fields(join.getSelectB(), schema);
+        if (fieldsA == null || fieldsB == null) {
+            return null;
+        }
+        List<Predicate<Fact, FactSet>> toA = new ArrayList<>(), toB = new ArrayList<>(), remaining = new ArrayList<>();
+        for (Predicate<Fact, FactSet> conjunct : conjuncts(predicate, new ArrayList<>())) {
+            Set<String> tested = Predicates.fields(conjunct);
+            if (tested != null && Collections.disjoint(tested, fieldsB)) {
+                toA.add(conjunct);
+            } else if (tested != null && Collections.disjoint(tested, fieldsA)) {
+                toB.add(conjunct);
+            } else {
+                remaining.add(conjunct);
+            }
+        }
+        if (toA.isEmpty() && toB.isEmpty()) {
+            return null;
+        }
+        Rule selectA = toA.isEmpty() ? join.getSelectA() : filter(new Filter(join.getSelectA(), and(toA)), schema);
+        Rule selectB = toB.isEmpty() ? join.getSelectB() : filter(new Filter(join.getSelectB(), and(toB)), schema);
+        Rule joined = new Join(selectA, selectB, join.getFieldA(), join.getFieldB());
+        return remaining.isEmpty() ? joined : new Filter(joined, and(remaining));
+    }
+
+    private static List<Predicate<Fact, FactSet>> conjuncts(Predicate<Fact, FactSet> predicate, List<Predicate<Fact, FactSet>> result) {
+        if (predicate instanceof And<Fact, FactSet> and) {
+            conjuncts(and.getA(), result);
+            conjuncts(and.getB(), result);
+        } else {
+            result.add(predicate);
+        }
+        return result;
+    }
+
+    private static Predicate<Fact, FactSet> and(List<Predicate<Fact, FactSet>> predicates) {
+        return predicates.stream().reduce(And::new).orElseThrow();
+    }
+
+    /**
+     * select(select(x, f1), f2) = select(x, f2), if all fields of f2 are in f1.
+     * Otherwise, the fields of f2 that are missing in f1 must stay (with null values), so they are not fused.
+     */
+    private Rule select(SelectFields select, Map<String, Set<String>> schema) {
+        Rule inner = optimize(select.getSelect(), schema);
+        if (inner instanceof SelectFields innerSelect && innerSelect.getFieldNames().containsAll(select.getFieldNames())) {
+            return new SelectFields(innerSelect.getSelect(), select.getFieldNames());
+        }
+        return inner == select.getSelect() ? select : new SelectFields(inner, select.getFieldNames());
+    }
+
+    /**
+     * The fields of the facts that a rule selects, if they are known and the facts are not transformed,
+     * so that filters on them test the same values.
+     */
+    private static Set<String> fields(Rule rule, Map<String, Set<String>> schema) {
+        return switch (rule) {
+            case From from -> schema.get(from.getPart());
+            case Filter filter -> fields(filter.getSelect(), schema);
+            case Join join -> {
+                Set<String> a = fields(join.getSelectA(), schema);
+                Set<String> b = fields(join.getSelectB(), schema);
+                if (a == null || b == null) {
+                    yield null;
+                }
+                Set<String> union = new LinkedHashSet<>(a);
+                union.addAll(b);
+                yield union;
+            }
+            default -> null;
+        };
+    }
+
+    /**
+     * Update the schema with the effect of applying a rule.
+     */
+    private static void update(Map<String, Set<String>> schema, Rule rule) {
+        switch (rule) {
+            case Identity identity -> {
+            }
+            case ReturnIf returnIf -> {
+                // if it returns, the remaining rules are not applied
+            }
+            case Assign assign when "*".equals(assign.variable()) -> schema.clear();
+            case Assign assign -> {
+                Set<String> fields = fields(assign.body(), schema);
+                Set<String> old = schema.get(assign.variable());
+                if (fields == null || (!assign.overwrite && old == null)) {
+                    schema.remove(assign.variable());
+                } else if (assign.overwrite) {
+                    schema.put(assign.variable(), fields);
+                } else {
+                    Set<String> union = new LinkedHashSet<>(old);
+                    union.addAll(fields);
+                    schema.put(assign.variable(), union);
+                }
+            }
+            default -> schema.clear();
+        }
+    }
+}
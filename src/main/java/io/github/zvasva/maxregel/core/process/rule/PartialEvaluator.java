@@ -0,0 +1,126 @@
+package io.github.zvasva.maxregel.core.process.rule;
+
+import io.github.zvasva.maxregel.core.factset.FactSet;
+import io.github.zvasva.maxregel.core.factset.SinglePartFactSet;
+import io.github.zvasva.maxregel.core.process.AstNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.github.zvasva.maxregel.core.factset.Empty.EMPTY;
+import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
+
+/**
+ * Specializes a {@link Script} for parts that do not change between evaluations, e.g. reference tables.
+ * <p>
+ * Every sub rule that only depends on these static parts is evaluated once, and replaced by a {@link Const} with the
+ * (materialized) result. This includes {@link Arithmetic} and other rules over constants only (constant folding).
+ * Parts that are assigned from static parts only become static as well. When a remaining filter selects facts with
+ * a field equality from a constant, the index on that field is built up front.
+ * <p>
+ * The same sub rules qualify as for {@link CommonSubexpressions}: rules without side effects that only read facts
+ * through {@link From} and {@link Const} rules. The specialized script gives the same results, as long as the input
+ * contains the same static parts, or does not contain them at all.
+ *
+ * @author Arvid Halma
+ */
+public final class PartialEvaluator {
+
+    private PartialEvaluator() {
+    }
+
+    /**
+     * Specialize a script for static parts.
+     * @param script the script
+     * @param staticFacts the static parts
+     * @return a script where all rules that only depend on static parts are constants
+     */
+    public static Script specialize(Script script, FactSet staticFacts) {
+        requireNonNullArg(script, "script");
+        return new Script(specialize(script.getRules(), staticFacts), script.isOptimized());
+    }
+
+    /**
+     * Specialize a sequence of rules for static parts.
+     * @param rules the rules, in order of application
+     * @param staticFacts the static parts
+     * @return the rules where all sub rules that only depend on static parts are constants
+     */
+    public static List<Rule> specialize(List<Rule> rules, FactSet staticFacts) {
+        requireNonNullArg(rules, "rules");
+        FactSet known = requireNonNullArg(staticFacts, "staticFacts");
+        List<Rule> result = new ArrayList<>(rules.size());
+        for (Rule rule : rules) {
+            Rule folded = fold(rule, known);
+            result.add(folded);
+            switch (folded) {
+                case Identity identity -> {
+                }
+                case ReturnIf returnIf -> {
+                    // if it does not return, the facts stay the same
+                }
+                case Assign assign when "*".equals(assign.variable()) -> known = EMPTY;
+                case Assign assign when assign.overwrite && assign.body() instanceof Const c ->
+                        known = known.remove(assign.variable()).union(c.getFacts().setPart(assign.variable()));
+                case Assign assign -> known = known.remove(assign.variable());
+                default -> known = EMPTY;
+            }
+        }
+        result.forEach(PartialEvaluator::buildIndexes);
+        return result;
+    }
+
+    private static Rule fold(Rule rule, FactSet known) {
+        if (rule instanceof Const) {
+            return rule;
+        }
+        if (CommonSubexpressions.closed(rule) && CommonSubexpressions.pure(rule.ast())
+                && known.parts().containsAll(Rules.dependencies(rule))) {
+            return new Const(materialize(rule.apply(known)));
+        }
+        List<Rule> inputs = CommonSubexpressions.inputs(rule);
+        if (inputs.isEmpty()) {
+            return rule;
+        }
+        List<Rule> children = new ArrayList<>(rule.children());
+        boolean changed = false;
+        for (int i = 0; i < children.size(); i++) {
+            Rule child = children.get(i);
+            if (inputs.stream().anyMatch(input -> input == child)) {
+                Rule folded = fold(child, known);
+                changed |= folded != child;
+                children.set(i, folded);
+            }
+        }
+        return changed ? rule.withChildren(children) : rule;
+    }
+
+    /**
+     * Copy the facts into lists, so that lazy results (e.g. filtered views) are not computed again on every use.
+     */
+    private static FactSet materialize(FactSet facts) {
+        FactSet result = EMPTY;
+        for (String part : facts.parts()) {
+            result = result.union(new SinglePartFactSet(facts.get(part).stream().toList(), part));
+        }
+        return result;
+    }
+
+    /**
+     * Build the indexes that {@link SinglePartFactSet#filter} uses for "field_eq" filters on constants.
+     */
+    private static void buildIndexes(Rule rule) {
+        if (rule instanceof Filter filter && filter.getSelect() instanceof Const c) {
+            AstNode predicate = filter.getPredicate().ast();
+            if ("field_eq".equals(predicate.op()) && predicate.args().getFirst() instanceof String field) {
+                FactSet facts = c.getFacts();
+                for (String part : facts.parts()) {
+                    if (facts.get(part) instanceof SinglePartFactSet single) {
+                        single.buildIndex(field);
+                    }
+                }
+            }
+        }
+        rule.children().forEach(PartialEvaluator::buildIndexes);
+    }
+}
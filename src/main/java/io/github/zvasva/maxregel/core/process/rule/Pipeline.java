@@ -0,0 +1,135 @@
+package io.github.zvasva.maxregel.core.process.rule;
+
+import io.github.zvasva.maxregel.core.factset.FactSet;
+import io.github.zvasva.maxregel.core.process.AstNode;
+import io.github.zvasva.maxregel.core.process.Tracer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static io.github.zvasva.maxregel.core.factset.Empty.EMPTY;
+import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
+
+/**
+ * Applies a sequence of rules in a loop, instead of through nested "then" rules.
+ * This gives the same result as the right associative chain of {@link Rules#sequence(List)}, without using stack
+ * frames per rule, and with the identity and {@link ReturnIf} checks done once, up front.
+ * <p>
+ * A {@link ReturnIf} step (that is not the last step) is not applied itself: if its condition holds, its result is
+ * returned immediately, otherwise the next steps continue with the same input.
+ * <p>
+ * The steps are applied within one {@link Evaluation}, so they can reuse each other's results.
+ */
+public class Pipeline extends AbstractRule {
+
+    private final Rule[] steps;
+    private final boolean[] returns;
+
+    public Pipeline(List<Rule> steps) {
+        requireNonNullArg(steps, "steps");
+        this.steps = steps.stream().filter(step -> !"identity".equals(step.op())).toArray(Rule[]::new);
+        this.returns = new boolean[this.steps.length];
+        for (int i = 0; i < this.steps.length - 1; i++) {
+            returns[i] = this.steps[i] instanceof ReturnIf;
+        }
+    }
+
+    /**
+     * Create a pipeline for a rule: the rules of a script, the right associative chain of a "then" rule,
+     * or else the single rule itself.
+     * Only the right-hand sides of "then" rules are flattened, because a {@link ReturnIf} only skips the rules of
+     * the chain it is part of. Use {@link Rules#ensureRightAssociativeThen(Rule)} first, to flatten all of them.
+     *
+     * @param rule the rule to flatten
+     * @return a new pipeline
+     */
+    public static Pipeline of(Rule rule) {
+        if (rule instanceof Script script) {
+            return new Pipeline(script.getRules());
+        }
+        List<Rule> steps = new ArrayList<>();
+        Rule rest = rule;
+        while (Rules.isThen(rest)) {
+            steps.add(rest.children().get(0));
+            rest = rest.children().get(1);
+        }
+        steps.add(rest);
+        return new Pipeline(steps);
+    }
+
+    public List<Rule> getSteps() {
+        return Arrays.asList(steps);
+    }
+
+    @Override
+    public String op() {
+        return "pipeline";
+    }
+
+    @Override
+    public AstNode ast() {
+        return createNode(Arrays.stream(steps).map(Rule::ast).toArray());
+    }
+
+    @Override
+    public List<Rule> children() {
+        return getSteps();
+    }
+
+    @Override
+    public Rule withChildren(List<Rule> children) {
+        return new Pipeline(children);
+    }
+
+    @Override
+    public FactSet apply(FactSet facts) {
+        return Evaluation.run(() -> applySteps(facts));
+    }
+
+    private FactSet applySteps(FactSet facts) {
+        for (int i = 0; i < steps.length; i++) {
+            if (!returns[i]) {
+                facts = steps[i].apply(facts);
+            } else {
+                ReturnIf returnIf = (ReturnIf) steps[i];
+                if (returnIf.condition(facts)) {
+                    return returnIf.result(facts);
+                }
+            }
+        }
+        return facts;
+    }
+
+    @Override
+    public RuleResult apply(FactSet facts, Tracer tracer) {
+        return Evaluation.run(() -> applySteps(facts, tracer));
+    }
+
+    private RuleResult applySteps(FactSet facts, Tracer tracer) {
+        FactSet[] assigned = new FactSet[steps.length];
+        int n = 0;
+        FactSet returned = null;
+        for (int i = 0; i < steps.length; i++) {
+            if (!returns[i]) {
+                RuleResult result = steps[i].apply(facts, tracer);
+                facts = result.output();
+                assigned[n++] = result.newlyAssigned();
+            } else {
+                ReturnIf returnIf = (ReturnIf) steps[i];
+                if (returnIf.condition(facts)) {
+                    RuleResult result = returnIf.result(facts, tracer);
+                    facts = result.output();
+                    returned = result.newlyAssigned();
+                    break;
+                }
+            }
+        }
+        // union from right to left, just like nested then rules do
+        FactSet newlyAssigned = returned != null ? returned : n > 0 ? assigned[--n] : EMPTY;
+        while (n > 0) {
+            newlyAssigned = assigned[--n].union(newlyAssigned);
+        }
+        return new RuleResult(facts, newlyAssigned);
+    }
+}
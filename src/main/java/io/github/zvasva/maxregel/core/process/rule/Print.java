@@ -4,6 +4,8 @@ import io.github.zvasva.maxregel.core.factset.FactSet;
 import io.github.zvasva.maxregel.core.process.AstNode;
 import io.github.zvasva.maxregel.util.PrettyPrint;
 
+import java.util.List;
+
 import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
 
 /**
@@ -27,6 +29,16 @@ public class Print extends AbstractRule {
         this.message = requireNonNullArg(message, "message");
     }
 
+    @Override
+    public List<Rule> children() {
+        return List.of(select);
+    }
+
+    @Override
+    public Rule withChildren(List<Rule> children) {
+        return new Print(children.get(0), message);
+    }
+
     @Override
     public String op() {
         return "print";
@@ -6,6 +6,8 @@ import io.github.zvasva.maxregel.core.process.Tracer;
 import io.github.zvasva.maxregel.core.process.predicate.Exists;
 import io.github.zvasva.maxregel.core.process.predicate.Predicate;
 
+import java.util.List;
+
 import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
 
 /**
@@ -31,6 +33,28 @@ public class ReturnIf extends AbstractRule {
         this.resultSelect = requireNonNullArg(resultSelect, "resultSelect");
     }
 
+    public Rule getConditionSelect() {
+        return conditionSelect;
+    }
+
+    public Predicate<FactSet, FactSet> getCondition() {
+        return condition;
+    }
+
+    public Rule getResultSelect() {
+        return resultSelect;
+    }
+
+    @Override
+    public List<Rule> children() {
+        return List.of(conditionSelect, resultSelect);
+    }
+
+    @Override
+    public Rule withChildren(List<Rule> children) {
+        return new ReturnIf(children.get(0), condition, children.get(1));
+    }
+
     @Override
     public String op() {
         return "return_if";
@@ -1,10 +1,12 @@
 package io.github.zvasva.maxregel.core.process.rule;
 
 import io.github.zvasva.maxregel.core.factset.FactSet;
+import io.github.zvasva.maxregel.core.process.MaxRegelException;
 import io.github.zvasva.maxregel.core.process.Tracer;
 import io.github.zvasva.maxregel.core.process.UnaryOperation;
 import io.github.zvasva.maxregel.util.Collections;
 
+import java.util.List;
 import java.util.Map;
 
 import static io.github.zvasva.maxregel.core.factset.Empty.EMPTY;
@@ -48,6 +50,28 @@ public interface Rule extends UnaryOperation<FactSet> {
         return Collections.map("source", "MaxRegel.core.rule");
     }
 
+    /**
+     * The rules this rule is composed of, e.g. the rule that selects its input.
+     * Rules that report no children are treated as opaque leaves when a rule tree is rewritten,
+     * see {@link #withChildren(List)}.
+     * @return the direct sub rules, in a fixed order
+     */
+    default List<Rule> children() {
+        return List.of();
+    }
+
+    /**
+     * Create a copy of this rule with other children, e.g. rewritten or compiled versions of them.
+     * @param children the new sub rules, in the same order and number as {@link #children()}
+     * @return a new rule, or this rule if the children are the same
+     */
+    default Rule withChildren(List<Rule> children) {
+        if (!children.equals(children())) {
+            throw new MaxRegelException("Rule " + op() + " does not support replacing its children.");
+        }
+        return this;
+    }
+
     /**
      * An identity rule (input factset = output factset)
      * @return a new Rule
@@ -62,7 +86,7 @@ public interface Rule extends UnaryOperation<FactSet> {
      * @return a new (combined) rule
      */
     default Rule then(Rule other) {
-        return new io.github.zvasva.maxregel.core.process.rule.Then(this, other);
+        return Rules.then(this, other);
     }
 
 }
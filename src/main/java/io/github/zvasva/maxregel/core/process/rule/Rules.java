@@ -17,6 +17,7 @@ import io.github.zvasva.maxregel.util.Collections;
 import io.github.zvasva.maxregel.util.Iters;
 import io.github.zvasva.maxregel.util.PrettyPrint;
 
+import java.lang.ref.WeakReference;
 import java.util.*;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -31,21 +32,121 @@ import static java.util.stream.Collectors.toCollection;
  */
 public class Rules {
 
+    private static final Map<Rule, WeakReference<Rule>> INTERNED = new WeakHashMap<>();
+    private static final Set<String> STATEFUL = Set.of("once", "cached", "print", "archive");
+
     public static String toString(Rule rule) {
-        return rule.ast().toString();
+        return ast(rule).toString();
     }
 
     public static boolean equals(Rule a, Object b) {
         if (b instanceof Rule rb) {
-            return a.ast().equals(rb.ast());
+            return ast(a).equals(ast(rb));
         } else if (b instanceof AstNode nb) {
-            return a.ast().equals(nb);
+            return ast(a).equals(nb);
         }
         return false;
     }
 
     public static int hashCode(Rule a) {
-        return a == null ? 0 : a.ast().hashCode();
+        if (a == null) {
+            return 0;
+        }
+        return a instanceof AbstractRule r ? r.cachedHash() : structuralHash(a.ast());
+    }
+
+    /**
+     * The AST of a rule, which is cached for an {@link AbstractRule}.
+     */
+    private static AstNode ast(Rule rule) {
+        return rule instanceof AbstractRule r ? r.cachedAst() : rule.ast();
+    }
+
+    /**
+     * A hash code of an AST (or one of its arguments), based on the operators and arguments of all nodes.
+     * The info of the nodes is left out, because it is meta data that may still be updated after the hash is cached
+     * (see {@link #annotateDependencies(Rule)}). Equal ASTs have the same structural hash.
+     *
+     * @param obj an AST node, or an argument of one
+     * @return the hash code
+     */
+    public static int structuralHash(Object obj) {
+        if (obj instanceof AstNode node) {
+            return 31 * node.op().hashCode() + structuralHash(node.args());
+        }
+        if (obj instanceof List<?> list) {
+            int h = 1;
+            for (Object x : list) {
+                h = 31 * h + structuralHash(x);
+            }
+            return h;
+        }
+        return Objects.hashCode(obj);
+    }
+
+    /**
+     * Get a canonical instance of a rule: the first one that was interned with an equal AST.
+     * Rules that are loaded separately (e.g. many scripts that share building blocks) then share the same instances,
+     * including their cached ASTs and hashes. The children are interned first, so that equal sub rules are shared
+     * even if the rules that contain them are different.
+     * <p>
+     * Rules with state ({@link Once}, {@link Cached}) or side effects are not interned, and neither are their
+     * ancestors. The same holds for rules with info of their own ({@link Assign}, {@link BasicRule}), since it may be
+     * updated per script, e.g. by {@link #annotateDependencies(Rule)}. Their bodies are interned.
+     * Instances that are no longer used elsewhere can be garbage collected.
+     *
+     * @param rule the rule
+     * @return an equal rule, which may be the given one
+     */
+    public static Rule intern(Rule rule) {
+        return rule == null ? null : intern(rule, new boolean[1]);
+    }
+
+    /**
+     * @param ownInfo set to true if the rule or one of its descendants has info of its own
+     */
+    private static Rule intern(Rule rule, boolean[] ownInfo) {
+        List<Rule> children = rule.children();
+        boolean[] below = new boolean[1];
+        if (!children.isEmpty()) {
+            List<Rule> interned = new ArrayList<>(children.size());
+            boolean changed = false;
+            for (Rule child : children) {
+                Rule canonical = intern(child, below);
+                changed |= canonical != child;
+                interned.add(canonical);
+            }
+            if (changed) {
+                rule = rule.withChildren(interned);
+            }
+        }
+        boolean own = below[0] || rule instanceof Assign || rule instanceof BasicRule;
+        ownInfo[0] |= own;
+        if (own || !internable(ast(rule))) {
+            return rule;
+        }
+        synchronized (INTERNED) {
+            WeakReference<Rule> ref = INTERNED.get(rule);
+            Rule canonical = ref == null ? null : ref.get();
+            if (canonical == null) {
+                INTERNED.put(rule, new WeakReference<>(rule));
+                canonical = rule;
+            }
+            return canonical;
+        }
+    }
+
+    private static boolean internable(Object obj) {
+        if (obj instanceof AstNode node) {
+            return !STATEFUL.contains(node.op()) && node.args().stream().allMatch(Rules::internable);
+        }
+        if (obj instanceof Rule rule) {
+            return internable(ast(rule));
+        }
+        if (obj instanceof List<?> list) {
+            return list.stream().allMatch(Rules::internable);
+        }
+        return true;
     }
 
     public static Rule append(String variable, Rule rule) {
@@ -210,6 +311,26 @@ public class Rules {
     }
 
 
+    /**
+     * Chain two rules together: first a, then b.
+     * @param a the first rule
+     * @param b the later rule
+     * @return a new (combined) rule
+     */
+    public static Rule then(Rule a, Rule b) {
+        return new Then(a, b);
+    }
+
+    /**
+     * Check whether a rule is a {@link Then} rule.
+     * Within rule classes, the simple name Then refers to the inherited {@code UnaryOperation.Then}, so they use this.
+     * @param rule the rule to check
+     * @return true if the rule chains two rules
+     */
+    public static boolean isThen(Rule rule) {
+        return rule instanceof Then;
+    }
+
     public static Rule sequence(List<Rule> rules) {
         // Left associative sequence of rules
         // return rules.stream().reduce(new Identity(), Then::new);
@@ -243,7 +364,16 @@ public class Rules {
     }
 
 
+    /**
+     * Create a rule from its AST. Equal (sub) rules are {@link #intern(Rule) interned}.
+     * @param node the AST
+     * @return a rule
+     */
     public static Rule parse(AstNode node) {
+        return intern(parseNode(node));
+    }
+
+    private static Rule parseNode(AstNode node) {
         if (node == null) {
             return null;
         }
@@ -252,38 +382,38 @@ public class Rules {
         //Function<Integer, Rule> a = i ->  parse((AstNode) args.get(i));
 
         return switch (node.op()) {
-            case "aggregate_count" -> new Aggregate.Count(parse((AstNode) args.get(0)));
-            case "aggregate_sum" -> new Aggregate.Sum(parse((AstNode) args.get(0)));
-            case "aggregate_min" -> new Aggregate.Min(parse((AstNode) args.get(0)));
-            case "aggregate_max" -> new Aggregate.Max(parse((AstNode) args.get(0)));
-            case "aggregate_by" -> new AggregateBy(parse((AstNode) args.get(0)), (List<String>)args.get(1), (String)args.get(2), (Aggregate) parse((AstNode) args.get(3)));
-            case "assign_update", "+=" -> new AssignUpdate(args.get(0).toString(), parse((AstNode) args.get(1)));
-            case "assign_set", "=" -> new AssignSet(args.get(0).toString(), parse((AstNode) args.get(1)));
-            case "cached" -> new Cached(parse((AstNode) args.get(0)));
-            //case "case" -> new Case(parse((AstNode) args.get(0)), , parse((AstNode) args.get(2)), parse((AstNode) args.get(3)), args.get(4).toString());
-            case "compare" -> new Compare(args.get(0).toString(), unboundPredicate((String)args.get(1)), parse((AstNode) args.get(2)), parse((AstNode) args.get(3)));
-            case "concat" -> new Concat(parse((AstNode) args.get(0)), parse((AstNode) args.get(1)));
+            case "aggregate_count" -> new Aggregate.Count(parseNode((AstNode) args.get(0)));
+            case "aggregate_sum" -> new Aggregate.Sum(parseNode((AstNode) args.get(0)));
+            case "aggregate_min" -> new Aggregate.Min(parseNode((AstNode) args.get(0)));
+            case "aggregate_max" -> new Aggregate.Max(parseNode((AstNode) args.get(0)));
+            case "aggregate_by" -> new AggregateBy(parseNode((AstNode) args.get(0)), (List<String>)args.get(1), (String)args.get(2), (Aggregate) parseNode((AstNode) args.get(3)));
+            case "assign_update", "+=" -> new AssignUpdate(args.get(0).toString(), parseNode((AstNode) args.get(1)));
+            case "assign_set", "=" -> new AssignSet(args.get(0).toString(), parseNode((AstNode) args.get(1)));
+            case "cached" -> new Cached(parseNode((AstNode) args.get(0)));
+            //case "case" -> new Case(parseNode((AstNode) args.get(0)), , parseNode((AstNode) args.get(2)), parseNode((AstNode) args.get(3)), args.get(4).toString());
+            case "compare" -> new Compare(args.get(0).toString(), unboundPredicate((String)args.get(1)), parseNode((AstNode) args.get(2)), parseNode((AstNode) args.get(3)));
+            case "concat" -> new Concat(parseNode((AstNode) args.get(0)), parseNode((AstNode) args.get(1)));
             case "consolidate" -> new Consolidate(); // todo: select?
             case "const" -> new Const((FactSet) args.get(0));
-            case "count" -> new Count(parse((AstNode) args.get(0)), (String) args.get(1));
-            case "filter" -> new Filter(parse((AstNode) args.get(0)), (Predicate<Fact, FactSet>) Predicates.parse((AstNode) args.get(1)));
+            case "count" -> new Count(parseNode((AstNode) args.get(0)), (String) args.get(1));
+            case "filter" -> new Filter(parseNode((AstNode) args.get(0)), (Predicate<Fact, FactSet>) Predicates.parse((AstNode) args.get(1)));
             // todo factsetcase
-            case "flatmap" -> new FlatMap(parse((AstNode) args.get(0)), parse((AstNode) args.get(1)));
+            case "flatmap" -> new FlatMap(parseNode((AstNode) args.get(0)), parseNode((AstNode) args.get(1)));
             case "from" -> new From(args.get(0).toString());
             case "identity" -> new Identity();
-            case "join" -> new Join(parse((AstNode) args.get(0)), parse((AstNode) args.get(1)), (String)args.get(2), (String)args.get(3));
+            case "join" -> new Join(parseNode((AstNode) args.get(0)), parseNode((AstNode) args.get(1)), (String)args.get(2), (String)args.get(3));
             case "limit" -> new Limit((Long) args.get(1));
-            case "merge" -> new Merge(parse((AstNode) args.get(0)), parse((AstNode) args.get(1)));
+            case "merge" -> new Merge(parseNode((AstNode) args.get(0)), parseNode((AstNode) args.get(1)));
             case "name_prefix" -> new NamePrefix(args.get(1).toString());
-            case "once" -> new Once(parse((AstNode) args.get(0)));
-            case "print" -> new Print(parse((AstNode) args.get(0)), (String) args.get(1));
+            case "once" -> new Once(parseNode((AstNode) args.get(0)));
+            case "print" -> new Print(parseNode((AstNode) args.get(0)), (String) args.get(1));
             case "remove" -> new Remove(args.get(0).toString());
-            case "return_if" -> new ReturnIf(parse((AstNode) args.get(0)), (Predicate<FactSet, FactSet>) Predicates.parse2((AstNode) args.get(1)), parse((AstNode) args.get(2)));
-            case "script" -> new Script(args.stream().map(xs -> Rules.parse((AstNode) xs)).toList());
-            case "select_fields" -> new SelectFields(parse((AstNode) args.get(0)), (List<String>) args.get(1));
-            case "sort" -> new Sort(parse((AstNode) args.get(0)), args.get(1).toString(), Coerce.asBoolean(args.get(2)));
-            case "then" -> new Then(parse((AstNode) args.get(0)), parse((AstNode) args.get(1)));
-            case "zip" -> new Zip(binop((AstNode) args.get(0)), parse((AstNode) args.get(1)), parse((AstNode) args.get(2)));
+            case "return_if" -> new ReturnIf(parseNode((AstNode) args.get(0)), (Predicate<FactSet, FactSet>) Predicates.parse2((AstNode) args.get(1)), parseNode((AstNode) args.get(2)));
+            case "script" -> new Script(args.stream().map(xs -> Rules.parseNode((AstNode) xs)).toList());
+            case "select_fields" -> new SelectFields(parseNode((AstNode) args.get(0)), (List<String>) args.get(1));
+            case "sort" -> new Sort(parseNode((AstNode) args.get(0)), args.get(1).toString(), Coerce.asBoolean(args.get(2)));
+            case "then" -> new Then(parseNode((AstNode) args.get(0)), parseNode((AstNode) args.get(1)));
+            case "zip" -> new Zip(binop((AstNode) args.get(0)), parseNode((AstNode) args.get(1)), parseNode((AstNode) args.get(2)));
 
             default -> throw new MaxRegelException("Unsupported rule function name: " + node.op());
         };
@@ -382,6 +512,36 @@ public class Rules {
         });
     }
 
+    /**
+     * Collect the names of all parts that a rule reads, i.e. the arguments of all (nested) "from" rules.
+     * Unlike {@link #annotateDependencies(Rule)} this does not modify the rule, and it also looks at rules that are
+     * used as predicate parameters.
+     *
+     * @param rule the rule to inspect
+     * @return the part names, in order of appearance
+     */
+    public static Set<String> dependencies(Rule rule) {
+        Set<String> result = new LinkedHashSet<>();
+        collectDependencies(rule.ast(), result);
+        return result;
+    }
+
+    private static void collectDependencies(Object obj, Set<String> result) {
+        if (obj instanceof AstNode node) {
+            if ("from".equals(node.op())) {
+                result.add(node.args().get(0).toString());
+            } else {
+                node.args().forEach(arg -> collectDependencies(arg, result));
+            }
+        } else if (obj instanceof Rule rule) {
+            collectDependencies(rule.ast(), result);
+        } else if (obj instanceof Collection<?> c) {
+            c.forEach(el -> collectDependencies(el, result));
+        } else if (obj instanceof Map<?, ?> m) {
+            m.values().forEach(value -> collectDependencies(value, result));
+        }
+    }
+
     /**
      * Add rule.info.rule_statement that shows the pretty printed form of each assignment.
      *
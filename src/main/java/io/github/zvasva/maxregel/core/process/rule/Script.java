@@ -5,7 +5,14 @@ import io.github.zvasva.maxregel.core.process.AstNode;
 import io.github.zvasva.maxregel.core.process.Tracer;
 import io.github.zvasva.maxregel.util.Collections;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
 
@@ -16,19 +23,49 @@ import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNo
 public class Script extends AbstractRule {
 
     protected List<Rule> rules;
+    private final boolean optimize;
+    private Pipeline pipeline;
+    private final Map<Map<String, Set<String>>, Pipeline> pipelines = new ConcurrentHashMap<>();
+    private final Map<List<Object>, Pipeline> plans = new ConcurrentHashMap<>();
 
     public Script() {
-        this.rules = List.of();
+        this(List.of());
     }
 
     public Script(List<Rule> rules) {
+        this(rules, false);
+    }
+
+    /**
+     * @param rules the rules to apply in order
+     * @param optimize whether the rules are rewritten by an {@link Optimizer} before they are applied.
+     *                 The AST of the script stays the same. The rules are optimized for the schema of the input
+     *                 (see {@link Optimizer#fields(FactSet)}), which is read on every apply, and the rewritten rules
+     *                 are kept per schema.
+     */
+    public Script(List<Rule> rules, boolean optimize) {
         this.rules = requireNonNullArg(rules, "rules");
+        this.optimize = optimize;
+    }
+
+    public boolean isOptimized() {
+        return optimize;
     }
 
     public List<Rule> getRules() {
         return rules;
     }
 
+    @Override
+    public List<Rule> children() {
+        return rules;
+    }
+
+    @Override
+    public Rule withChildren(List<Rule> children) {
+        return new Script(children, optimize);
+    }
+
     @Override
     public String op() {
         return "script";
@@ -41,20 +78,131 @@ public class Script extends AbstractRule {
 
     @Override
     public RuleResult apply(FactSet factset, Tracer tracer) {
-        return Rules.sequence(rules).apply(factset, tracer);
+        return pipeline(factset).apply(factset, tracer);
     }
 
     @Override
     public FactSet apply(FactSet factset) {
-        return Rules.sequence(rules).apply(factset);
+        return pipeline(factset).apply(factset);
+    }
+
+    /**
+     * Apply only the rules that are needed to compute the requested parts, see {@link #slice(Collection)}.
+     * The output contains the requested parts, but other assigned parts may be missing.
+     * Other assigned parts are removed as soon as no later rule reads them (see {@link Liveness}), so their facts
+     * do not have to be kept in memory until the end.
+     * The plan is computed once per set of requested parts (and per schema of the input, if the script is optimized).
+     *
+     * @param factset the input facts
+     * @param requestedParts the part names the caller needs
+     * @return the output facts
+     */
+    public FactSet apply(FactSet factset, Collection<String> requestedParts) {
+        Set<String> parts = Set.copyOf(requestedParts);
+        Map<String, Set<String>> schema = schema(factset);
+        return plans.computeIfAbsent(List.of(parts, schema), key ->
+                new Pipeline(Liveness.release(optimized(slice(parts).getRules(), schema), parts))).apply(factset);
+    }
+
+    /**
+     * Diagnostic: the rules as they are applied to the given facts, i.e. rewritten for their schema if this script
+     * is optimized.
+     *
+     * @param factset the input facts
+     * @return the applied rules, in order
+     */
+    public List<Rule> plan(FactSet factset) {
+        return pipeline(factset).getSteps();
+    }
+
+    /**
+     * Diagnostic: the assignments that do not contribute to any of the requested parts,
+     * i.e. the ones that {@link #apply(FactSet, Collection)} skips.
+     *
+     * @param requestedParts the part names of interest
+     * @return the unused assignments, in order
+     */
+    public List<Assign> unusedAssignments(Collection<String> requestedParts) {
+        Script slice = slice(requestedParts);
+        Set<Rule> used = java.util.Collections.newSetFromMap(new IdentityHashMap<>());
+        used.addAll(slice.getRules());
+        List<Assign> unused = new ArrayList<>();
+        for (Rule rule : rules) {
+            if (rule instanceof Assign assign && !used.contains(rule)) {
+                unused.add(assign);
+            }
+        }
+        return unused;
+    }
+
+    /**
+     * The rules are applied in a loop, which gives the same result as applying {@link Rules#sequence(List)}.
+     * @return the (cached) pipeline of the rules, for the schema of the input if the script is optimized
+     */
+    private Pipeline pipeline(FactSet factset) {
+        if (optimize) {
+            return pipelines.computeIfAbsent(schema(factset), schema -> new Pipeline(optimized(rules, schema)));
+        }
+        Pipeline p = pipeline;
+        if (p == null) {
+            p = new Pipeline(rules);
+            pipeline = p;
+        }
+        return p;
+    }
+
+    private Map<String, Set<String>> schema(FactSet factset) {
+        return optimize ? Optimizer.fields(factset) : Map.of();
+    }
+
+    private List<Rule> optimized(List<Rule> rules, Map<String, Set<String>> schema) {
+        return optimize ? new Optimizer(schema).optimize(rules) : rules;
+    }
+
+    /**
+     * Get the part of this script that is needed to compute the given parts.
+     * Assignments that do not (transitively) contribute to one of these parts are left out.
+     * A rule that is not an assignment (e.g. a final {@code from("x")}) determines the whole output, so it is kept,
+     * together with everything that comes before it. The same holds for an assignment that may read any part
+     * (see {@link Liveness}).
+     *
+     * @param parts the part names of interest
+     * @return a script with a subset of the rules of this script, in the same order
+     */
+    public Script slice(Collection<String> parts) {
+        Set<String> needed = new HashSet<>(parts);
+        List<Rule> kept = new ArrayList<>();
+        for (int i = rules.size() - 1; i >= 0; i--) {
+            Rule rule = rules.get(i);
+            if (rule instanceof Assign assign) {
+                String variable = assign.variable();
+                boolean wildcard = "*".equals(variable);
+                if (wildcard || needed.contains(variable)) {
+                    kept.add(rule);
+                    if (!CommonSubexpressions.closed(assign.body())) {
+                        // e.g. a filter of the whole input: it may read any part
+                        kept.addAll(rules.subList(0, i).reversed());
+                        break;
+                    }
+                    if (!wildcard && assign.overwrite) {
+                        needed.remove(variable);
+                    }
+                    needed.addAll(Rules.dependencies(assign));
+                }
+            } else if (!(rule instanceof Identity)) {
+                kept.addAll(rules.subList(0, i + 1).reversed());
+                break;
+            }
+        }
+        return new Script(kept.reversed(), optimize);
     }
 
     public Script append (Script script) {
-        return new Script(Collections.concat(this.rules, script.getRules()));
+        return new Script(Collections.concat(this.rules, script.getRules()), optimize);
     }
 
     public Script append(Rule rule) {
-        return new Script(Collections.concat(this.rules, List.of(rule)));
+        return new Script(Collections.concat(this.rules, List.of(rule)), optimize);
     }
 
 }
@@ -4,13 +4,13 @@ import io.github.zvasva.maxregel.core.factset.FactSet;
 import io.github.zvasva.maxregel.core.process.AstNode;
 import io.github.zvasva.maxregel.core.process.UnaryOperation;
 import io.github.zvasva.maxregel.core.term.Fact;
-import io.github.zvasva.maxregel.core.term.MapTerm;
+import io.github.zvasva.maxregel.core.term.ProjectedTerm;
 import io.github.zvasva.maxregel.core.term.Term;
 
 import java.util.Arrays;
-import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
 import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
 
@@ -35,21 +35,32 @@ public class SelectFields extends AbstractRule {
         this(Arrays.asList(fieldNames));
     }
 
+    public Rule getSelect() {
+        return select;
+    }
+
+    public List<String> getFieldNames() {
+        return fieldNames;
+    }
+
+    @Override
+    public List<Rule> children() {
+        return List.of(select);
+    }
+
+    @Override
+    public Rule withChildren(List<Rule> children) {
+        return new SelectFields(children.get(0), fieldNames);
+    }
+
     @Override
     public String op() {
         return "select";
     }
 
     public UnaryOperation<Fact> factOperation() {
-        return UnaryOperation.of(arg -> {
-            Term term = arg.getTerm();
-            Map<String, Object> map = new LinkedHashMap<>();
-            for (String fieldName : fieldNames) {
-                map.put(fieldName, term.get(fieldName));
-            }
-
-            return new Fact(new MapTerm(map), arg.getInfo());
-        });
+        final Set<String> fields = new LinkedHashSet<>(fieldNames);
+        return UnaryOperation.of(arg -> new Fact(new ProjectedTerm(arg.getTerm(), fields), arg.getInfo()));
     }
 
     @Override
@@ -0,0 +1,115 @@
+package io.github.zvasva.maxregel.core.process.rule;
+
+import io.github.zvasva.maxregel.core.factset.FactSet;
+import io.github.zvasva.maxregel.core.process.AstNode;
+import io.github.zvasva.maxregel.core.process.Tracer;
+
+import java.util.Collection;
+import java.util.Map;
+
+import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
+
+/**
+ * A pure rule that only reads the given parts, and that is used in several places, so its result can be reused.
+ * Within one {@link Evaluation} (e.g. of a {@link Script}), the last result is kept, together with the parts it was
+ * computed from. As long as these parts are the same (identical) instances, the rule is not applied again.
+ * Since fact sets do not change, this gives the same result. Outside of an evaluation, the rule is always applied.
+ * With a tracer that does not trace ({@link Tracer.None}, e.g. in {@link io.github.zvasva.maxregel.core.process.Inference})
+ * the result is reused as well, but any other tracer sees every occurrence applied.
+ * <p>
+ * Created by {@link CommonSubexpressions}. It has the AST of the shared rule, so it is equal to it.
+ * It reports no children, so rewriting a rule tree keeps the same (shared) instance in all places.
+ *
+ * @author Arvid Halma
+ */
+public class Shared extends AbstractRule {
+
+    private final Rule rule;
+    private final String[] parts;
+
+    /**
+     * The last result, and the newly assigned facts if it was applied with a tracer (or else null).
+     */
+    private record Memo(FactSet[] input, FactSet result, FactSet newlyAssigned) {
+    }
+
+    /**
+     * @param rule the shared rule, which should not have side effects
+     * @param parts all parts the rule reads
+     */
+    public Shared(Rule rule, Collection<String> parts) {
+        this.rule = requireNonNullArg(rule, "rule");
+        this.parts = requireNonNullArg(parts, "parts").toArray(String[]::new);
+    }
+
+    public Rule getRule() {
+        return rule;
+    }
+
+    @Override
+    public String op() {
+        return rule.op();
+    }
+
+    @Override
+    public Map<String, Object> info() {
+        return rule.info();
+    }
+
+    @Override
+    public AstNode ast() {
+        return rule.ast();
+    }
+
+    @Override
+    public FactSet apply(FactSet facts) {
+        Evaluation evaluation = Evaluation.current();
+        if (evaluation == null) {
+            return rule.apply(facts);
+        }
+        FactSet[] input = input(facts);
+        Memo m = evaluation.get(this);
+        if (m != null && same(m.input(), input)) {
+            return m.result();
+        }
+        FactSet result = rule.apply(facts);
+        evaluation.put(this, new Memo(input, result, null));
+        return result;
+    }
+
+    /**
+     * With a tracer that traces, the rule is applied as usual, so that every occurrence is traced.
+     */
+    @Override
+    public RuleResult apply(FactSet facts, Tracer tracer) {
+        Evaluation evaluation = Evaluation.current();
+        if (evaluation == null || !(tracer instanceof Tracer.None)) {
+            return rule.apply(facts, tracer);
+        }
+        FactSet[] input = input(facts);
+        Memo m = evaluation.get(this);
+        if (m != null && m.newlyAssigned() != null && same(m.input(), input)) {
+            return new RuleResult(m.result(), m.newlyAssigned());
+        }
+        RuleResult result = rule.apply(facts, tracer);
+        evaluation.put(this, new Memo(input, result.output(), result.newlyAssigned()));
+        return result;
+    }
+
+    private FactSet[] input(FactSet facts) {
+        FactSet[] input = new FactSet[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            input[i] = facts.get(parts[i]);
+        }
+        return input;
+    }
+
+    private static boolean same(FactSet[] a, FactSet[] b) {
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
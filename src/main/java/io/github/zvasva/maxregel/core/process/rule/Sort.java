@@ -4,6 +4,7 @@ import io.github.zvasva.maxregel.core.factset.FactSet;
 import io.github.zvasva.maxregel.core.factset.SinglePartFactSet;
 import io.github.zvasva.maxregel.core.process.AstNode;
 import io.github.zvasva.maxregel.core.term.Fact;
+import io.github.zvasva.maxregel.core.term.FieldAccessor;
 
 import java.util.Comparator;
 import java.util.List;
@@ -48,6 +49,16 @@ public class Sort extends AbstractRule {
         this.descending = descending;
     }
 
+    @Override
+    public List<Rule> children() {
+        return List.of(select);
+    }
+
+    @Override
+    public Rule withChildren(List<Rule> children) {
+        return new Sort(children.get(0), fieldName, descending);
+    }
+
     @Override
     public String op() {
         return "sort";
@@ -61,10 +72,11 @@ public class Sort extends AbstractRule {
     @Override
     public FactSet apply(FactSet factset) {
         FactSet selected = select.apply(factset);
-        
+        final FieldAccessor accessor = FieldAccessor.of(fieldName);
+
         Comparator<Fact> comparator = Comparator.comparing(
             fact -> {
-                Object value = fact.get(fieldName);
+                Object value = fact.get(accessor);
                 if (value == null) return null;
                 if (!(value instanceof Comparable)) {
                     throw new IllegalArgumentException("Field '" + fieldName + "' is not Comparable: " + value.getClass());
@@ -4,14 +4,18 @@ import io.github.zvasva.maxregel.core.factset.FactSet;
 import io.github.zvasva.maxregel.core.process.AstNode;
 import io.github.zvasva.maxregel.core.process.Tracer;
 
+import java.util.List;
+
 import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
 
 /**
  * First apply rule <i>a</i>, then apply rule <i>b</i> on the result.
+ * Both are applied within one {@link Evaluation}, so they can reuse each other's results.
  */
 public class Then extends AbstractRule {
 
     private final Rule a, b;
+    private Pipeline pipeline;
 
     public Then(Rule a, Rule b) {
         this.a = requireNonNullArg(a, "a");
@@ -26,6 +30,16 @@ public class Then extends AbstractRule {
         return b;
     }
 
+    @Override
+    public List<Rule> children() {
+        return List.of(a, b);
+    }
+
+    @Override
+    public Rule withChildren(List<Rule> children) {
+        return Rules.then(children.get(0), children.get(1));
+    }
+
     @Override
     public String op() {
         return "then";
@@ -36,8 +50,30 @@ public class Then extends AbstractRule {
         return createNode(a.ast(), b.ast());
     }
 
+    /**
+     * Long chains (then(a, then(b, then(c, ...)))) are applied in a loop, instead of recursively.
+     * @return the (cached) pipeline, or null if b is not a then rule
+     */
+    private Pipeline pipeline() {
+        Pipeline p = pipeline;
+        if (p == null && Rules.isThen(b)) {
+            p = Pipeline.of(this);
+            pipeline = p;
+        }
+        return p;
+    }
+
     @Override
     public RuleResult apply(FactSet factset, Tracer tracer) {
+        Pipeline p = pipeline();
+        if (p != null) {
+            return p.apply(factset, tracer);
+        }
+        return Evaluation.run(() -> applyBoth(factset, tracer));
+    }
+
+    private RuleResult applyBoth(FactSet factset, Tracer tracer) {
+
         // Skip identity rules to avoid unnecessary computation
         if("identity".equals(a.op())){
             return b.apply(factset, tracer);
@@ -67,6 +103,15 @@ public class Then extends AbstractRule {
 
     @Override
     public FactSet apply(FactSet factset) {
+        Pipeline p = pipeline();
+        if (p != null) {
+            return p.apply(factset);
+        }
+        return Evaluation.run(() -> applyBoth(factset));
+    }
+
+    private FactSet applyBoth(FactSet factset) {
+
         // Skip identity rules to avoid unnecessary computation
         if("identity".equals(a.op())){
             return b.apply(factset);
@@ -21,11 +21,13 @@ public class Zip extends AbstractRule {
 
     private final Rule selectA, selectB;
     private final BinaryOperation<Fact> operation;
+    private final ForkJoinOperands operands;
 
     public Zip(BinaryOperation<Fact> operation, Rule selectA, Rule selectB) {
         this.operation = requireNonNullArg(operation, "operation");
         this.selectA = requireNonNullArg(selectA, "selectA");
         this.selectB = requireNonNullArg(selectB, "selectB");
+        this.operands = new ForkJoinOperands(selectA, selectB);
     }
 
     public Rule getSelectA() {
@@ -40,6 +42,16 @@ public class Zip extends AbstractRule {
         return operation;
     }
 
+    @Override
+    public List<Rule> children() {
+        return List.of(selectA, selectB);
+    }
+
+    @Override
+    public Rule withChildren(List<Rule> children) {
+        return new Zip(operation, children.get(0), children.get(1));
+    }
+
     @Override
     public String op() {
         return "zip";
@@ -52,8 +64,9 @@ public class Zip extends AbstractRule {
 
     @Override
     public FactSet apply(FactSet factset) {
-        FactSet fsA = selectA.apply(factset);
-        FactSet fsB = selectB.apply(factset);
+        ForkJoinOperands.Results results = operands.apply(factset);
+        FactSet fsA = results.a();
+        FactSet fsB = results.b();
 
         Iterator<Fact> iterA = fsA.iterator();
         Iterator<Fact> iterB = fsB.iterator();
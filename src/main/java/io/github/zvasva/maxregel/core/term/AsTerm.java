@@ -0,0 +1,24 @@
+package io.github.zvasva.maxregel.core.term;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class or record to get a generated, reflection-free {@link Term} adapter.
+ * <p>
+ * The adapter is generated at compile time by {@link io.github.zvasva.maxregel.processor.AsTermProcessor}, when that
+ * annotation processor is enabled (it is not registered automatically). For a class {@code com.example.Person}
+ * the adapter is {@code com.example.PersonAsTerm}, see {@link Terms#adapterClassName(String)}.
+ * {@link Terms#asTerm(Object)} and {@link io.github.zvasva.maxregel.core.factset.FactSets#fromObjects(String, java.util.Collection)}
+ * use the adapter when it exists, and fall back to reflection ({@link RecordAsTerm}, {@link ObjectAsTerm}) otherwise.
+ *
+ * @author Arvid Halma
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface AsTerm {
+}
@@ -41,6 +41,10 @@ public class Fact {
         return term.get(key);
     }
 
+    public Object get(FieldAccessor accessor) {
+        return accessor.get(term);
+    }
+
     public Term getTerm() {
         return term;
     }
@@ -73,7 +77,7 @@ public class Fact {
     }
 
     public Fact union(Fact other) {
-        Fact union = new Fact(Terms.union(term, other.term));
+        Fact union = new Fact(new JoinedTerm(term, other.term));
         union.info = Collections.merge(this.info, other.info);
         union.rules   = Collections.concat(this.rules, other.rules);
         union.epoch   = Math.max(this.epoch, other.epoch);
@@ -0,0 +1,75 @@
+package io.github.zvasva.maxregel.core.term;
+
+import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
+
+/**
+ * Reads a single field from {@link Term}s.
+ * <p>
+ * Looking up a field by name can be costly for some terms (e.g. finding a getter with reflection). An accessor does
+ * that lookup once, and can then be reused for many terms. Obtain one with {@link Term#accessor(String)} if all terms
+ * are alike, or with {@link #of(String)} if the kind of terms is not known upfront.
+ * Accessors always give the same value as {@link Term#get(String)}: terms that do not fit the resolved lookup are read
+ * with a plain get.
+ *
+ * @author Arvid Halma
+ */
+public interface FieldAccessor {
+
+    /**
+     * @return the name of the field that is read
+     */
+    String field();
+
+    /**
+     * Retrieve the field's value
+     * @param term the term to read from
+     * @return the value or null if the field does not exist.
+     */
+    Object get(Term term);
+
+    /**
+     * An accessor that resolves itself for the first term it reads.
+     * @param field field name
+     * @return a new accessor
+     */
+    static FieldAccessor of(String field) {
+        return new Adaptive(field);
+    }
+
+    /**
+     * Reads using {@link Term#get(String)}.
+     */
+    record Generic(String field) implements FieldAccessor {
+        @Override
+        public Object get(Term term) {
+            return term.get(field);
+        }
+    }
+
+    /**
+     * Resolves the accessor of the first term it sees, and uses it from then on.
+     */
+    final class Adaptive implements FieldAccessor {
+        private final String field;
+        private FieldAccessor resolved; // benign race: resolving twice gives an equivalent accessor
+
+        public Adaptive(String field) {
+            this.field = requireNonNullArg(field, "field");
+        }
+
+        @Override
+        public String field() {
+            return field;
+        }
+
+        @Override
+        public Object get(Term term) {
+            FieldAccessor accessor = resolved;
+            if (accessor == null) {
+                accessor = term.accessor(field);
+                resolved = accessor;
+            }
+            return accessor.get(term);
+        }
+    }
+}
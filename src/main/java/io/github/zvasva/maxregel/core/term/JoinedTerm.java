@@ -0,0 +1,51 @@
+package io.github.zvasva.maxregel.core.term;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
+
+/**
+ * A read-only view on the union of two terms, without copying their fields.
+ * If both terms contain the same field, the value from the second term is used (like {@link Terms#union(Term, Term)}).
+ * Use {@link Terms#materialize(Term)} to get an independent copy.
+ *
+ * @author Arvid Halma
+ */
+public class JoinedTerm extends AbstractTerm {
+    private final Term a;
+    private final Term b;
+
+    private int hash = 0xCAFEBABE; // use a non-zero value to indicate uninitialized
+
+    public JoinedTerm(Term a, Term b) {
+        this.a = requireNonNullArg(a, "a");
+        this.b = requireNonNullArg(b, "b");
+    }
+
+    @Override
+    public boolean has(String key) {
+        return b.has(key) || a.has(key);
+    }
+
+    @Override
+    public Object get(String key) {
+        return b.has(key) ? b.get(key) : a.get(key);
+    }
+
+    @Override
+    public List<String> keys() {
+        Set<String> keys = new LinkedHashSet<>(a.keys());
+        keys.addAll(b.keys());
+        return new ArrayList<>(keys);
+    }
+
+    @Override
+    public int hashCode() {
+        if(hash == 0xCAFEBABE)
+            this.hash = Terms.hashCode(this); // the hash is calculated on demand and cached
+        return hash;
+    }
+}
@@ -50,6 +50,11 @@ public class MapTerm extends AbstractTerm {
         return key == null ? null : map.get(key);
     }
 
+    @Override
+    public FieldAccessor accessor(String key) {
+        return new MapAccessor(key);
+    }
+
     @Override
     public List<String> keys() {
         return new ArrayList<>(map.keySet());
@@ -57,8 +62,21 @@ public class MapTerm extends AbstractTerm {
 
     @Override
     public int hashCode() {
-        if(hash == Integer.MAX_VALUE)
-            this.hash = Terms.hashCode(this); // cache
+        if(hash == 0xCAFEBABE)
+            this.hash = Terms.hashCode(this); // the hash is calculated on demand and cached
         return hash;
     }
+
+    /**
+     * Reads directly from the backing map of MapTerms.
+     */
+    private record MapAccessor(String field) implements FieldAccessor {
+        @Override
+        public Object get(Term term) {
+            if (term instanceof MapTerm mapTerm) {
+                return field == null ? null : mapTerm.map.get(field);
+            }
+            return term.get(field);
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package io.github.zvasva.maxregel.core.term;
 
-import io.github.zvasva.maxregel.util.ReflectionUtil;
+import io.github.zvasva.maxregel.util.ClassMetadata;
+import io.github.zvasva.maxregel.util.ReflectionUtil.ValueSource;
 
 import java.util.List;
 
@@ -14,6 +15,7 @@ import java.util.List;
 public class ObjectAsTerm extends AbstractTerm {
     protected final Object obj;
 
+    private ClassMetadata metadata; // resolved on first use
     private int hash = 0xCAFEBABE; // use a non-zero value to indicate uninitialized
 
     public ObjectAsTerm() {
@@ -26,17 +28,32 @@ public class ObjectAsTerm extends AbstractTerm {
 
     @Override
     public boolean has(String key) {
-        return ReflectionUtil.hasField(obj, key);
+        return metadata().has(key, ValueSource.ANY);
     }
 
     @Override
     public Object get(String key) {
-        return key == null ? null : ReflectionUtil.getValue(obj, key);
+        return key == null ? null : metadata().get(obj, key, ValueSource.ANY);
+    }
+
+    @Override
+    public FieldAccessor accessor(String key) {
+        return new ReflectiveAccessor(key, getClass(), obj.getClass(), t -> ((ObjectAsTerm) t).obj,
+                metadata().reader(key, ValueSource.ANY));
     }
 
     @Override
     public List<String> keys() {
-        return ReflectionUtil.allFieldNames(obj);
+        return metadata().fieldNames();
+    }
+
+    private ClassMetadata metadata() {
+        ClassMetadata m = metadata;
+        if (m == null) {
+            m = ClassMetadata.of(obj.getClass());
+            metadata = m;
+        }
+        return m;
     }
 
     @Override
@@ -0,0 +1,58 @@
+package io.github.zvasva.maxregel.core.term;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
+
+/**
+ * A read-only view on a subset of the fields of a term, without copying them.
+ * All given field names are present in the view. Fields that the underlying term lacks have a null value.
+ * Use {@link Terms#materialize(Term)} to get an independent copy.
+ *
+ * @author Arvid Halma
+ */
+public class ProjectedTerm extends AbstractTerm {
+    private final Term term;
+    private final Set<String> fields;
+
+    private int hash = 0xCAFEBABE; // use a non-zero value to indicate uninitialized
+
+    public ProjectedTerm(Term term, List<String> fields) {
+        this(term, new LinkedHashSet<>(requireNonNullArg(fields, "fields")));
+    }
+
+    /**
+     * Create a view that shares the given field set. This avoids creating a set per term when projecting many terms.
+     * @param term the underlying term
+     * @param fields the field names to expose, the set should not be modified afterwards.
+     */
+    public ProjectedTerm(Term term, Set<String> fields) {
+        this.term = requireNonNullArg(term, "term");
+        this.fields = requireNonNullArg(fields, "fields");
+    }
+
+    @Override
+    public boolean has(String key) {
+        return fields.contains(key);
+    }
+
+    @Override
+    public Object get(String key) {
+        return fields.contains(key) ? term.get(key) : null;
+    }
+
+    @Override
+    public List<String> keys() {
+        return new ArrayList<>(fields);
+    }
+
+    @Override
+    public int hashCode() {
+        if(hash == 0xCAFEBABE)
+            this.hash = Terms.hashCode(this); // the hash is calculated on demand and cached
+        return hash;
+    }
+}
@@ -0,0 +1,48 @@
+package io.github.zvasva.maxregel.core.term;
+
+import java.util.function.Function;
+
+/**
+ * Accessor for terms that wrap an object, with a field lookup that was resolved for the class of that object.
+ * Terms of another kind, or wrapping objects of another class, are read with {@link Term#get(String)}.
+ *
+ * @author Arvid Halma
+ */
+class ReflectiveAccessor implements FieldAccessor {
+    private final String field;
+    private final Class<?> termClass;
+    private final Class<?> objectClass;
+    private final Function<Term, Object> unwrap;
+    private final Function<Object, Object> reader;
+
+    /**
+     * @param field       the field name
+     * @param termClass   the exact term class this accessor is resolved for
+     * @param objectClass the exact class of the wrapped objects
+     * @param unwrap      get the wrapped object from a term of class termClass
+     * @param reader      reads the field from the wrapped object, or null if the class has no such field
+     */
+    ReflectiveAccessor(String field, Class<?> termClass, Class<?> objectClass, Function<Term, Object> unwrap, Function<Object, Object> reader) {
+        this.field = field;
+        this.termClass = termClass;
+        this.objectClass = objectClass;
+        this.unwrap = unwrap;
+        this.reader = reader;
+    }
+
+    @Override
+    public String field() {
+        return field;
+    }
+
+    @Override
+    public Object get(Term term) {
+        if (term.getClass() == termClass) {
+            Object obj = unwrap.apply(term);
+            if (obj != null && obj.getClass() == objectClass) {
+                return reader == null ? null : reader.apply(obj);
+            }
+        }
+        return term.get(field);
+    }
+}
@@ -0,0 +1,69 @@
+package io.github.zvasva.maxregel.core.term;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.github.zvasva.maxregel.core.process.MaxRegelException.requireNonNullArg;
+
+/**
+ * A read-only view on a term with some fields renamed, without copying them.
+ * The mapping goes from old to new field names. Renamed fields are always present under their new name
+ * (with a null value if the underlying term lacks the old field), and they are no longer available under their
+ * old name. A new name shadows an existing field with that name.
+ * Use {@link Terms#materialize(Term)} to get an independent copy.
+ *
+ * @author Arvid Halma
+ */
+public class RenamedTerm extends AbstractTerm {
+    private final Term term;
+    private final Map<String, String> mapping; // old -> new
+    private final Map<String, String> inverse; // new -> old
+
+    private int hash = 0xCAFEBABE; // use a non-zero value to indicate uninitialized
+
+    public RenamedTerm(Term term, String oldName, String newName) {
+        this(term, Map.of(requireNonNullArg(oldName, "oldName"), requireNonNullArg(newName, "newName")));
+    }
+
+    public RenamedTerm(Term term, Map<String, String> mapping) {
+        this.term = requireNonNullArg(term, "term");
+        this.mapping = requireNonNullArg(mapping, "mapping");
+        this.inverse = new HashMap<>(mapping.size());
+        mapping.forEach((oldName, newName) -> inverse.put(newName, oldName));
+    }
+
+    @Override
+    public boolean has(String key) {
+        return inverse.containsKey(key) || (!mapping.containsKey(key) && term.has(key));
+    }
+
+    @Override
+    public Object get(String key) {
+        String oldName = inverse.get(key);
+        if (oldName != null) {
+            return term.get(oldName);
+        }
+        return mapping.containsKey(key) ? null : term.get(key);
+    }
+
+    @Override
+    public List<String> keys() {
+        List<String> keys = new ArrayList<>();
+        for (String key : term.keys()) {
+            if (!mapping.containsKey(key) && !inverse.containsKey(key)) {
+                keys.add(key);
+            }
+        }
+        keys.addAll(mapping.values());
+        return keys;
+    }
+
+    @Override
+    public int hashCode() {
+        if(hash == 0xCAFEBABE)
+            this.hash = Terms.hashCode(this); // the hash is calculated on demand and cached
+        return hash;
+    }
+}
@@ -29,6 +29,17 @@ public interface Term {
      */
     Object get(String key);
 
+    /**
+     * Get an accessor to read a field from this term, and from terms like it.
+     * Implementations can do the work of looking up the field once, instead of on every {@link #get(String)}.
+     *
+     * @param key field name
+     * @return an accessor that gives the same values as {@link #get(String)}, for any term.
+     */
+    default FieldAccessor accessor(String key) {
+        return new FieldAccessor.Generic(key);
+    }
+
     /**
      * Yield all field names
      * @return the different names
@@ -1,6 +1,12 @@
 package io.github.zvasva.maxregel.core.term;
 
+import io.github.zvasva.maxregel.core.process.MaxRegelException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
@@ -10,6 +16,8 @@ import java.util.*;
  */
 public class Terms {
 
+    private static final Map<Class<?>, Optional<MethodHandle>> ADAPTERS = new ConcurrentHashMap<>();
+
     /**
      * Get first value of first field.
      * @param term the container
@@ -142,6 +150,66 @@ public class Terms {
         return new MapTerm(content);
     }
 
+    /**
+     * Copies the fields of a term into a {@link MapTerm}, unless it already is one.
+     * Useful to detach a view (like {@link JoinedTerm}, {@link ProjectedTerm} or {@link RenamedTerm}) from the
+     * terms it reads from, e.g. before keeping it around for a long time.
+     *
+     * @param t the term to copy
+     * @return a map based term with the same fields and values
+     */
+    public static Term materialize(Term t) {
+        return t instanceof MapTerm ? t : new MapTerm(asMap(t));
+    }
+
+    /**
+     * The name of the class that {@link io.github.zvasva.maxregel.processor.AsTermProcessor} generates as
+     * {@link Term} adapter for a class annotated with {@link AsTerm}. Nested classes are separated with an underscore,
+     * e.g. {@code com.example.Outer$Inner} becomes {@code com.example.Outer_InnerAsTerm}.
+     *
+     * @param className the binary name of the annotated class
+     * @return the binary name of the adapter class
+     */
+    public static String adapterClassName(String className) {
+        return className.replace('$', '_') + "AsTerm";
+    }
+
+    /**
+     * View an object as a term. Terms are returned as is. For other objects, the generated adapter
+     * (see {@link AsTerm}) is used when it is available, and reflection otherwise.
+     *
+     * @param obj the object to wrap
+     * @return a term that reads the fields of the object
+     */
+    public static Term asTerm(Object obj) {
+        if (obj instanceof Term term) {
+            return term;
+        }
+        MethodHandle adapter = ADAPTERS.computeIfAbsent(obj.getClass(), Terms::findAdapter).orElse(null);
+        if (adapter != null) {
+            try {
+                return (Term) adapter.invoke(obj);
+            } catch (Throwable e) {
+                throw new MaxRegelException("Could not create term adapter for " + obj.getClass().getName(), e);
+            }
+        }
+        return obj instanceof Record r ? new RecordAsTerm(r) : new ObjectAsTerm(obj);
+    }
+
+    private static Optional<MethodHandle> findAdapter(Class<?> clazz) {
+        if (clazz.getClassLoader() == null) {
+            // JDK classes have no adapters
+            return Optional.empty();
+        }
+        try {
+            Class<?> adapterClass = Class.forName(adapterClassName(clazz.getName()), true, clazz.getClassLoader());
+            MethodHandle constructor = MethodHandles.publicLookup().unreflectConstructor(adapterClass.getConstructor(clazz));
+            return Optional.of(constructor.asType(MethodType.methodType(Term.class, Object.class)));
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return Optional.empty();
+        }
+    }
+
     /**
      * Creates a new term with fields that are present in both given terms and have the same value.
      *
@@ -1,7 +1,9 @@
 package io.github.zvasva.maxregel.db;
 
 import io.github.zvasva.maxregel.core.factset.FactSet;
+import io.github.zvasva.maxregel.core.factset.FieldStatistics;
 import io.github.zvasva.maxregel.core.factset.MultiPartFactSet;
+import io.github.zvasva.maxregel.core.factset.PartStatistics;
 import io.github.zvasva.maxregel.core.factset.SinglePartFactSet;
 import io.github.zvasva.maxregel.core.process.AstNode;
 import io.github.zvasva.maxregel.core.process.UnaryOperation;
@@ -12,10 +14,14 @@ import io.github.zvasva.maxregel.util.Iters;
 
 import java.sql.Connection;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -140,6 +146,8 @@ public class JdbcFactSet extends MultiPartFactSet {
             case "field_geq" -> "(\"" + args.get(0) + "\" >= " + sqlPredicate(args.get(1)) + ")";
             case "field_lt" -> "(\"" + args.get(0) + "\" < " + sqlPredicate(args.get(1)) + ")";
             case "field_leq" -> "(\"" + args.get(0) + "\" <= " + sqlPredicate(args.get(1)) + ")";
+            case "valid_at" -> "((\"" + args.get(0) + "\" IS NULL OR \"" + args.get(0) + "\" <= " + sqlPredicate(args.get(2)) + ")"
+                    + " AND (\"" + args.get(1) + "\" IS NULL OR \"" + args.get(1) + "\" > " + sqlPredicate(args.get(2)) + "))";
             // todo: escalate to MultiPartFactSet or implement in SQL
 //            case "field_in" -> "(" + sqlPredicate(args.get(0)) + " IN " + sqlPredicate(args.get(1)) + ")";
 //            case "field_contains" -> "(" + sqlPredicate(args.get(0)) + " contains " + sqlPredicate(args.get(1)) + ")";
@@ -172,6 +180,63 @@ public class JdbcFactSet extends MultiPartFactSet {
         return size() == 0;
     }
 
+    /**
+     * Statistics are computed by the database, with one aggregate query for all columns
+     * and one query per numeric column for its histogram.
+     * Note that the distinct count is exact here, and that the fact operation is not taken into account.
+     */
+    @Override
+    protected PartStatistics collectStatistics(String part) {
+        if (!parts.contains(part)) {
+            return PartStatistics.collect(part, EMPTY);
+        }
+        try {
+            List<String> columns = new ArrayList<>();
+            ResultSetMetaData metaData = SqlUtil.query(connection, "SELECT * FROM " + part + " WHERE 1 = 0").getMetaData();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                columns.add(metaData.getColumnLabel(i));
+            }
+            StringBuilder sql = new StringBuilder("SELECT COUNT(*)");
+            for (String column : columns) {
+                String c = "\"" + column + "\"";
+                sql.append(", COUNT(").append(c).append("), COUNT(DISTINCT ").append(c).append("), MIN(").append(c).append("), MAX(").append(c).append(")");
+            }
+            ResultSet resultSet = SqlUtil.query(connection, sql.append(" FROM ").append(part).toString());
+            resultSet.next();
+            long rowCount = resultSet.getLong(1);
+            Map<String, FieldStatistics> fields = new LinkedHashMap<>();
+            for (int i = 0; i < columns.size(); i++) {
+                String column = columns.get(i);
+                int offset = 2 + 4 * i;
+                Object min = resultSet.getObject(offset + 2);
+                Object max = resultSet.getObject(offset + 3);
+                long[] histogram = new long[0];
+                if (min instanceof Number minNumber && max instanceof Number maxNumber) {
+                    min = minNumber.doubleValue();
+                    max = maxNumber.doubleValue();
+                    histogram = histogram(part, column, (Double) min, (Double) max);
+                }
+                fields.put(column, new FieldStatistics(column, rowCount, resultSet.getLong(offset), resultSet.getLong(offset + 1), min, max, histogram));
+            }
+            return new PartStatistics(part, rowCount, fields);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private long[] histogram(String part, String column, double min, double max) throws SQLException {
+        long[] histogram = new long[FieldStatistics.BUCKETS];
+        String c = "\"" + column + "\"";
+        String bucket = max == min ? "0" : "FLOOR((" + c + " - " + min + ") * " + histogram.length + " / " + (max - min) + ")";
+        ResultSet resultSet = SqlUtil.query(connection, "SELECT " + bucket + ", COUNT(*) FROM " + part
+                + " WHERE " + c + " IS NOT NULL GROUP BY " + bucket);
+        while (resultSet.next()) {
+            int i = (int) Math.min(Math.max(resultSet.getLong(1), 0), histogram.length - 1);
+            histogram[i] += resultSet.getLong(2);
+        }
+        return histogram;
+    }
+
     @Override
     public FactSet filter(Predicate<Fact, FactSet> predicate) {
         final String whereCondition = sqlPredicate(predicate);
@@ -0,0 +1,183 @@
+package io.github.zvasva.maxregel.processor;
+
+import io.github.zvasva.maxregel.core.term.AsTerm;
+import io.github.zvasva.maxregel.core.term.Terms;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Generates a {@link io.github.zvasva.maxregel.core.term.Term} adapter for every class or record annotated with
+ * {@link AsTerm}. The adapter reads fields with plain method calls and field access, instead of reflection.
+ * <p>
+ * The fields of the term are the record components, or the non-static fields of a class. A class field is read
+ * using its getter ({@code getName()}), a method with the same name ({@code name()}), or directly, in that order.
+ * Private fields without such a method are left out, with a warning.
+ * <p>
+ * The processor is not registered as a service, so it only runs when it is enabled explicitly, e.g. with
+ * {@code javac -processor io.github.zvasva.maxregel.processor.AsTermProcessor}, or by listing it under
+ * {@code annotationProcessors} in the configuration of the maven-compiler-plugin.
+ *
+ * @author Arvid Halma
+ */
+@SupportedAnnotationTypes("io.github.zvasva.maxregel.core.term.AsTerm")
+public class AsTermProcessor extends AbstractProcessor {
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(AsTerm.class)) {
+            if (!(element instanceof TypeElement type) || !(type.getKind() == ElementKind.CLASS || type.getKind() == ElementKind.RECORD)) {
+                error(element, "@AsTerm can only be used on classes and records");
+                continue;
+            }
+            if (isPrivate(type)) {
+                error(element, "@AsTerm can not be used on private types");
+                continue;
+            }
+            try {
+                generate(type);
+            } catch (IOException e) {
+                error(element, "Could not generate term adapter: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    private void generate(TypeElement type) throws IOException {
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String adapterName = Terms.adapterClassName(processingEnv.getElementUtils().getBinaryName(type).toString());
+        String simpleName = packageName.isEmpty() ? adapterName : adapterName.substring(packageName.length() + 1);
+        String typeName = processingEnv.getTypeUtils().erasure(type.asType()).toString();
+        Map<String, String> fields = fields(type);
+
+        StringBuilder src = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            src.append("package ").append(packageName).append(";\n\n");
+        }
+        src.append("/**\n * Generated {@link io.github.zvasva.maxregel.core.term.Term} adapter for {@link ").append(typeName).append("}.\n */\n");
+        src.append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n");
+        src.append("public final class ").append(simpleName).append(" extends io.github.zvasva.maxregel.core.term.AbstractTerm {\n\n");
+        src.append("    private static final java.util.List<String> KEYS = java.util.List.of(")
+                .append(fields.keySet().stream().map(AsTermProcessor::quote).collect(Collectors.joining(", "))).append(");\n\n");
+        src.append("    private final ").append(typeName).append(" obj;\n");
+        src.append("    private int hash = 0xCAFEBABE; // use a non-zero value to indicate uninitialized\n\n");
+        src.append("    public ").append(simpleName).append("(").append(typeName).append(" obj) {\n");
+        src.append("        this.obj = java.util.Objects.requireNonNull(obj);\n");
+        src.append("    }\n\n");
+
+        src.append("    @Override\n    public boolean has(String key) {\n");
+        if (fields.isEmpty()) {
+            src.append("        return false;\n");
+        } else {
+            src.append("        return key != null && switch (key) {\n");
+            src.append("            case ").append(fields.keySet().stream().map(AsTermProcessor::quote).collect(Collectors.joining(", "))).append(" -> true;\n");
+            src.append("            default -> false;\n");
+            src.append("        };\n");
+        }
+        src.append("    }\n\n");
+
+        src.append("    @Override\n    public Object get(String key) {\n");
+        if (fields.isEmpty()) {
+            src.append("        return null;\n");
+        } else {
+            src.append("        if (key == null) {\n            return null;\n        }\n");
+            src.append("        return switch (key) {\n");
+            fields.forEach((name, expression) ->
+                    src.append("            case ").append(quote(name)).append(" -> (Object) ").append(expression).append(";\n"));
+            src.append("            default -> null;\n");
+            src.append("        };\n");
+        }
+        src.append("    }\n\n");
+
+        src.append("    @Override\n    public java.util.List<String> keys() {\n        return KEYS;\n    }\n\n");
+        src.append("    @Override\n    public int hashCode() {\n");
+        src.append("        if (hash == 0xCAFEBABE)\n");
+        src.append("            this.hash = io.github.zvasva.maxregel.core.term.Terms.hashCode(this);\n");
+        src.append("        return hash;\n    }\n}\n");
+
+        try (Writer writer = processingEnv.getFiler().createSourceFile(adapterName, type).openWriter()) {
+            writer.write(src.toString());
+        }
+    }
+
+    /**
+     * Determine the field names and the expressions that read them from "obj".
+     */
+    private Map<String, String> fields(TypeElement type) {
+        Map<String, String> result = new LinkedHashMap<>();
+        if (type.getKind() == ElementKind.RECORD) {
+            for (RecordComponentElement component : type.getRecordComponents()) {
+                result.put(component.getSimpleName().toString(), "obj." + component.getAccessor().getSimpleName() + "()");
+            }
+            return result;
+        }
+
+        List<ExecutableElement> methods = ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type));
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            if (field.getModifiers().contains(Modifier.STATIC)) {
+                continue;
+            }
+            String name = field.getSimpleName().toString();
+            String getter = "get" + name.substring(0, 1).toUpperCase() + name.substring(1);
+            if (hasReadMethod(methods, getter)) {
+                result.put(name, "obj." + getter + "()");
+            } else if (hasReadMethod(methods, name)) {
+                result.put(name, "obj." + name + "()");
+            } else if (!field.getModifiers().contains(Modifier.PRIVATE)) {
+                result.put(name, "obj." + name);
+            } else {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                        "Private field without getter is not part of the generated term: " + name, field);
+            }
+        }
+        return result;
+    }
+
+    private static boolean hasReadMethod(List<ExecutableElement> methods, String name) {
+        for (ExecutableElement method : methods) {
+            if (method.getSimpleName().contentEquals(name)
+                    && method.getParameters().isEmpty()
+                    && method.getReturnType().getKind() != TypeKind.VOID
+                    && !method.getModifiers().contains(Modifier.PRIVATE)
+                    && !method.getModifiers().contains(Modifier.STATIC)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isPrivate(TypeElement type) {
+        for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            if (e.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String quote(String s) {
+        return "\"" + s + "\"";
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,5 @@
+/**
+ * Compile time support, like generating {@link io.github.zvasva.maxregel.core.term.Term} adapters.
+ * @author Arvid Halma
+ */
+package io.github.zvasva.maxregel.processor;
@@ -0,0 +1,245 @@
+package io.github.zvasva.maxregel.util;
+
+import io.github.zvasva.maxregel.util.ReflectionUtil.ValueSource;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Reflection metadata of a class, looked up once and cached: the declared field names, and for every field name how
+ * it can be read (getter, verbatim method or field), as {@link MethodHandle}s.
+ * For the declared fields, the presence of getters and methods is kept in bitsets, so checking whether an object
+ * "has" a field does not involve any lookup (or exception) at all.
+ * <p>
+ * Values are read in the same way as the corresponding {@link ReflectionUtil} methods describe, e.g. for
+ * {@link ValueSource#ANY}: first the getter, then the verbatim method and finally the field itself.
+ *
+ * @author Arvid Halma
+ */
+public final class ClassMetadata {
+
+    private static final Map<Class<?>, ClassMetadata> CACHE = new ConcurrentHashMap<>();
+    private static final MethodType OBJECT_TO_OBJECT = MethodType.methodType(Object.class, Object.class);
+    private static final Object FAILED = new Object(); // marks a failed read, to distinguish it from a null value
+    private static final Accessor MISSING = new Accessor(false, false, false, null, null, null);
+    private static final int MAX_MISSING = 256; // names that cannot be read, remembered per class
+
+    private final Class<?> clazz;
+    private final List<String> fieldNames;
+    private final Map<String, Integer> fieldPositions;
+    private final BitSet getters;
+    private final BitSet methods;
+    private final Accessor[] fieldAccessors;
+    private final Map<String, Accessor> otherAccessors = new ConcurrentHashMap<>(); // members that are not fields
+    private final Set<String> missing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Get the (cached) metadata of a class.
+     * @param clazz the class to inspect
+     * @return the metadata
+     */
+    public static ClassMetadata of(Class<?> clazz) {
+        return CACHE.computeIfAbsent(clazz, ClassMetadata::new);
+    }
+
+    private ClassMetadata(Class<?> clazz) {
+        this.clazz = clazz;
+        Field[] fields = clazz.getDeclaredFields();
+        List<String> names = new ArrayList<>(fields.length);
+        this.fieldPositions = new HashMap<>();
+        this.getters = new BitSet(fields.length);
+        this.methods = new BitSet(fields.length);
+        this.fieldAccessors = new Accessor[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            String name = fields[i].getName();
+            names.add(name);
+            fieldPositions.put(name, i);
+            Accessor accessor = resolve(name);
+            fieldAccessors[i] = accessor;
+            getters.set(i, accessor.hasGetter);
+            methods.set(i, accessor.hasMethod);
+        }
+        this.fieldNames = List.copyOf(names);
+    }
+
+    public Class<?> getType() {
+        return clazz;
+    }
+
+    /**
+     * The names of the declared fields of the class.
+     * @return an unmodifiable list of names
+     */
+    public List<String> fieldNames() {
+        return fieldNames;
+    }
+
+    /**
+     * Checks if a field can be read from instances of this class.
+     *
+     * @param fieldName the name of the field
+     * @param source    the means of retrieving the value
+     * @return true if the field can be read using the given source
+     */
+    public boolean has(String fieldName, ValueSource source) {
+        if (fieldName == null || fieldName.isBlank()) {
+            return false;
+        }
+        Integer position = fieldPositions.get(fieldName);
+        if (position != null) {
+            return switch (source) {
+                case GETTER -> getters.get(position);
+                case METHOD -> methods.get(position);
+                case FIELD, ANY -> true;
+            };
+        }
+        return accessor(fieldName).has(source);
+    }
+
+    /**
+     * Retrieve a field's value.
+     *
+     * @param obj       an instance of this class
+     * @param fieldName the name of the field
+     * @param source    the means of retrieving the value
+     * @return the value, or null if the field does not exist or cannot be accessed.
+     */
+    public Object get(Object obj, String fieldName, ValueSource source) {
+        if (fieldName == null || fieldName.isBlank()) {
+            return null;
+        }
+        return accessor(fieldName).read(obj, source);
+    }
+
+    /**
+     * Get a function that reads a field from instances of this class.
+     *
+     * @param fieldName the name of the field
+     * @param source    the means of retrieving the value
+     * @return the function, or null if the field cannot be read using the given source.
+     */
+    public Function<Object, Object> reader(String fieldName, ValueSource source) {
+        if (!has(fieldName, source)) {
+            return null;
+        }
+        Accessor accessor = accessor(fieldName);
+        return obj -> accessor.read(obj, source);
+    }
+
+    private Accessor accessor(String fieldName) {
+        Integer position = fieldPositions.get(fieldName);
+        if (position != null) {
+            return fieldAccessors[position];
+        }
+        Accessor accessor = otherAccessors.get(fieldName);
+        if (accessor != null) {
+            return accessor;
+        }
+        if (missing.contains(fieldName)) {
+            return MISSING;
+        }
+        accessor = resolve(fieldName);
+        if (accessor.has(ValueSource.ANY)) {
+            otherAccessors.putIfAbsent(fieldName, accessor);
+        } else if (missing.size() < MAX_MISSING) {
+            // any name can be requested, so only a limited number of misses is kept
+            missing.add(fieldName);
+        }
+        return accessor;
+    }
+
+    private Accessor resolve(String fieldName) {
+        Method getter = findMethod("get" + fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1));
+        Method method = findMethod(fieldName);
+        Field field = null;
+        try {
+            field = clazz.getDeclaredField(fieldName);
+        } catch (NoSuchFieldException ignored) {}
+        return new Accessor(getter != null, method != null, field != null,
+                unreflect(getter), unreflect(method), unreflect(field));
+    }
+
+    private Method findMethod(String name) {
+        try {
+            return clazz.getMethod(name);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Create a handle of type (Object)Object, or null if the member does not exist or is not accessible.
+     */
+    private static MethodHandle unreflect(Object member) {
+        try {
+            MethodHandle handle = switch (member) {
+                case Method m when m.getParameterCount() == 0 && m.trySetAccessible() -> MethodHandles.lookup().unreflect(m);
+                case Field f when f.trySetAccessible() -> MethodHandles.lookup().unreflectGetter(f);
+                case null, default -> null;
+            };
+            if (handle == null) {
+                return null;
+            }
+            if (handle.type().parameterCount() == 0) {
+                // static member: ignore the instance
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+            return handle.asType(OBJECT_TO_OBJECT);
+        } catch (IllegalAccessException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The ways to read one field name.
+     */
+    private record Accessor(boolean hasGetter, boolean hasMethod, boolean hasField,
+                            MethodHandle getter, MethodHandle method, MethodHandle field) {
+
+        boolean has(ValueSource source) {
+            return switch (source) {
+                case GETTER -> hasGetter;
+                case METHOD -> hasMethod;
+                case FIELD -> hasField;
+                case ANY -> hasGetter || hasMethod || hasField;
+            };
+        }
+
+        Object read(Object obj, ValueSource source) {
+            Object value = switch (source) {
+                case GETTER -> invoke(getter, obj);
+                case METHOD -> invoke(method, obj);
+                case FIELD -> invoke(field, obj);
+                case ANY -> {
+                    Object result = invoke(getter, obj);
+                    if (result == FAILED) {
+                        result = invoke(method, obj);
+                    }
+                    if (result == FAILED) {
+                        result = invoke(field, obj);
+                    }
+                    yield result;
+                }
+            };
+            return value == FAILED ? null : value;
+        }
+
+        private static Object invoke(MethodHandle handle, Object obj) {
+            if (handle == null) {
+                return FAILED;
+            }
+            try {
+                return (Object) handle.invokeExact(obj);
+            } catch (Throwable e) {
+                // like with reflection, a failing getter results in trying the next option
+                return FAILED;
+            }
+        }
+    }
+}
@@ -178,6 +178,8 @@ public class PrettyPrint {
             case "field_leq" -> "(" + prettyPredicate(args.get(0)) + " <= " + pretty(args.get(1)) + ")";
             case "field_in" -> "(" + prettyPredicate(args.get(0)) + " IN " + pretty(args.get(1)) + ")";
             case "field_contains" -> "(" + prettyPredicate(args.get(0)) + " contains " + pretty(args.get(1)) + ")";
+            case "valid_at" -> "(" + prettyPredicate(args.get(0)) + " <= " + pretty(args.get(2)) + " < " + prettyPredicate(args.get(1)) + ")";
+            case "field_matches" -> "(" + prettyPredicate(args.get(0)) + " matches " + pretty(args.get(1)) + ")";
             case "term_eq" -> "(" + prettyPredicate(args.get(0)) + " AND " + prettyPredicate(args.get(1)) + ")";
             default -> op + args.stream().map(PrettyPrint::prettyPredicate).toList();
         };
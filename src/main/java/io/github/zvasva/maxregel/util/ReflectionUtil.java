@@ -4,6 +4,7 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 import static io.github.zvasva.maxregel.util.Coerce.*;
 
@@ -32,13 +33,18 @@ public class ReflectionUtil {
         }).get(fieldName);
     }
 
+    /**
+     * Get the (cached) reflection metadata of a class.
+     *
+     * @param clazz the class to inspect
+     * @return field names and the means to read them
+     */
+    public static ClassMetadata metadata(Class<?> clazz) {
+        return ClassMetadata.of(clazz);
+    }
+
     public static Object getValue(final Object obj, final String fieldName, ValueSource source) {
-        return switch (source) {
-            case GETTER -> getValueFromGetter(obj, fieldName);
-            case METHOD -> getValueFromMethod(obj, fieldName);
-            case FIELD -> getValueFromField(obj, fieldName);
-            case ANY -> getValue(obj, fieldName);
-        };
+        return obj == null ? null : ClassMetadata.of(obj.getClass()).get(obj, fieldName, source);
     }
 
     /**
@@ -51,62 +57,34 @@ public class ReflectionUtil {
      * @return The value of the specified field, or null if the field does not exist or cannot be accessed.
      */
     public static Object getValue(Object obj, String fieldName) {
-        if( fieldName == null || fieldName.isBlank())
-            return null;
-
-
-        try {
-            // Check if the getter method exists
-            // Capitalize the first letter of the field to create the getter method name.
-            String getterName = "get" + fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1);
-            Method getterMethod = obj.getClass().getMethod(getterName);
-            return getterMethod.invoke(obj);  // Use the getter to get the value
-        } catch (Exception e) {
-            try {
-                // Verbatim name (e.g. "name()" without "get"
-                Method getterMethod = obj.getClass().getMethod(fieldName);
-                return getterMethod.invoke(obj);
-            } catch (Exception e2) {
-                try {
-                    // No getter found, proceed to access the field directly
-                    Field field = obj.getClass().getDeclaredField(fieldName);
-                    field.setAccessible(true);  // Allows access to private fields
-                    return field.get(obj);  // Retrieve the value from the field directly
-                } catch (Exception e3) {
-                    return null;
-                }
-            }
-        }
+        return getValue(obj, fieldName, ValueSource.ANY);
     }
 
     public static Object getValueFromGetter(Object obj, String fieldName) {
-        try {
-            // Check if the getter method exists
-            // Capitalize the first letter of the field to create the getter method name.
-            String getterName = "get" + fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1);
-            Method getterMethod = obj.getClass().getMethod(getterName);
-            return getterMethod.invoke(obj);  // Use the getter to get the value
-        } catch (Exception ignored) {}
-        return null;
+        return getValue(obj, fieldName, ValueSource.GETTER);
     }
 
     public static Object getValueFromMethod(Object obj, String fieldName) {
-        try {
-            // Verbatim name (e.g. "name()" without "get"
-            Method getterMethod = obj.getClass().getMethod(fieldName);
-            return getterMethod.invoke(obj);
-        } catch (Exception ignored) {}
-        return null;
+        return getValue(obj, fieldName, ValueSource.METHOD);
     }
 
     public static Object getValueFromField(Object obj, String fieldName) {
-        try {
-            // No getter found, proceed to access the field directly
-            Field field = getDeclaredField(obj.getClass(), fieldName);
-            return field.get(obj);  // Retrieve the value from the field directly
-        } catch (Exception ignored) {}
-        return null;
+        return getValue(obj, fieldName, ValueSource.FIELD);
     }
+
+    /**
+     * Resolve how to read a field from objects of a given class, so it can be read repeatedly without looking up
+     * methods or fields again. The returned function gives the same result as {@link #getValue(Object, String, ValueSource)}.
+     *
+     * @param clazz     the exact class of the objects to read from
+     * @param fieldName the name of the field
+     * @param source    the means of retrieving the value
+     * @return a function from object to field value, or null if the class has no such field.
+     */
+    public static Function<Object, Object> reader(Class<?> clazz, String fieldName, ValueSource source) {
+        return ClassMetadata.of(clazz).reader(fieldName, source);
+    }
+
     /**
      * Checks if a specified field has a corresponding getter method or is declared
      * in the given object's class. The field can be a private or public field.
@@ -116,12 +94,7 @@ public class ReflectionUtil {
      * @return true if the field or its getter method exists, false otherwise.
      */
     public static boolean hasField(Object obj, String fieldName, ValueSource source) {
-        return switch (source) {
-            case GETTER -> hasGetterForField(obj, fieldName);
-            case METHOD -> hasMethodForField(obj, fieldName);
-            case FIELD -> hasActualField(obj, fieldName);
-            case ANY -> hasField(obj, fieldName);
-        };
+        return obj != null && ClassMetadata.of(obj.getClass()).has(fieldName, source);
     }
 
     /**
@@ -133,59 +106,19 @@ public class ReflectionUtil {
      * @return true if the field or its getter method exists, false otherwise.
      */
     public static boolean hasField(Object obj, String fieldName) {
-        if( fieldName == null || fieldName.isBlank())
-            return false;
-
-        try {
-            // Check if the getter method exists
-            // Capitalize the first letter of the field to create the getter method name.
-            String getterName = "get" + fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1);
-            Method getterMethod = obj.getClass().getMethod(getterName);
-            return true;  // Use the getter to get the value
-        } catch (Exception e) {
-            try {
-                // Verbatim name (e.g. "name()" without "get"
-                Method getterMethod = obj.getClass().getMethod(fieldName);
-                return true;  // Use the getter to get the value
-            } catch (Exception e2) {
-                try {
-                    // No getter found, proceed to access the field directly
-                    Field field = obj.getClass().getDeclaredField(fieldName);
-                    return true;  // Retrieve the value from the field directly
-                } catch (Exception e3) {
-                    return false;
-                }
-            }
-        }
+        return hasField(obj, fieldName, ValueSource.ANY);
     }
 
     public static boolean hasGetterForField(Object obj, String fieldName) {
-        try {
-            // Check if the getter method exists
-            // Capitalize the first letter of the field to create the getter method name.
-            String getterName = "get" + fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1);
-            obj.getClass().getMethod(getterName);
-            return true;  // Use the getter to get the value
-        } catch (Exception ignored) {}
-        return false;
+        return hasField(obj, fieldName, ValueSource.GETTER);
     }
 
     public static boolean hasMethodForField(Object obj, String fieldName) {
-        try {
-            // Verbatim name (e.g. "name()" without "get"
-            obj.getClass().getMethod(fieldName);
-            return true;
-        } catch (Exception ignored) {}
-        return false;
+        return hasField(obj, fieldName, ValueSource.METHOD);
     }
 
     public static boolean hasActualField(Object obj, String fieldName) {
-        try {
-            // No getter found, proceed to access the field directly
-            Field field = obj.getClass().getDeclaredField(fieldName);
-            return true;
-        } catch (Exception ignored) {}
-        return false;
+        return hasField(obj, fieldName, ValueSource.FIELD);
     }
 
     /**
@@ -227,8 +160,7 @@ public class ReflectionUtil {
      * @return A list of names of the getter methods, with the "get" prefix removed and the first letter converted to lowercase.
      */
     public static List<String> allFieldNames(Object obj) {
-        Class<?> clazz = obj.getClass();
-        return Arrays.stream(clazz.getDeclaredFields()).map(Field::getName).toList();
+        return ClassMetadata.of(obj.getClass()).fieldNames();
     }
 
     /**
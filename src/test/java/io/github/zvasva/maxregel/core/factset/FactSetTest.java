@@ -7,8 +7,14 @@ import io.github.zvasva.maxregel.core.process.predicate.Comparator;
 import io.github.zvasva.maxregel.core.process.predicate.Comparator.FieldEq;
 import io.github.zvasva.maxregel.core.process.predicate.Comparator.FieldGt;
 import io.github.zvasva.maxregel.core.process.predicate.Comparator.FieldLt;
+import io.github.zvasva.maxregel.core.process.predicate.FieldContains;
 import io.github.zvasva.maxregel.core.process.predicate.FieldEmpty;
+import io.github.zvasva.maxregel.core.process.predicate.FieldMatches;
 import io.github.zvasva.maxregel.core.process.predicate.Predicate;
+import io.github.zvasva.maxregel.core.process.predicate.ValidAt;
+import io.github.zvasva.maxregel.core.process.rule.Filter;
+import io.github.zvasva.maxregel.core.process.rule.From;
+import io.github.zvasva.maxregel.core.process.rule.Rule;
 import io.github.zvasva.maxregel.core.term.Fact;
 import io.github.zvasva.maxregel.core.term.MapTerm;
 import io.github.zvasva.maxregel.core.term.Term;
@@ -21,13 +27,20 @@ import org.junit.jupiter.api.Test;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static io.github.zvasva.maxregel.core.factset.FactSets.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Test class for the {@link FactSet} interface.
@@ -360,4 +373,162 @@ public class FactSetTest {
     }
 
 
+    @Test
+    public void testStatistics() {
+        PartStatistics statistics = simpsons.statistics("simpsons");
+        assertSame(statistics, simpsons.statistics("simpsons")); // cached
+        assertEquals(9, statistics.getRowCount());
+
+        FieldStatistics age = statistics.field("age");
+        assertEquals(9, age.getDistinctCount());
+        assertEquals(1.0, age.getMin());
+        assertEquals(70.0, age.getMax());
+        assertEquals(0.0, age.nullFraction());
+        assertEquals(9, Arrays.stream(age.getHistogram()).sum());
+        assertEquals(1.0, age.lessFraction(100, false));
+        assertEquals(3.0 / 9, age.lessFraction(18, false), 0.05);
+
+        FieldStatistics hair = statistics.field("hair");
+        assertEquals(3, hair.getDistinctCount());
+        assertEquals("long", hair.getMin());
+        assertEquals(0, hair.getHistogram().length);
+
+        assertEquals(9, concatSimpsons.statistics("simpsonsPart1").getRowCount() + concatSimpsons.statistics("simpsonsPart2").getRowCount());
+        assertEquals(0, simpsons.statistics("unknown").getRowCount());
+        assertEquals(Set.of("simpsons", "lastnames"), FactSets.analyze(FactSets.create(simpsons, lastnames)).keySet());
+
+        PartStatistics incomplete = incompleteSimpsons.statistics("simpsons");
+        assertTrue(incomplete.field("hair").nullFraction() > 0);
+    }
+
+    @Test
+    public void testDistinctEstimate() {
+        FactSet many = FactSets.create("many", java.util.stream.IntStream.range(0, 20_000).mapToObj(i -> new Fact(MapTerm.of("x", i % 5000))));
+        long distinct = many.statistics("many").field("x").getDistinctCount();
+        assertTrue(distinct > 4000 && distinct < 6000, "estimate " + distinct);
+    }
+
+    @Test
+    public void testJdbcStatistics() {
+        PartStatistics statistics = dbSimpsons.statistics("person");
+        assertSame(statistics, dbSimpsons.statistics("person"));
+        assertEquals(9, statistics.getRowCount());
+        assertEquals(9, statistics.field("age").getDistinctCount());
+        assertEquals(1.0, statistics.field("age").getMin());
+        assertEquals(70.0, statistics.field("age").getMax());
+        assertEquals(9, Arrays.stream(statistics.field("age").getHistogram()).sum());
+        assertEquals(3, statistics.field("hair").getDistinctCount());
+        assertEquals(simpsons.statistics("simpsons").field("weight").getMax(), statistics.field("weight").getMax());
+    }
+
+
+    @Test
+    public void testFilteredViews() {
+        List<Fact> facts = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            facts.add(new Fact(MapTerm.of("i", i, "m", i % 3)));
+        }
+        FactSet all = new SinglePartFactSet(facts, "numbers");
+        FactSet large = all.filter(new FieldGt("i", 100));
+        FactSet multiples = large.filter(new FieldEq("m", 0)).setPart("multiples"); // indexed, on a view
+        FactSet few = multiples.filter(new FieldLt("i", 120)); // copied
+
+        assertEquals(2899, large.size());
+        assertEquals(facts.stream().filter(f -> (int) f.get("i") > 100 && (int) f.get("i") % 3 == 0).toList(), multiples.stream().toList());
+        assertEquals(Set.of("multiples"), multiples.parts());
+        assertEquals(List.of(102, 105, 108, 111, 114, 117), few.stream().map(f -> (int) f.get("i")).toList());
+        assertEquals(6, few.size());
+        assertEquals(3, few.filter(new FieldEq("i", 111).not()).filter(new FieldGt("i", 106)).size());
+        assertTrue(all.filter(new FieldEq("m", 5)).isEmpty());
+
+        // the index is shared by the views
+        SinglePartFactSet indexed = new SinglePartFactSet(facts, "numbers");
+        indexed.buildIndex("i");
+        assertEquals(1, indexed.filter(new FieldGt("i", 100)).filter(new FieldEq("i", 200)).size());
+        assertEquals(3, indexed.getIndex("m").size());
+        assertEquals(1000, indexed.getIndex("m").get(1.0).size());
+    }
+
+    @Test
+    public void testTrigramIndex() {
+        List<Fact> facts = new ArrayList<>();
+        String[] streets = {"Kerkstraat", "Dorpsstraat", "Stationsweg", "Markt"};
+        for (int i = 0; i < 2000; i++) {
+            Object address = i % 50 == 0 ? List.of("Kerkstraat") : streets[i % streets.length] + " " + i;
+            facts.add(new Fact(MapTerm.of("i", i, "address", address)));
+        }
+        FactSet all = new SinglePartFactSet(facts, "addresses");
+        FactSet even = all.filter(new FieldEq("i", 0).not()).filter(new FieldMatches("i", "[02468]$"));
+        List<Predicate<Fact, FactSet>> predicates = List.of(
+                new FieldContains("address", "straat 1"), new FieldContains("address", "Kerkstraat"),
+                new FieldContains("address", "plein"), new FieldContains("address", "t"),
+                new FieldMatches("address", "^Dorps.*straat 1\\d\\d$"), new FieldMatches("address", "weg|markt"),
+                // escapes of more than one character
+                new FieldMatches("address", "\\u004Berkstraat"), new FieldMatches("address", "\\x4Berkstraat"),
+                new FieldMatches("address", "\\0113erkstraat"), new FieldMatches("address", "\\p{Lu}erkstraat"),
+                new FieldMatches("address", "\\N{LATIN CAPITAL LETTER K}erkstraat"));
+        for (Predicate<Fact, FactSet> predicate : predicates) {
+            assertEquals(facts.stream().filter(predicate::test).toList(), all.filter(predicate).stream().toList());
+            assertEquals(even.stream().filter(predicate::test).toList(), even.filter(predicate).stream().toList());
+        }
+        assertEquals(480 + 40, all.filter(new FieldContains("address", "Kerkstraat")).size()); // strings and lists
+    }
+
+    @Test
+    public void testValidAt() throws Exception {
+        Random random = new Random(7);
+        LocalDate origin = LocalDate.of(2020, 1, 1);
+        List<Fact> facts = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            LocalDate from = origin.plusDays(random.nextInt(1000));
+            Object to = switch (i % 10) {
+                case 0 -> null; // open ended
+                case 1 -> "unknown";
+                case 2 -> from.plusDays(random.nextInt(30)).toString();
+                default -> from.plusDays(random.nextInt(300));
+            };
+            facts.add(new Fact(MapTerm.of("i", i, "valid_from", i % 25 == 0 ? null : from, "valid_to", to)));
+        }
+        FactSet all = new SinglePartFactSet(facts, "tariffs");
+        FactSet odd = all.filter(new FieldMatches("i", "[13579]$"));
+        for (int d = -10; d < 1400; d += 37) {
+            ValidAt validAt = new ValidAt("valid_from", "valid_to", origin.plusDays(d));
+            assertEquals(facts.stream().filter(validAt::test).toList(), all.filter(validAt).stream().toList());
+            assertEquals(odd.stream().filter(validAt::test).toList(), odd.filter(validAt).stream().toList());
+        }
+        ValidAt validAt = new ValidAt("valid_from", "valid_to", LocalDate.of(2024, 6, 1));
+        assertTrue(validAt.test(new Fact(MapTerm.of("valid_from", "2024-06-01"))));
+        assertFalse(validAt.test(new Fact(MapTerm.of("valid_to", LocalDate.of(2024, 6, 1)))));
+
+        connection.createStatement().execute("CREATE TABLE tariff (\"code\" VARCHAR(5), \"valid_from\" DATE, \"valid_to\" DATE);"
+                + "INSERT INTO tariff VALUES ('A', '2020-01-01', '2024-06-01'), ('B', '2024-06-01', NULL), ('C', NULL, '2025-01-01'), ('D', '2025-01-01', NULL)");
+        FactSet tariffs = new JdbcFactSet(connection, Set.of("tariff"), new UnaryOperation.Identity<>());
+        assertEquals(Set.of("B", "C"), tariffs.filter(validAt).stream().map(f -> f.get("code")).collect(Collectors.toSet()));
+    }
+
+    @Test
+    public void testVersionedFactSet() {
+        FactSet versions = FactSets.create("tariff",
+                // recorded in 2020, corrected in June 2023
+                MapTerm.of("code", "A", "rate", 10, "tx_from", "2020-01-01", "tx_to", "2023-06-01", "valid_from", "2020-01-01", "valid_to", "2024-01-01"),
+                MapTerm.of("code", "A", "rate", 11, "tx_from", "2023-06-01", "tx_to", null, "valid_from", "2020-01-01", "valid_to", "2024-01-01"),
+                // the rate for 2024, recorded in December 2023
+                MapTerm.of("code", "A", "rate", 12, "tx_from", "2023-12-01T12:00:00", "tx_to", null, "valid_from", "2024-01-01", "valid_to", null),
+                MapTerm.of("code", "B", "rate", 5, "tx_from", null, "tx_to", null, "valid_from", null, "valid_to", null),
+                MapTerm.of("code", "C", "rate", 1, "tx_from", "never", "tx_to", null, "valid_from", null, "valid_to", null)
+        );
+        VersionedFactSet store = new VersionedFactSet(versions, "tx_from", "tx_to", "valid_from", "valid_to");
+        assertEquals(Set.of("tariff"), store.parts());
+
+        Rule rateA = new Filter(new From("tariff"), new FieldEq("code", "A"));
+        assertEquals(List.of(10), rates(rateA.apply(store.asOf(Instant.parse("2022-01-01T00:00:00Z"), LocalDate.of(2022, 1, 1)))));
+        assertEquals(List.of(11), rates(rateA.apply(store.asOf(Instant.parse("2023-07-01T00:00:00Z"), LocalDate.of(2022, 1, 1)))));
+        assertEquals(List.of(), rates(rateA.apply(store.asOf(Instant.parse("2023-07-01T00:00:00Z"), LocalDate.of(2024, 3, 1)))));
+        assertEquals(List.of(12), rates(rateA.apply(store.asOf(LocalDate.of(2024, 3, 1)))));
+        assertEquals(List.of(11, 5), rates(store.asOf(LocalDate.of(2023, 12, 31))));
+    }
+
+    private static List<Object> rates(FactSet facts) {
+        return facts.stream().map(f -> f.get("rate")).toList();
+    }
 }
@@ -0,0 +1,254 @@
+package io.github.zvasva.maxregel.core.process;
+
+import io.github.zvasva.maxregel.core.factset.FactSet;
+import io.github.zvasva.maxregel.core.factset.FactSets;
+import io.github.zvasva.maxregel.core.factset.PartStatistics;
+import io.github.zvasva.maxregel.core.process.predicate.AbstractPredicate;
+import io.github.zvasva.maxregel.core.process.predicate.And;
+import io.github.zvasva.maxregel.core.process.predicate.Predicate;
+import io.github.zvasva.maxregel.core.process.rule.Assign;
+import io.github.zvasva.maxregel.core.process.rule.AssignSet;
+import io.github.zvasva.maxregel.core.process.rule.CommonSubexpressions;
+import io.github.zvasva.maxregel.core.process.rule.CostModel;
+import io.github.zvasva.maxregel.core.process.rule.Const;
+import io.github.zvasva.maxregel.core.process.rule.Count;
+import io.github.zvasva.maxregel.core.process.rule.Filter;
+import io.github.zvasva.maxregel.core.process.rule.From;
+import io.github.zvasva.maxregel.core.process.rule.Join;
+import io.github.zvasva.maxregel.core.process.rule.Optimizer;
+import io.github.zvasva.maxregel.core.process.rule.PartialEvaluator;
+import io.github.zvasva.maxregel.core.process.rule.Pipeline;
+import io.github.zvasva.maxregel.core.process.rule.Print;
+import io.github.zvasva.maxregel.core.process.rule.Rule;
+import io.github.zvasva.maxregel.core.process.rule.Script;
+import io.github.zvasva.maxregel.core.process.rule.SelectFields;
+import io.github.zvasva.maxregel.core.process.rule.Shared;
+import io.github.zvasva.maxregel.core.term.Fact;
+import io.github.zvasva.maxregel.core.term.MapTerm;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static io.github.zvasva.maxregel.core.factset.FactSetTest.lastnames;
+import static io.github.zvasva.maxregel.core.factset.FactSetTest.simpsons;
+import static io.github.zvasva.maxregel.core.process.rule.Rules.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OptimizerTest {
+
+    private final FactSet facts = FactSets.create(simpsons, lastnames);
+
+    @Test
+    public void testFilterPushdown() {
+        Rule joined = new Filter(
+                join("simpsons", "lastnames", "name", "first_name"),
+                new And<>(predicate("age", "<", 18), predicate("last_name", "==", "Simpson"))
+        );
+        Rule optimized = new Optimizer(Optimizer.fields(facts)).optimize(joined);
+
+        // both conditions moved to their side of the join
+        Join join = assertInstanceOf(Join.class, optimized);
+        assertInstanceOf(Filter.class, join.getSelectA());
+        assertInstanceOf(Filter.class, join.getSelectB());
+        assertEquals(joined.apply(facts).asMap(), optimized.apply(facts).asMap());
+        assertEquals(3, optimized.apply(facts).size());
+
+        // without schema, nothing is pushed down
+        assertEquals(joined, new Optimizer().optimize(joined));
+    }
+
+    @Test
+    public void testMixedConditionStaysAbove() {
+        Rule joined = new Filter(
+                join("simpsons", "lastnames", "name", "first_name"),
+                predicate("age", "<", 18).or(predicate("last_name", "==", "Bouvier"))
+        );
+        Rule optimized = new Optimizer(Optimizer.fields(facts)).optimize(joined);
+        assertSame(joined, optimized);
+    }
+
+    @Test
+    public void testMergeFiltersAndFuseSelects() {
+        Rule filters = new Filter(new Filter(from("simpsons"), predicate("age", "<", 18)), predicate("gender", "==", "female"));
+        Filter merged = assertInstanceOf(Filter.class, new Optimizer().optimize(filters));
+        assertInstanceOf(And.class, merged.getPredicate());
+        assertEquals(filters.apply(facts).asMap(), merged.apply(facts).asMap());
+
+        Rule selects = new SelectFields(new SelectFields(from("simpsons"), List.of("name", "age")), List.of("name"));
+        SelectFields fused = assertInstanceOf(SelectFields.class, new Optimizer().optimize(selects));
+        assertEquals(List.of("name"), fused.getFieldNames());
+        assertEquals(selects.apply(facts).asMap(), fused.apply(facts).asMap());
+
+        // a field that is not in the inner selection stays null, so these are kept
+        Rule widening = new SelectFields(new SelectFields(from("simpsons"), List.of("name")), List.of("name", "age"));
+        assertSame(widening, new Optimizer().optimize(widening));
+    }
+
+    @Test
+    public void testScript() {
+        List<Rule> rules = List.of(
+                Rule.identity(),
+                let("kids", from("simpsons").then(Rule.identity())),
+                let("simpson_kids", new Filter(join("kids", "lastnames", "name", "first_name"), predicate("last_name", "==", "Simpson"))),
+                let("names", new SelectFields(new SelectFields(from("simpson_kids"), List.of("name", "age")), List.of("name")))
+        );
+        List<Rule> optimized = new Optimizer(Optimizer.fields(facts)).optimize(rules);
+        assertEquals(3, optimized.size());
+        assertEquals("from", optimized.getFirst().children().getFirst().op());
+
+        Script script = new Script(rules);
+        Script optimizedScript = new Script(rules, true);
+        assertEquals(script, optimizedScript);
+        assertTrue(optimizedScript.append(Rule.identity()).isOptimized());
+        FactSet expected = script.apply(facts);
+        FactSet actual = optimizedScript.apply(facts);
+        for (String part : expected.parts()) {
+            assertEquals(expected.get(part).asMap(), actual.get(part).asMap(), part);
+        }
+        assertEquals(6, actual.get("names").size());
+
+        // the filter on the join is pushed down, for the schema of the input
+        AssignSet simpsonKids = assertInstanceOf(AssignSet.class, optimizedScript.plan(facts).get(1));
+        Join join = assertInstanceOf(Join.class, simpsonKids.body());
+        assertInstanceOf(Filter.class, join.getSelectB());
+        assertInstanceOf(Filter.class, script.plan(facts).get(1).children().getFirst());
+        assertEquals(expected.get("names").asMap(), optimizedScript.apply(facts, List.of("names")).get("names").asMap());
+
+        // rewritten scripts stay optimized
+        Script nested = assertInstanceOf(Script.class, new Optimizer(Optimizer.fields(facts)).optimize(script(Rule.identity(), optimizedScript)).children().getLast());
+        assertTrue(nested.isOptimized());
+    }
+
+    @Test
+    public void testInference() {
+        List<Rule> rules = List.of(
+                let("kids", new Filter(new Filter(from("simpsons"), predicate("age", "<", 18)), predicate("gender", "==", "female"))),
+                let("named", new Filter(join("kids", "lastnames", "name", "first_name"), predicate("age", ">", 5)))
+        );
+        FactSet expected = Inference.infer2(facts, rules, Tracer.NONE, 10);
+        FactSet actual = Inference.infer2(facts, rules, Tracer.NONE, 10, true);
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.get("named").asMap(), actual.get("named").asMap());
+
+        // a shared sub rule is computed once for all iterations, as long as its parts do not change
+        int[] binds = {0};
+        Rule counted = new Filter(from("simpsons"), new AbstractPredicate<>() {
+            @Override
+            public AstNode ast() {
+                return new AstNode("counted", java.util.Map.of(), List.of());
+            }
+
+            @Override
+            public Predicate<Fact, FactSet> bind(FactSet parameterData) {
+                binds[0]++; // once per application of the filter
+                return this;
+            }
+
+            @Override
+            public boolean test(Fact fact) {
+                return true;
+            }
+        });
+        List<Rule> twice = List.of(let("a", counted), let("b", counted));
+        Inference.infer2(facts, twice, Tracer.NONE, 10);
+        assertEquals(4, binds[0]); // two rules, two iterations
+        binds[0] = 0;
+        FactSet inferred = Inference.infer2(facts, twice, Tracer.NONE, 10, true);
+        assertEquals(simpsons.size(), inferred.get("b").size());
+        assertEquals(1, binds[0]);
+    }
+
+    @Test
+    public void testCostModel() {
+        PartStatistics statistics = simpsons.statistics("simpsons");
+        assertEquals(1.0 / 9, CostModel.selectivity(predicate("name", "==", "Bart"), statistics), 1e-9);
+        assertEquals(1.0 / 3, CostModel.selectivity(predicate("hair", "==", "long"), statistics), 1e-9);
+        assertEquals(3.0 / 9, CostModel.selectivity(predicate("age", "<", 18), statistics), 0.05);
+        assertEquals(6.0 / 9, CostModel.selectivity(predicate("age", ">=", 18), statistics), 0.05);
+        assertEquals(0, CostModel.selectivity(predicate("age", ">", 100), statistics), 1e-9);
+        assertEquals(1.0 / 27, CostModel.selectivity(predicate("name", "==", "Bart").and(predicate("hair", "==", "long")), statistics), 1e-9);
+        assertEquals(0, CostModel.selectivity(predicate("unknown", "==", 1), statistics));
+
+        assertEquals(9, CostModel.rows(from("simpsons"), facts));
+        assertEquals(3, CostModel.rows(filter("simpsons", "age", "<", 18), facts), 0.5);
+        // 9 simpsons, 9 last names, 9 distinct names: about one match each
+        assertEquals(9, CostModel.rows(join("simpsons", "lastnames", "name", "first_name"), facts), 1e-9);
+        assertTrue(Double.isNaN(CostModel.rows(Rule.identity(), facts)));
+    }
+
+    @Test
+    public void testCommonSubexpressions() {
+        List<Rule> rules = List.of(
+                let("adults", new Filter(join("simpsons", "lastnames", "name", "first_name"), predicate("age", ">=", 18))),
+                let("adult_count", new Count(new Filter(join("simpsons", "lastnames", "name", "first_name"), predicate("age", ">=", 18)), "count")),
+                let("simpsons", filter("simpsons", "gender", "==", "male")),
+                // simpsons changed, so this one is not the same
+                let("male_adults", new Filter(join("simpsons", "lastnames", "name", "first_name"), predicate("age", ">=", 18))),
+                let("printed", new Print(filter("lastnames", "last_name", "==", "Simpson"), "simpsons")),
+                let("printed_again", new Print(filter("lastnames", "last_name", "==", "Simpson"), "simpsons"))
+        );
+        List<Rule> shared = CommonSubexpressions.share(rules);
+        Shared adults = assertInstanceOf(Shared.class, ((AssignSet) shared.get(0)).body());
+        Count count = assertInstanceOf(Count.class, ((AssignSet) shared.get(1)).body());
+        assertSame(adults, count.children().getFirst());
+        assertFalse(((AssignSet) shared.get(3)).body() instanceof Shared);
+        assertSame(rules.get(4), shared.get(4));
+        assertEquals(rules, shared);
+
+        // computed once per evaluation for the same input parts
+        int[] tests = {0};
+        Shared counted = new Shared(new Filter(from("simpsons"), new AbstractPredicate<>() {
+            @Override
+            public AstNode ast() {
+                return new AstNode("counted", java.util.Map.of(), List.of());
+            }
+
+            @Override
+            public boolean test(Fact fact) {
+                tests[0]++;
+                return true;
+            }
+        }), List.of("simpsons"));
+        Pipeline twice = new Pipeline(List.of(let("a", counted), let("b", counted)));
+        assertEquals(simpsons.size(), twice.apply(facts).get("b").size());
+        assertEquals(simpsons.size(), tests[0]);
+        twice.apply(facts);
+        assertEquals(2 * simpsons.size(), tests[0]); // not kept between evaluations
+        counted.apply(facts);
+        assertEquals(3 * simpsons.size(), tests[0]); // outside of an evaluation
+
+        Script script = new Script(rules);
+        FactSet expected = script.apply(facts);
+        FactSet actual = new Script(shared).apply(facts);
+        for (String part : expected.parts()) {
+            assertEquals(expected.get(part).asMap(), actual.get(part).asMap(), part);
+        }
+        assertEquals(5L, FactSets.value(actual.get("adult_count")));
+        assertEquals(3, actual.get("male_adults").size());
+    }
+
+    @Test
+    public void testPartialEvaluation() {
+        Script script = script(
+                let("parents", filter("simpsons", "age", ">=", 18)),
+                let("family", join(from("case"), from("parents"), "name", "name")),
+                let("total", add(cnst("x", 1.0), cnst("x", 2.0)))
+        );
+        Script specialized = PartialEvaluator.specialize(script, simpsons);
+        List<Rule> rules = specialized.getRules();
+
+        // only depends on static parts (or nothing at all), so precomputed
+        assertInstanceOf(Const.class, ((Assign) rules.get(0)).body());
+        assertInstanceOf(Const.class, ((Assign) rules.get(2)).body());
+        Join join = (Join) ((Assign) rules.get(1)).body();
+        assertInstanceOf(From.class, join.getSelectA());
+        assertInstanceOf(Const.class, join.getSelectB());
+
+        // the specialized script does not need the static parts
+        FactSet input = FactSets.create("case", MapTerm.of("name", "Homer"));
+        FactSet expected = script.apply(input.union(simpsons));
+        FactSet actual = specialized.apply(input);
+        assertEquals(expected.get("family"), actual.get("family"));
+        assertEquals(3.0, FactSets.value(actual.get("total")));
+    }
+}
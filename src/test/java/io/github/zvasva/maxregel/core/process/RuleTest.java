@@ -8,15 +8,28 @@ import io.github.zvasva.maxregel.core.process.predicate.Comparator.FieldEq;
 import io.github.zvasva.maxregel.core.process.predicate.Comparator.FieldGeq;
 import io.github.zvasva.maxregel.core.process.predicate.Comparator.FieldGt;
 import io.github.zvasva.maxregel.core.process.predicate.Comparator.FieldLt;
+import io.github.zvasva.maxregel.core.process.predicate.AbstractPredicate;
+import io.github.zvasva.maxregel.core.process.predicate.And;
+import io.github.zvasva.maxregel.core.process.predicate.Comparator;
 import io.github.zvasva.maxregel.core.process.predicate.Exists;
+import io.github.zvasva.maxregel.core.process.predicate.FieldContains;
+import io.github.zvasva.maxregel.core.process.predicate.Or;
+import io.github.zvasva.maxregel.core.process.predicate.Predicate;
 import io.github.zvasva.maxregel.core.process.rule.*;
 import io.github.zvasva.maxregel.core.term.Fact;
 import io.github.zvasva.maxregel.core.term.MapTerm;
 import io.github.zvasva.maxregel.core.term.Terms;
 import org.junit.jupiter.api.Test;
+import java.time.LocalDate;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static io.github.zvasva.maxregel.core.factset.Empty.EMPTY;
@@ -381,6 +394,49 @@ public class RuleTest {
         assertEquals(1, result.filter(new FieldEq("x", "adult (AOW)")).size());
     }
 
+    @Test
+    public void testDecisionTable() {
+        List<Object> values = new ArrayList<>(List.of("a", "b", "", 2.5, Double.NaN, -0.0, 0, true, LocalDate.of(2024, 1, 1)));
+        for (int i = -20; i < 120; i += 3) {
+            values.add(i);
+            values.add(i + 0.5);
+        }
+        List<Fact> facts = values.stream().map(x -> new Fact(MapTerm.of("x", x))).collect(Collectors.toList());
+        facts.add(new Fact(MapTerm.of("y", 1))); // x is null
+
+        List<List<Predicate<Fact, FactSet>>> tables = List.of(
+                List.of(new FieldEq("x", 3), new FieldEq("x", "b"), new FieldEq("x", 2.5), new FieldEq("x", 0.0), new FieldEq("x", 3L)),
+                List.of(new FieldEq("x", 1), new FieldEq("x", 7), new FieldEq("x", 10.5)),
+                List.of(new FieldLt("x", 19), new And<>(new FieldGeq("x", 19), new FieldLt("x", 68)), new FieldEq("x", 70),
+                        new Or<>(new FieldGt("x", 100), new FieldEq("x", 68)), new Comparator.FieldNeq("x", 80))
+        );
+        for (List<Predicate<Fact, FactSet>> conditions : tables) {
+            DecisionTable table = DecisionTable.compile(conditions);
+            assertNotNull(table);
+            for (Fact fact : facts) {
+                int expected = DecisionTable.NONE;
+                for (int i = 0; i < conditions.size() && expected == DecisionTable.NONE; i++) {
+                    expected = conditions.get(i).test(fact) ? i : DecisionTable.NONE;
+                }
+                assertEquals(expected, table.lookup(fact), fact.toString());
+            }
+        }
+        assertNull(DecisionTable.compile(List.of(new FieldLt("x", 1), new FieldLt("y", 2))));
+        assertNull(DecisionTable.compile(List.of(new FieldLt("x", 1), new FieldContains("x", "a"))));
+
+        // consequences that work per fact are applied per run of facts, others per fact
+        FactSet input = FactSets.create(facts.toArray(Fact[]::new));
+        Case identity = new Case(List.of(new Case.LookupEntry(new FieldLt("x", 19), Rule.identity())), cnst("?"), "x");
+        FactSet result = identity.apply(input);
+        assertEquals(facts.size(), result.size());
+        assertEquals(facts.stream().filter(new FieldLt("x", 19)::test).count(), result.filter(new FieldLt("x", 19)).size());
+        Case interleaved = new Case(List.of(new Case.LookupEntry(new FieldLt("x", 19), Rule.identity()),
+                new Case.LookupEntry(new FieldEq("x", "b"), Rule.identity())), Rule.identity(), "x");
+        assertEquals(facts, interleaved.apply(input).stream().toList()); // in the order of the facts
+        assertTrue(DecisionTable.factwise(new Filter(new SelectFields("x"), new FieldLt("x", 1))));
+        assertFalse(DecisionTable.factwise(cnst(1)));
+    }
+
     @Test
     public void testFactSetCaseOnAge(){
         print(simpsons);
@@ -398,6 +454,180 @@ public class RuleTest {
     }
 
 
+    /**
+     * A condition that takes some time.
+     */
+    private static Predicate<FactSet, FactSet> slow(long millis, boolean result) {
+        return new AbstractPredicate<>() {
+            @Override
+            public AstNode ast() {
+                return new AstNode("slow", Map.of(), List.of(millis, result));
+            }
+
+            @Override
+            public boolean test(FactSet facts) {
+                try {
+                    Thread.sleep(millis);
+                } catch (InterruptedException e) {
+                    throw new MaxRegelException(e);
+                }
+                return result;
+            }
+        };
+    }
+
+    /**
+     * A condition with a side effect: it embeds a print rule, and records that it was tested.
+     */
+    private static Predicate<FactSet, FactSet> printing(String name, List<String> tested) {
+        return new AbstractPredicate<>() {
+            @Override
+            public AstNode ast() {
+                return new AstNode("printing", Map.of(), List.of(new Print(cnst(name), name).ast()));
+            }
+
+            @Override
+            public boolean test(FactSet facts) {
+                tested.add(name);
+                return true;
+            }
+        };
+    }
+
+    @Test
+    public void testParallelFactSetCase(){
+        List<FactSetCase.LookupEntry> lookup = List.of(
+                new FactSetCase.LookupEntry(from("simpsons"), slow(200, false), cnst("a")),
+                new FactSetCase.LookupEntry(from("simpsons"), slow(200, false), cnst("b")),
+                new FactSetCase.LookupEntry(from("simpsons"), slow(200, true), cnst("c")),
+                new FactSetCase.LookupEntry(from("simpsons"), slow(0, true), cnst("d")), // holds first, but has a lower priority
+                new FactSetCase.LookupEntry(from("simpsons"), slow(60_000, true), cnst("e")) // cancelled
+        );
+        FactSetCase parallel = new FactSetCase(lookup, cnst("?"), true);
+        assertTrue(parallel.isParallel());
+        assertNotEquals(new FactSetCase(lookup, cnst("?")), parallel);
+
+        // in order, the conditions before "c" alone take 400 ms
+        long start = System.nanoTime();
+        assertEquals("c", FactSets.value(parallel.apply(simpsons)));
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(millis < 400, millis + " ms");
+        assertEquals("?", FactSets.value(new FactSetCase(lookup.subList(0, 1), cnst("?"), true).apply(simpsons)));
+
+        // errors are only raised if the entry is reached
+        Predicate<FactSet, FactSet> failing = new AbstractPredicate<>() {
+            @Override
+            public AstNode ast() {
+                return new AstNode("failing", Map.of(), List.of());
+            }
+
+            @Override
+            public boolean test(FactSet facts) {
+                throw new MaxRegelException("fail");
+            }
+        };
+        assertEquals("a", FactSets.value(new FactSetCase(List.of(
+                new FactSetCase.LookupEntry(from("simpsons"), slow(100, true), cnst("a")),
+                new FactSetCase.LookupEntry(from("simpsons"), failing, cnst("b"))), cnst("?"), true).apply(simpsons)));
+        assertThrows(MaxRegelException.class, () -> new FactSetCase(List.of(
+                new FactSetCase.LookupEntry(from("simpsons"), slow(100, false), cnst("a")),
+                new FactSetCase.LookupEntry(from("simpsons"), failing, cnst("b"))), cnst("?"), true).apply(simpsons));
+
+        // conditions with side effects are not evaluated speculatively
+        List<String> tested = Collections.synchronizedList(new ArrayList<>());
+        assertEquals("a", FactSets.value(new FactSetCase(List.of(
+                new FactSetCase.LookupEntry(from("simpsons"), printing("a", tested), cnst("a")),
+                new FactSetCase.LookupEntry(from("simpsons"), printing("b", tested), cnst("b"))), cnst("?"), true).apply(simpsons)));
+        assertEquals(List.of("a"), tested);
+
+        // the conditions take part in the current evaluation
+        int[] binds = {0};
+        Shared counted = new Shared(new Filter(from("simpsons"), new AbstractPredicate<>() {
+            @Override
+            public AstNode ast() {
+                return new AstNode("counted", Map.of(), List.of());
+            }
+
+            @Override
+            public Predicate<Fact, FactSet> bind(FactSet parameterData) {
+                binds[0]++; // once per application of the filter
+                return this;
+            }
+
+            @Override
+            public boolean test(Fact fact) {
+                return true;
+            }
+        }), List.of("simpsons"));
+        FactSetCase countedCase = new FactSetCase(List.of(
+                new FactSetCase.LookupEntry(from("simpsons"), slow(0, false), cnst("b")),
+                new FactSetCase.LookupEntry(counted, new Exists(), cnst("a"))), cnst("?"), true);
+        FactSet result = new Pipeline(List.of(let("all", counted), let("case", countedCase))).apply(simpsons);
+        assertEquals("a", FactSets.value(result.get("case")));
+        assertEquals(1, binds[0]);
+    }
+
+    @Test
+    public void testForkJoinOperands(){
+        Rule heavy = filter("simpsons", "age", ">", 10).then(filter("simpsons", "weight", "<", 100));
+        Rule arithmetic = add(mul(heavy, heavy), add(heavy, filter("simpsons", "hair", "==", "blue")));
+        Rule joined = join(heavy, from("simpsons"), "name", "name");
+        Rule concat = new Concat(heavy, filter("simpsons", "age", ">", 1000));
+        assertTrue(CostModel.cost(heavy) < CostModel.cost(arithmetic));
+        assertTrue(CostModel.cost(from("simpsons")) < CostModel.cost(joined));
+
+        List<FactSet> sequential = Stream.of(arithmetic, joined, concat).map(r -> r.apply(simpsons)).toList();
+        double threshold = ForkJoinOperands.getThreshold();
+        assertEquals(Double.POSITIVE_INFINITY, threshold); // off by default
+        try {
+            ForkJoinOperands.setThreshold(0);
+            assertEquals(sequential, Stream.of(arithmetic, joined, concat).map(r -> r.apply(simpsons)).toList());
+            assertEquals(sequential, Stream.of(arithmetic, joined, concat).parallel().map(r -> r.apply(simpsons)).toList());
+
+            // operands may block, so they are not evaluated in the common pool
+            List<ForkJoinPool> pools = Collections.synchronizedList(new ArrayList<>());
+            Rule recorded = new Filter(heavy, new AbstractPredicate<>() {
+                @Override
+                public AstNode ast() {
+                    return new AstNode("recorded", Map.of(), List.of());
+                }
+
+                @Override
+                public boolean needsBinding() {
+                    return true;
+                }
+
+                @Override
+                public Predicate<Fact, FactSet> bind(FactSet parameterData) {
+                    pools.add(ForkJoinTask.getPool()); // bound by the thread that applies the filter
+                    return this;
+                }
+
+                @Override
+                public boolean test(Fact fact) {
+                    return true;
+                }
+            });
+            assertEquals(heavy.apply(simpsons).size() * 2, new Concat(recorded, recorded).apply(simpsons).size());
+            assertEquals(2, pools.size());
+            assertFalse(pools.contains(null));
+            assertFalse(pools.contains(ForkJoinPool.commonPool()));
+            assertThrows(MaxRegelException.class, () -> add(heavy, new Filter(from("simpsons"), new AbstractPredicate<>() {
+                @Override
+                public AstNode ast() {
+                    return new AstNode("failing", Map.of(), List.of());
+                }
+
+                @Override
+                public boolean test(Fact fact) {
+                    throw new MaxRegelException("fail");
+                }
+            })).apply(simpsons));
+        } finally {
+            ForkJoinOperands.setThreshold(threshold);
+        }
+    }
+
     @Test
     public void testMerge(){
         FactSet A = FactSets.create("first",
@@ -634,6 +864,13 @@ public class RuleTest {
         FactSet y = new AggregateBy("gender", "age", new Aggregate.Max()).apply(simpsons);
         print(y);
         assertEquals(List.of(70, 41), FactSets.getField(y, "aggregate_max_age"));
+
+        // only the selected facts are aggregated
+        Rule kids = filter("simpsons", "age", "<", 18);
+        FactSet kidsY = new AggregateBy(kids, List.of("gender"), "age", new Aggregate.Max()).apply(simpsons);
+        assertEquals(FactSets.getField(new AggregateBy("gender", "age", new Aggregate.Max()).apply(kids.apply(simpsons)), "aggregate_max_age"),
+                FactSets.getField(kidsY, "aggregate_max_age"));
+        assertEquals(List.of(10, 8), FactSets.getField(kidsY, "aggregate_max_age"));
     }
 
     @Test
@@ -744,4 +981,77 @@ public class RuleTest {
         assertEquals(2, FactSets.value(result.get("FBB"), "B"));
         assertTrue(result.has("FCC"));
     }
+
+    @Test
+    public void testInternAndHash() {
+        Rule kids = filter("simpsons", "age", "<", 18);
+        Script a = (Script) Rules.parse(script(let("kids", kids), let("boys", filter("kids", "gender", "==", "male"))).ast());
+        Script b = (Script) Rules.parse(script(let("kids", kids), let("girls", filter("kids", "gender", "==", "female"))).ast());
+        assertNotEquals(a, b);
+        assertSame(((Assign) a.getRules().getFirst()).body(), ((Assign) b.getRules().getFirst()).body());
+        assertEquals(Rules.hashCode(kids), Rules.hashCode(filter("simpsons", "age", "<", 18)));
+
+        // the hash leaves out the info, which may be annotated after it was cached
+        int hash = a.hashCode();
+        Rules.annotateDependencies(a);
+        assertEquals(hash, a.hashCode());
+
+        // assignments have info of their own, so annotating one script does not change another
+        assertNotSame(a.getRules().getFirst(), b.getRules().getFirst());
+        assertFalse(b.getRules().getFirst().info().containsKey("depends_on"));
+        Rules.annotateDependencies(b);
+        assertEquals(List.of("simpsons"), a.getRules().getFirst().info().get("depends_on"));
+        assertEquals(List.of("simpsons"), b.getRules().getFirst().info().get("depends_on"));
+
+        // rules with state are not shared
+        assertNotSame(Rules.intern(new Once(kids)), Rules.intern(new Once(kids)));
+    }
+
+    @Test
+    public void testInvariantBinding() {
+        FactSet facts = simpsons.union(FactSets.cnst("threshold", "age", 18));
+        Filter filter = new Filter(from("simpsons"), new FieldLt("age", from("threshold")));
+        Pipeline twice = new Pipeline(List.of(let("a", filter), let("b", filter)));
+        FactSet result = twice.apply(facts);
+        assertEquals(3, result.get("a").size());
+        assertEquals(3, result.get("b").size());
+
+        // the threshold did not change, so the bound predicate is reused
+        assertEquals(1, filter.getBinding().getMisses());
+        assertEquals(1, filter.getBinding().getHits());
+
+        // but not in a new evaluation
+        twice.apply(facts);
+        assertEquals(2, filter.getBinding().getMisses());
+        assertEquals(2, filter.getBinding().getHits());
+        filter.apply(facts);
+        assertEquals(3, filter.getBinding().getMisses());
+
+        // a new threshold is bound again
+        result = new Pipeline(List.of(let("a", filter), let("threshold", cnst("age", 5)), let("b", filter))).apply(facts);
+        assertTrue(result.get("b").size() < result.get("a").size());
+        assertEquals(5, filter.getBinding().getMisses());
+        assertTrue(InvariantBinding.totalHits() >= 2);
+
+        // then rules and inference apply their rules in one evaluation too
+        Filter chained = new Filter(from("simpsons"), new FieldLt("age", from("threshold")));
+        then(let("a", chained), let("b", chained)).apply(facts);
+        assertEquals(1, chained.getBinding().getMisses());
+        assertEquals(1, chained.getBinding().getHits());
+        Filter inferred = new Filter(from("simpsons"), new FieldLt("age", from("threshold")));
+        FactSet newFacts = Inference.infer2(facts, List.of(let("kids", inferred)), Tracer.NONE, 10);
+        assertEquals(3, newFacts.get("kids").size());
+        assertEquals(1, inferred.getBinding().getMisses());
+        assertTrue(inferred.getBinding().getHits() >= 1);
+        Inference.infer3(facts, List.of(let("kids", inferred)), Tracer.NONE, 10);
+        assertEquals(2, inferred.getBinding().getMisses());
+
+        // an operand that binds to the first value of the data is bound every time
+        Filter firstValue = new Filter(from("simpsons"), new And<>(new FieldLt("age", from("threshold")), new FieldLt()));
+        facts = FactSets.cnst("limit", "age", 50).union(facts);
+        result = new Pipeline(List.of(let("a", firstValue), let("limit", cnst("age", 5)), let("b", firstValue))).apply(facts);
+        assertEquals(3, result.get("a").size());
+        assertEquals(filter("simpsons", "age", "<", 5).apply(facts).size(), result.get("b").size());
+        assertEquals(0, firstValue.getBinding().getHits());
+    }
 }
@@ -2,13 +2,24 @@ package io.github.zvasva.maxregel.core.process;
 
 import io.github.zvasva.maxregel.core.factset.FactSet;
 import io.github.zvasva.maxregel.core.factset.FactSets;
+import io.github.zvasva.maxregel.core.process.rule.AbstractRule;
+import io.github.zvasva.maxregel.core.process.rule.Assign;
+import io.github.zvasva.maxregel.core.process.rule.Count;
+import io.github.zvasva.maxregel.core.process.rule.Liveness;
 import io.github.zvasva.maxregel.core.process.rule.NamePrefix;
+import io.github.zvasva.maxregel.core.process.rule.Optimizer;
+import io.github.zvasva.maxregel.core.process.rule.Rule;
+import io.github.zvasva.maxregel.core.process.rule.RuleResult;
 import io.github.zvasva.maxregel.core.process.rule.Rules;
 import io.github.zvasva.maxregel.core.process.rule.Script;
+import io.github.zvasva.maxregel.core.process.rule.Shared;
+import io.github.zvasva.maxregel.core.term.Fact;
 import org.junit.jupiter.api.Test;
 
 import java.sql.SQLOutput;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import static io.github.zvasva.maxregel.core.factset.FactSetTest.simpsons;
 import static io.github.zvasva.maxregel.core.factset.FactSets.first;
@@ -271,4 +282,166 @@ public class ScriptTest {
         print("santas", santas);
         assertFalse(santas.isEmpty());
     }
+
+    @Test
+    public void testSlice() {
+        Script script = script(
+                let("kids", filter("simpsons", "age", "<", 18)),
+                let("women", filter("simpsons", "gender", "==", "female")),
+                let("boys", filter("kids", "gender", "==", "male"))
+        );
+
+        Script slice = script.slice(List.of("boys"));
+        print("slice", slice);
+        assertEquals(2, slice.getRules().size());
+        assertFalse(slice.apply(simpsons).has("women"));
+        assertEquals(script.apply(simpsons).get("boys"), slice.apply(simpsons).get("boys"));
+
+        // a final non-assignment determines the output, so everything before it is kept
+        assertEquals(4, script.append(from("boys")).slice(List.of("boys")).getRules().size());
+
+        // and so does an assignment that reads the whole input
+        Script whole = script(let("kids", filter("simpsons", "age", "<", 18)), let("all", filter("age", "<", 18)));
+        assertEquals(2, whole.slice(List.of("all")).getRules().size());
+        assertEquals(6, whole.slice(List.of("all")).apply(simpsons).get("all").size());
+    }
+
+    @Test
+    public void testApplyRequestedParts() {
+        Script script = script(
+                let("kids", filter("simpsons", "age", "<", 18)),
+                let("women", filter("simpsons", "gender", "==", "female")),
+                let("boys", filter("kids", "gender", "==", "male")),
+                let("girls", filter("kids", "gender", "==", "female"))
+        );
+
+        FactSet result = script.apply(simpsons, List.of("boys"));
+        assertEquals(script.apply(simpsons).get("boys"), result.get("boys"));
+        assertFalse(result.has("women"));
+        assertFalse(result.has("girls"));
+
+        List<Assign> unused = script.unusedAssignments(List.of("boys"));
+        assertEquals(List.of("women", "girls"), unused.stream().map(Assign::variable).toList());
+        assertTrue(script.unusedAssignments(List.of("boys", "girls", "women")).isEmpty());
+
+        Script whole = script(let("kids", filter("simpsons", "age", "<", 18)), let("all", filter("age", "<", 18)));
+        assertEquals(6, whole.apply(simpsons).get("all").size());
+        assertEquals(whole.apply(simpsons).get("all"), whole.apply(simpsons, List.of("all")).get("all"));
+        assertTrue(whole.unusedAssignments(List.of("all")).isEmpty());
+    }
+
+    @Test
+    public void testLiveness() {
+        Script script = script(
+                let("kids", filter("simpsons", "age", "<", 18)),
+                let("boys", filter("kids", "gender", "==", "male")),
+                let("girls", filter("kids", "gender", "==", "female")),
+                let("sons", filter("boys", "age", ">", 5))
+        );
+
+        // kids is last read by girls, boys by sons; girls itself is never read
+        List<Set<String>> lastUses = Liveness.lastUses(script.getRules(), List.of("sons"));
+        assertEquals(List.of(Set.of(), Set.of(), Set.of("kids", "girls"), Set.of("boys")), lastUses);
+
+        List<Rule> released = Liveness.release(script.getRules(), List.of("sons"));
+        assertEquals(7, released.size());
+        FactSet result = new Script(released).apply(simpsons);
+        assertEquals(Set.of("simpsons", "sons"), Set.copyOf(result.parts()));
+        assertEquals(script.apply(simpsons).get("sons"), result.get("sons"));
+
+        // a rule that may read any part keeps everything before it alive
+        List<Set<String>> withFrom = Liveness.lastUses(script.append(from("sons")).getRules(), List.of());
+        assertEquals(Set.of("kids", "boys", "girls", "sons"), withFrom.getLast());
+
+        // shared sub rules of an optimized script only read their parts
+        Script optimized = new Script(List.of(
+                let("kids", filter("simpsons", "age", "<", 18)),
+                let("boys", filter("kids", "gender", "==", "male")),
+                let("kid_count", new Count(filter("simpsons", "age", "<", 18), "count")),
+                let("sons", filter("boys", "age", ">", 5))
+        ), true);
+        List<Rule> rules = new Optimizer().optimize(optimized.getRules());
+        assertInstanceOf(Shared.class, ((Assign) rules.getFirst()).body());
+        assertEquals(List.of(Set.of(), Set.of("kids"), Set.of("kid_count"), Set.of("boys")), Liveness.lastUses(rules, List.of("sons")));
+        assertEquals(script.apply(simpsons).get("sons"), optimized.apply(simpsons, List.of("sons")).get("sons"));
+    }
+
+    @Test
+    public void testExplainOnDemand() {
+        Script script = script(
+                let("kids", filter("simpsons", "age", "<", 18)),
+                let("women", filter("simpsons", "gender", "==", "female")),
+                let("boys", filter("kids", "gender", "==", "male"))
+        );
+        Provenance provenance = new Provenance(script);
+
+        Provenance.Evaluation evaluation = provenance.apply(simpsons);
+        Fact bart = first(evaluation.result().output().get("boys"));
+        assertEquals("Bart", bart.get("name"));
+
+        Fact explained = provenance.explain(simpsons, evaluation.fingerprint(), "boys", bart);
+        print("explained", explained);
+        assertNotNull(explained);
+        List<String> assigned = explained.getRules().stream().filter(Rules::isAssignment).map(r -> ((Assign) r).variable()).toList();
+        assertTrue(assigned.containsAll(List.of("kids", "boys")));
+        assertFalse(assigned.contains("women"));
+
+        FactSet otherInput = simpsons.filter(predicate("age", ">", 1));
+        assertThrows(MaxRegelException.class, () -> provenance.explain(otherInput, evaluation.fingerprint(), "boys", bart));
+
+        // a part that is derived from the whole input also depends on the earlier assignments
+        Provenance whole = new Provenance(script(
+                let("kid_count", new Count(filter("simpsons", "age", "<", 18), "kids")),
+                let("counts", filter("kids", ">", 0))
+        ));
+        Provenance.Evaluation wholeEvaluation = whole.apply(simpsons);
+        Fact count = first(wholeEvaluation.result().output().get("counts"));
+        Fact explainedCount = whole.explain(simpsons, wholeEvaluation.fingerprint(), "counts", count);
+        assertNotNull(explainedCount);
+        assertTrue(explainedCount.getRules().stream().anyMatch(r -> Rules.isAssignment(r) && "kid_count".equals(((Assign) r).variable())));
+    }
+
+    @Test
+    public void testLongScript() {
+        // a long script is applied in a loop, not recursively
+        List<Rule> rules = new ArrayList<>();
+        rules.add(let("x0", from("simpsons")));
+        for (int i = 1; i < 2_000; i++) {
+            rules.add(let("x" + i, from("x" + (i - 1))));
+        }
+        Script script = new Script(rules);
+
+        FactSet result = script.apply(simpsons);
+        assertEquals(simpsons.size(), result.get("x1999").size());
+
+        RuleResult traced = Rules.sequence(rules).apply(simpsons, Tracer.NONE);
+        assertEquals(2_000, traced.newlyAssigned().parts().size());
+
+        // so are then chains: the last rule is applied at about the same stack depth as the first one
+        int[] depth = new int[1];
+        rules.add(new AbstractRule() {
+            @Override
+            public String op() {
+                return "depth";
+            }
+
+            @Override
+            public AstNode ast() {
+                return createNode();
+            }
+
+            @Override
+            public FactSet apply(FactSet facts) {
+                depth[0] = Thread.currentThread().getStackTrace().length;
+                return facts;
+            }
+        });
+        int base = Thread.currentThread().getStackTrace().length;
+        Rule chain = Rules.sequence(rules);
+        chain.apply(simpsons);
+        assertTrue(depth[0] - base < 100, "stack depth " + (depth[0] - base));
+        depth[0] = 0;
+        chain.apply(simpsons, Tracer.NONE);
+        assertTrue(depth[0] - base < 100, "stack depth " + (depth[0] - base));
+    }
 }
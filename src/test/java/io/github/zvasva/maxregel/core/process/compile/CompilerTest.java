@@ -0,0 +1,101 @@
+package io.github.zvasva.maxregel.core.process.compile;
+
+import io.github.zvasva.maxregel.core.factset.FactSet;
+import io.github.zvasva.maxregel.core.factset.FactSets;
+import io.github.zvasva.maxregel.core.process.Tracer;
+import io.github.zvasva.maxregel.core.process.predicate.Exists;
+import io.github.zvasva.maxregel.core.process.predicate.FieldContains;
+import io.github.zvasva.maxregel.core.process.rule.Count;
+import io.github.zvasva.maxregel.core.process.rule.Filter;
+import io.github.zvasva.maxregel.core.process.rule.ReturnIf;
+import io.github.zvasva.maxregel.core.process.rule.Rule;
+import io.github.zvasva.maxregel.core.process.rule.RuleResult;
+import io.github.zvasva.maxregel.core.process.rule.Rules;
+import io.github.zvasva.maxregel.core.process.rule.Script;
+import io.github.zvasva.maxregel.core.term.Fact;
+import io.github.zvasva.maxregel.core.term.MapTerm;
+import org.junit.jupiter.api.Test;
+
+import static io.github.zvasva.maxregel.core.factset.FactSetTest.simpsons;
+import static io.github.zvasva.maxregel.core.process.rule.Rules.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompilerTest {
+
+    private final Script script = script(
+            let("kids", filter("simpsons", "age", "<", 18)),
+            let("boys", filter("kids", "gender", "==", "male")),
+            let("small", new Filter(new Filter(from("simpsons"), predicate("weight", "<", 100)), new FieldContains("hair", "middle"))),
+            let("count", new Filter(from("simpsons"), predicate("gender", "==", "female")).then(new Count()))
+    );
+
+    @Test
+    void testSameResultAsInterpreter() {
+        CompiledRule compiled = Compiler.compile(script);
+        assertEquals(script, compiled);
+        assertSame(compiled, Compiler.compile(compiled));
+
+        FactSet expected = script.apply(simpsons);
+        FactSet actual = compiled.apply(simpsons);
+        for (String part : expected.parts()) {
+            assertEquals(expected.get(part).asMap(), actual.get(part).asMap(), part);
+        }
+        assertEquals(2, actual.get("small").size()); // Lisa and Maggie
+    }
+
+    @Test
+    void testCompileParsedScript() {
+        Rule parsed = Rules.parse(script.ast());
+        FactSet result = Compiler.compile(parsed).apply(simpsons);
+        assertEquals(3, result.get("kids").size());
+        assertEquals(1, result.get("boys").size());
+    }
+
+    @Test
+    void testComposeCompiledRules() {
+        // compiled rules are "then" rules too, but they are steps of the chain, not part of it
+        Rule inner = then(let("kids", filter("simpsons", "age", "<", 18)), let("boys", filter("kids", "gender", "==", "male")));
+        Rule outer = then(let("all", from("simpsons")), Compiler.compile(inner));
+        FactSet expected = then(let("all", from("simpsons")), inner).apply(simpsons);
+        FactSet actual = Compiler.compile(outer).apply(simpsons);
+        assertEquals(expected.parts(), actual.parts());
+        assertEquals(1, actual.get("boys").size());
+        assertEquals(Compiler.compile(outer).apply(simpsons, Tracer.NONE).output().parts(), expected.parts());
+    }
+
+    @Test
+    void testNewlyAssigned() {
+        RuleResult expected = script.apply(simpsons, Tracer.NONE);
+        RuleResult actual = Compiler.compile(script).apply(simpsons, Tracer.NONE);
+        assertEquals(expected.newlyAssigned().parts(), actual.newlyAssigned().parts());
+        assertEquals(expected.newlyAssigned().size(), actual.newlyAssigned().size());
+
+        // with tracing, the script is interpreted (tracing changes facts, so use copies)
+        FactSet copies = FactSets.create("simpsons", simpsons.stream().map(f -> new Fact(f.getTerm())).toArray(Fact[]::new));
+        RuleResult traced = Compiler.compile(script).apply(copies, new Tracer.Assignments());
+        assertEquals(expected.newlyAssigned().parts(), traced.newlyAssigned().parts());
+    }
+
+    @Test
+    void testReturnIf() {
+        FactSet facts = FactSets.create(
+                FactSets.create("FA", MapTerm.of("A", 1)),
+                FactSets.create("FB", MapTerm.of("B", 2))
+        );
+        Script returning = script(
+                let("FAA", from("FA")),
+                new ReturnIf(from("FAA"), new Exists(), from("FB")),
+                let("FCC", from("FA"))
+        );
+        FactSet result = Compiler.compile(returning).apply(facts);
+        assertEquals(2, FactSets.value(result, "B"));
+
+        Script continuing = script(
+                new ReturnIf(from("FC")),
+                let("FCC", from("FA"))
+        );
+        RuleResult continued = Compiler.compile(continuing).apply(facts, Tracer.NONE);
+        assertTrue(continued.output().has("FCC"));
+        assertEquals(continuing.apply(facts, Tracer.NONE).newlyAssigned().parts(), continued.newlyAssigned().parts());
+    }
+}
@@ -1,5 +1,7 @@
 package io.github.zvasva.maxregel.core.process.predicate;
 
+import io.github.zvasva.maxregel.core.factset.Empty;
+import io.github.zvasva.maxregel.core.factset.FactBlock;
 import io.github.zvasva.maxregel.core.factset.FactSet;
 import io.github.zvasva.maxregel.core.factset.FactSets;
 import io.github.zvasva.maxregel.core.process.MaxRegelException;
@@ -7,7 +9,10 @@ import io.github.zvasva.maxregel.core.term.Fact;
 import io.github.zvasva.maxregel.core.term.MapTerm;
 import org.junit.jupiter.api.Test;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import static io.github.zvasva.maxregel.core.process.rule.Rules.from;
 import static io.github.zvasva.maxregel.core.process.rule.Rules.select;
@@ -222,6 +227,26 @@ public class PredicateTest {
         assertFalse(wrongTagPredicate.test(fact));
     }
 
+    @Test
+    void testFieldMatchesPredicate() {
+        Fact fact = new Fact(MapTerm.of("address", "Kerkstraat 12, Utrecht", "tags", List.of("java", "ai")));
+        assertTrue(new FieldMatches("address", "straat \\d+").test(fact));
+        assertFalse(new FieldMatches("address", "^straat").test(fact));
+        assertTrue(new FieldMatches("tags", "^j.v").test(fact));
+        assertTrue(Predicates.parse(new FieldMatches("address", "Utr").ast()).test(fact));
+        assertThrows(MaxRegelException.class, () -> new FieldMatches("address", "(unclosed"));
+
+        assertEquals(List.of("straat "), new FieldMatches("address", "straat \\d+").getLiterals());
+        assertEquals(List.of("Kerk", "traa", "12, Utrecht"), new FieldMatches("address", "^Kerk(s|S)traat?\\s12\\, Utrecht$").getLiterals());
+        assertEquals(List.of("abc"), new FieldMatches("x", "[a-z]+abcd?e*").getLiterals());
+        assertEquals(List.of(), new FieldMatches("x", "abc|def").getLiterals());
+        assertEquals(List.of(), new FieldMatches("x", "(?i)abcdef").getLiterals());
+        for (String regex : List.of("\\u0041BCD", "\\x41BCD", "\\0101BCD", "\\cABCD", "\\p{Lu}BCD", "\\P{Ll}BCD", "\\N{LATIN CAPITAL LETTER A}BCD", "(?<a>A)\\k<a>BCD", "(A)\\1BCD")) {
+            assertEquals(List.of(), new FieldMatches("x", regex).getLiterals(), regex);
+        }
+        assertTrue(new FieldMatches("x", "\\u0041BCD").test(new Fact(MapTerm.of("x", "ABCD i"))));
+    }
+
     @Test
     void testFieldListInPredicate() {
         Fact fact = new Fact(MapTerm.of("status", "active"));
@@ -281,4 +306,90 @@ public class PredicateTest {
         assertTrue(new All(gt("age", 40)).test(facts));
         assertFalse(new All(gt("age", 43)).test(facts));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testJunctionOrder() {
+        And<Fact, FactSet> and = new And<>(new FieldContains("name", "oug"), eq("age", 42));
+        Junction<Fact, FactSet> junction = assertInstanceOf(Junction.class, and.bind(null));
+        assertSame(junction, and.bind(null)); // no binding needed, so it keeps learning
+        assertEquals(and, junction);
+        // the cheap and selective equality comes first
+        assertEquals(List.of(eq("age", 42), new FieldContains("name", "oug")), junction.getOrderedOperands());
+        assertTrue(junction.test(new Fact(MapTerm.of("name", "Douglas", "age", 42))));
+        assertFalse(junction.test(new Fact(MapTerm.of("name", "Douglas", "age", 43))));
+        assertFalse(junction.test(new Fact(MapTerm.of("name", "Mary", "age", 42))));
+
+        // nested conjunctions are flattened
+        Junction<Fact, FactSet> nested = assertInstanceOf(Junction.class, and.and(gt("age", 1)).bind(null));
+        assertEquals(3, nested.getOrderedOperands().size());
+    }
+
+    @Test
+    void testJunctionAdapts() {
+        Predicate<Fact, FactSet> and = eq("a", 1).and(eq("b", 1));
+        Predicate<Fact, FactSet> or = eq("a", 1).or(eq("b", 1));
+        Junction<Fact, FactSet> conjunction = assertInstanceOf(Junction.class, and.bind(null));
+        Junction<Fact, FactSet> disjunction = assertInstanceOf(Junction.class, or.bind(null));
+        assertEquals(eq("a", 1), conjunction.getOrderedOperands().getFirst());
+        assertEquals(eq("a", 1), disjunction.getOrderedOperands().getFirst());
+
+        // a always holds, b rarely: testing b first decides an "and" sooner, testing a first decides an "or" sooner
+        for (int i = 0; i < 3 * Junction.RERANK_INTERVAL; i++) {
+            Fact fact = new Fact(MapTerm.of("a", 1, "b", i % 10 == 0 ? 1 : 0));
+            assertEquals(eq("a", 1).test(fact) && eq("b", 1).test(fact), conjunction.test(fact));
+            assertEquals(eq("a", 1).test(fact) || eq("b", 1).test(fact), disjunction.test(fact));
+        }
+        assertEquals(eq("b", 1), conjunction.getOrderedOperands().getFirst());
+        assertEquals(eq("a", 1), disjunction.getOrderedOperands().getFirst());
+    }
+
+    @Test
+    void testSpecializedComparators() {
+        FactSet none = Empty.EMPTY;
+        long big = 9_007_199_254_740_993L; // 2^53 + 1, not exact as a double
+        Fact fact = new Fact(MapTerm.of("n", big - 1, "x", 2.5, "name", "Homer",
+                "born", LocalDate.of(1956, 5, 12), "alive", true));
+
+        // integers are compared exactly
+        Comparator bound = eq("n", big).bind(none);
+        assertNotSame(bound.getClass(), Comparator.FieldEq.class);
+        assertEquals(eq("n", big), bound);
+        assertFalse(bound.test(fact));
+        assertTrue(lt("n", big).bind(none).test(fact));
+        assertTrue(gt("x", 2).bind(none).test(fact));
+
+        // mixed number types, strings, dates and booleans
+        assertTrue(leq("n", 1e20).bind(none).test(fact));
+        assertTrue(gt("name", "Bart").bind(none).test(fact));
+        assertTrue(gt("name", "Abe").bind(none).test(fact));
+        assertTrue(lt("born", LocalDate.of(2000, 1, 1)).bind(none).test(fact));
+        assertTrue(eq("alive", true).bind(none).test(fact));
+        assertFalse(new Comparator.FieldNeq("alive", true).bind(none).test(fact));
+
+        // other types fall back to the generic comparison
+        assertFalse(gt("name", 3).bind(none).test(fact));
+        assertFalse(lt("born", "2000-01-01").bind(none).test(fact));
+    }
+
+    @Test
+    void testBatch() {
+        Random random = new Random(42);
+        List<Fact> facts = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            Object n = i % 100 == 0 ? (Object) 2.5 : random.nextInt(10); // a few decimals among integers
+            String name = random.nextBoolean() ? "Homer" : i % 7 == 0 ? "" : "Bart";
+            facts.add(new Fact(MapTerm.of("n", n, "x", random.nextDouble(), "name", name)));
+        }
+        List<Predicate<Fact, FactSet>> predicates = List.of(
+                eq("n", 3), lt("n", 5L), geq("n", 2.5), gt("x", 0.5), leq("name", "Bart"), gt("name", 3),
+                new FieldIn("n", List.of(1, 2, 3)), new FieldIn("name", "Homer Simpson"), new FieldEmpty("name"),
+                eq("n", 3).not(), new And<>(lt("n", 5), gt("x", 0.3)), new Or<>(eq("name", "Bart"), lt("x", 0.1)),
+                new And<>(lt("n", 5), new Or<>(gt("x", 0.3), eq("name", "Homer"))).bind(Empty.EMPTY)
+        );
+        for (Predicate<Fact, FactSet> predicate : predicates) {
+            Predicate<Fact, FactSet> bound = predicate.bind(Empty.EMPTY);
+            List<Fact> expected = facts.stream().filter(bound::test).toList();
+            assertEquals(expected, FactBlock.filter(facts, bound), predicate.ast().toString());
+        }
+    }
+}
@@ -253,6 +253,38 @@ public class AsTermTest {
         assertEquals(intersection, mapTerm1);
     }
 
+    @Test
+    void testAccessor() {
+        Persooon john = new Persooon("John Doe", 25);
+        Persooon jane = new Persooon("Jane Doe", 30);
+        FieldAccessor name = new ObjectAsTerm(john).accessor("name");
+
+        assertEquals("name", name.field());
+        assertEquals("John Doe", name.get(new ObjectAsTerm(john)));
+        assertEquals("Jane Doe", name.get(new ObjectAsTerm(jane)));
+        assertNull(new ObjectAsTerm(john).accessor("nonExistingField").get(new ObjectAsTerm(john)));
+
+        // other kinds of terms are read with a plain get
+        assertEquals("Bart", name.get(MapTerm.of("name", "Bart")));
+        Term record = new RecordAsTerm(new PersonRecord("John Doe", 25));
+        assertEquals("John Doe", name.get(record));
+        assertEquals(30, record.accessor("age").get(new ObjectFieldsAsTerm(jane)));
+    }
+
+    @Test
+    void testAdaptiveAccessor() {
+        FieldAccessor age = FieldAccessor.of("age");
+        List<Term> terms = List.of(
+                new RecordAsTerm(new PersonRecord("John Doe", 25)),
+                new ObjectAsTerm(new Persooon("Jane Doe", 30)),
+                MapTerm.of("age", 10),
+                new ObjectFieldsAsTerm(new Persooon("Jack Doe", 35))
+        );
+        for (Term term : terms) {
+            assertEquals(term.get("age"), age.get(term));
+            assertEquals(term.get("age"), new Fact(term).get(age));
+        }
+    }
 
     public static class PersonAbstractTerm extends AbstractTerm {
         public String name;
@@ -0,0 +1,83 @@
+package io.github.zvasva.maxregel.core.term;
+
+import io.github.zvasva.maxregel.core.factset.FactSet;
+import io.github.zvasva.maxregel.core.factset.FactSets;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the term adapters that are generated for {@link AsTerm} annotated types.
+ */
+class GeneratedTermTest {
+
+    @AsTerm
+    record Person(String name, int age) {
+    }
+
+    @AsTerm
+    static class Employee {
+        private final String name;
+        private final double salary;
+        String department;
+        private String secret = "hidden"; // no getter: not part of the term
+
+        Employee(String name, double salary, String department) {
+            this.name = name;
+            this.salary = salary;
+            this.department = department;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double salary() {
+            return salary;
+        }
+    }
+
+    @Test
+    void testGeneratedRecordAdapter() {
+        Person homer = new Person("Homer", 39);
+        Term term = Terms.asTerm(homer);
+
+        assertEquals(Terms.adapterClassName(Person.class.getName()), term.getClass().getName());
+        assertEquals("Homer", term.get("name"));
+        assertEquals(39, term.get("age"));
+        assertNull(term.get("weight"));
+        assertNull(term.get(null));
+        assertTrue(term.has("age"));
+        assertFalse(term.has("weight"));
+        assertEquals(List.of("name", "age"), term.keys());
+
+        Term reflective = new RecordAsTerm(homer);
+        assertEquals(reflective, term);
+        assertEquals(reflective.hashCode(), term.hashCode());
+    }
+
+    @Test
+    void testGeneratedClassAdapter() {
+        Term term = Terms.asTerm(new Employee("Homer", 1200.0, "safety"));
+
+        assertEquals(Terms.adapterClassName(Employee.class.getName()), term.getClass().getName());
+        assertEquals(MapTerm.of("name", "Homer", "salary", 1200.0, "department", "safety"), term);
+        assertFalse(term.has("secret"));
+    }
+
+    @Test
+    void testFallbackAndFactSet() {
+        record Point(int x, int y) {
+        }
+        assertInstanceOf(RecordAsTerm.class, Terms.asTerm(new Point(1, 2)));
+        Term map = MapTerm.of("x", 1);
+        assertSame(map, Terms.asTerm(map));
+
+        FactSet facts = FactSets.fromObjects("people", List.of(new Person("Homer", 39), new Person("Marge", 36)));
+        assertEquals(2, facts.size());
+        assertEquals(List.of("people"), List.copyOf(facts.parts()));
+        assertEquals("Marge", facts.stream().toList().get(1).get("name"));
+    }
+}
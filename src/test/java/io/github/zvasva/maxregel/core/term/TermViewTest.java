@@ -0,0 +1,79 @@
+package io.github.zvasva.maxregel.core.term;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the zero-copy term views: {@link JoinedTerm}, {@link ProjectedTerm} and {@link RenamedTerm}.
+ */
+class TermViewTest {
+
+    private final Term homer = MapTerm.of("name", "Homer", "age", 39, "gender", "male");
+    private final Term job = MapTerm.of("name", "Homer Simpson", "job", "safety inspector");
+
+    @Test
+    void testJoinedTerm() {
+        Term joined = new JoinedTerm(homer, job);
+
+        assertEquals("Homer Simpson", joined.get("name")); // second term wins
+        assertEquals(39, joined.get("age"));
+        assertEquals("safety inspector", joined.get("job"));
+        assertNull(joined.get("weight"));
+        assertTrue(joined.has("job"));
+        assertFalse(joined.has("weight"));
+        assertEquals(List.of("name", "age", "gender", "job"), joined.keys());
+
+        Term copy = Terms.union(homer, job);
+        assertEquals(copy, joined);
+        assertEquals(copy.hashCode(), joined.hashCode());
+    }
+
+    @Test
+    void testProjectedTerm() {
+        Term projected = new ProjectedTerm(homer, List.of("name", "weight"));
+
+        assertEquals("Homer", projected.get("name"));
+        assertNull(projected.get("age"));
+        assertFalse(projected.has("age"));
+        assertTrue(projected.has("weight")); // selected, but absent in the underlying term
+        assertEquals(List.of("name", "weight"), projected.keys());
+
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("name", "Homer");
+        expected.put("weight", null);
+        assertEquals(new MapTerm(expected), projected);
+    }
+
+    @Test
+    void testRenamedTerm() {
+        Term renamed = new RenamedTerm(homer, "name", "first_name");
+
+        assertEquals("Homer", renamed.get("first_name"));
+        assertNull(renamed.get("name"));
+        assertFalse(renamed.has("name"));
+        assertTrue(renamed.has("first_name"));
+        assertEquals(Set.of("first_name", "age", "gender"), Set.copyOf(renamed.keys()));
+        assertEquals(MapTerm.of("first_name", "Homer", "age", 39, "gender", "male"), renamed);
+
+        Term swapped = new RenamedTerm(job, Map.of("name", "job", "job", "name"));
+        assertEquals("safety inspector", swapped.get("name"));
+        assertEquals("Homer Simpson", swapped.get("job"));
+        assertEquals(2, swapped.size());
+    }
+
+    @Test
+    void testMaterialize() {
+        Term view = new ProjectedTerm(new JoinedTerm(homer, job), List.of("name", "job"));
+        Term materialized = Terms.materialize(view);
+
+        assertInstanceOf(MapTerm.class, materialized);
+        assertEquals(view, materialized);
+        assertSame(homer, Terms.materialize(homer));
+    }
+}
@@ -8,7 +8,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.StringJoiner;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class ReflectionUtilTest {
 
@@ -102,6 +102,32 @@ public class ReflectionUtilTest {
         assertEquals(30, map.get("age"));
     }
 
+    @Test
+    public void testClassMetadata(){
+        ClassMetadata metadata = ReflectionUtil.metadata(Person.class);
+        assertSame(metadata, ClassMetadata.of(Person.class)); // cached
+        assertEquals(List.of("name", "age", "likes", "favorites"), metadata.fieldNames());
+
+        assertTrue(metadata.has("likes", ReflectionUtil.ValueSource.GETTER));
+        assertFalse(metadata.has("likes", ReflectionUtil.ValueSource.METHOD));
+        assertTrue(metadata.has("class", ReflectionUtil.ValueSource.ANY)); // getClass(), not a declared field
+        assertFalse(metadata.has("nonExistingField", ReflectionUtil.ValueSource.ANY));
+        assertFalse(metadata.has("", ReflectionUtil.ValueSource.ANY));
+
+        Person anna = ReflectionUtil.assignFieldsFromMap(new Person(), Map.of("name", "Anna", "age", 30));
+        assertEquals("Anna", metadata.get(anna, "name", ReflectionUtil.ValueSource.ANY));
+        assertEquals(30, ReflectionUtil.getValue(anna, "age"));
+        assertEquals(Person.class, ReflectionUtil.getValue(anna, "class"));
+        assertNull(ReflectionUtil.getValue(anna, "nonExistingField"));
+        assertNull(metadata.reader("nonExistingField", ReflectionUtil.ValueSource.ANY));
+        assertEquals("Anna", metadata.reader("name", ReflectionUtil.ValueSource.FIELD).apply(anna));
+
+        // misses are only partly remembered, so they can be requested without bound
+        for (int i = 0; i < 1000; i++) {
+            assertNull(metadata.get(anna, "missing" + i, ReflectionUtil.ValueSource.ANY));
+        }
+        assertEquals(Person.class, metadata.get(anna, "class", ReflectionUtil.ValueSource.ANY));
+    }
 
     private static class Person {
         public String name;